@@ -1,8 +1,12 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.PrintWriter;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Prints the menu<br>
@@ -17,6 +21,8 @@ import java.util.Scanner;
  */
 public class App
 {
+    public static final String QUIZ_PLANNING_EXTENSION = ".quiz";
+    
     private static final String NO_PREVIOUS_SAVE_ERROR = "No previous safe file found, setting to starting state.";
     private static final String SAVE_SUCCESS = "game saved successfully";
     private static final String SAVE_FAILURE = "game could not be saved, copy this in the safe file";
@@ -27,11 +33,31 @@ public class App
     private static final String DUPLICATE_ELEMENT_ERROR = "Elements can not be the same";
     private static final String EMPTY_CATEGORY_NAME = "Category must have a name";
     private static final String CONTINUE = "Are you certain? (Y/N) ";
+    private static final String PATCH_FAILURE = "patch could not be read";
+    private static final String QUIZ_LOAD_FAILURE = "quiz planning could not be loaded, quized recipes will be asked again";
+    private static final String QUIZ_SAVE_FAILURE = "quiz planning could not be saved";
+    private static final String RECORD_FAILURE = "session could not be recorded";
+    private static final String START_STATE_FAILURE = "start state could not be loaded, using the standard start state: ";
+    private static final String PROFILE_LOAD_FAILURE = "profile could not be loaded, starting the profile over";
+    private static final String PROFILE_SAVE_FAILURE = "profile could not be saved";
+    private static final String RENUMBER_WITH_PROFILES =
+            "ids can not be renumbered while profiles use them, remove the profiles or compact without renumbering";
+    private static final String PROFILE_EDITS_NOT_SAVED =
+            "edits are not saved to the safe file with a profile, start without a profile to save them";
+    private static final String EXPORT_FAILURE = "graph could not be exported";
+    private static final String UNKNOWN_CATEGORY_ERROR = "A category does not exist with that name";
+    private static final String AMBIGUOUS_NAME = "Several elements match, did you mean:";
+    private static final String NO_MATCHES = "No elements found";
+    private static final int SUGGESTIONS = 5;
+    private static final String DEFAULT_SAFE_FILE = "src" + File.separator + "SafeFile";
     
-    private boolean allowDuplicates, running, editMode, showMenu;
+    private boolean allowDuplicates, running, editMode, showMenu, compress;
     private ElementCooker game;
     private Scanner userInput;
-    private String safeFileLocation;
+    private SessionRecorder recorder;
+    private SegmentedSafeFile safeFile;
+    private String safeFileLocation, recordLocation, startStateLocation, profile, arguments;
+    private Long seed;
     private Command[] commands;
     private int hints;
     
@@ -42,13 +68,27 @@ public class App
     {
         allowDuplicates = false;
         editMode = false;
+        compress = false;
+        safeFileLocation = DEFAULT_SAFE_FILE;
+        recordLocation = null;
+        startStateLocation = null;
+        profile = null;
+        arguments = "";
+        seed = null;
     }
     
     /**
      * Main method for the Elementally game.
      * Give additional arguments to change settings for the game:<br>
      * allowDuplicates to allow elements to combine with themselves<br>
-     * editMode to allow the editing and adding of recipes, elements and categories
+     * editMode to allow the editing and adding of recipes, elements and categories<br>
+     * compress to compress the safe file and the progress when they are saved, compressed files are always read<br>
+     * seed=[number] to make every random choice the same as in an other session with that seed<br>
+     * safeFile=[location] to load and save the game at a different location<br>
+     * record=[location] to record the session so it can be replayed with the SessionReplayer<br>
+     * startState=[location] to start new games and resets with the elements in that file instead of the standard ones<br>
+     * profile=[name] to keep the progress apart from the safe file, so several players can share the same elements,
+     * only the progress is saved so edits are not saved with a profile
      *
      * @param args The arguments for the setup
      */
@@ -69,21 +109,69 @@ public class App
                 case "editMode":
                     toRun.editMode = true;
                     break;
+                // Compresses the safe file, the profile and the quiz planning when they are saved
+                case "compress":
+                    toRun.compress = true;
+                    break;
+                // Change the settings that have a value
+                default:
+                    toRun.setValue(arg);
+                    break;
             }
+            toRun.arguments = (toRun.arguments + " " + arg).trim();
         }
         toRun.run();
     }
     
+    /**
+     * Changes a setting given as [name]=[value]
+     *
+     * @param arg The argument with the setting
+     */
+    private void setValue(String arg)
+    {
+        int separator = arg.indexOf('=');
+        // If the argument is not a setting: ignore it
+        if (separator == -1) return;
+        String value = arg.substring(separator + 1);
+        // Change the setting with the name of the argument
+        switch (arg.substring(0, separator))
+        {
+            // Makes the random choices the same every session
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            // Changes where the game is loaded from and saved to
+            case "safeFile":
+                safeFileLocation = value;
+                break;
+            // Records the session
+            case "record":
+                recordLocation = value;
+                break;
+            // Changes what a new game starts with
+            case "startState":
+                startStateLocation = value;
+                break;
+            // Keeps the progress in a profile next to the safe file
+            case "profile":
+                profile = value;
+                break;
+        }
+    }
+    
     /**
      * Starts the game
      */
     private void run()
     {
         initGlobals();
+        startRecording();
         loadSafeFile();
         // Keep playing until the player wants to quit
         while (running)
         {
+            game.installLoaded();
             // Show the menu when needed
             if (showMenu)
             {
@@ -91,11 +179,20 @@ public class App
                 System.out.println();
             }
             showMenu = true;
-            Element[] toCombine = askCombination();
-            // If a combination was chosen: combine them
-            if (toCombine != null)
+            // Everything that changes during one input can be undone in one step
+            game.getHistory().begin();
+            try
+            {
+                Element[] toCombine = askCombination();
+                // If a combination was chosen: combine them
+                if (toCombine != null)
+                {
+                    combine(toCombine[0], toCombine[1]);
+                }
+            }
+            finally
             {
-                combine(toCombine[0], toCombine[1]);
+                game.getHistory().end();
             }
             // If more will be printed: separate it by printing an empty line
             if (running)
@@ -103,6 +200,56 @@ public class App
                 System.out.println();
             }
         }
+        // If the session was recorded: finish the recording
+        if (recorder != null)
+        {
+            recorder.close();
+        }
+    }
+    
+    /**
+     * Starts recording the session when a recording location is given, the files it starts with are copied
+     */
+    private void startRecording()
+    {
+        // If the session should not be recorded: don't record it
+        if (recordLocation == null) return;
+        // Start the recording
+        try
+        {
+            String progress = getProgressLocation();
+            recorder = new SessionRecorder(recordLocation, game.getSeed(), arguments, safeFileLocation,
+                                           new String[]{progress, progress + QUIZ_PLANNING_EXTENSION},
+                                           startStateLocation);
+        }
+        // If the recording could not be created: inform the player
+        catch (IOException ioEx)
+        {
+            System.out.println(RECORD_FAILURE);
+        }
+    }
+    
+    /**
+     * Reads a line from the player and adds it to the recording.<br>
+     * When there are no lines left the game stops
+     *
+     * @return The line the player typed or an empty line when there are no lines left
+     */
+    private String readLine()
+    {
+        // If there is nothing left to read: stop the game
+        if (!userInput.hasNextLine())
+        {
+            running = false;
+            return "";
+        }
+        String line = userInput.nextLine();
+        // If the session is recorded: record the line
+        if (recorder != null)
+        {
+            recorder.record(line);
+        }
+        return line;
     }
     
     /**
@@ -110,24 +257,166 @@ public class App
      */
     private void loadSafeFile()
     {
+        long start = game.getMetrics().start();
         // Load in previous data
         try
         {
-            StringBuilder sb = new StringBuilder();
-            Scanner loader = new Scanner(new File(safeFileLocation));
-            // Add all lines from the save file to the StringBuilder
-            while (loader.hasNextLine())
+            String data = safeFile.read(); // Throws IOException, ElementallyException
+            // If all categories are shown: load everything, else start with the known categories
+            if (editMode)
+            {
+                game.loadDataFrom(data); // Throws ElementallyException
+            }
+            else
             {
-                sb.append(loader.nextLine()).append("\n");
+                game.loadProgressively(data);
             }
-            game.loadDataFrom(sb.toString());
+            safeFile.attach(game);
         }
         // If no valid previous data was found: load the starting state
-        catch (FileNotFoundException | ElementallyException e)
+        catch (IOException | ElementallyException e)
         {
             System.out.println(NO_PREVIOUS_SAVE_ERROR);
             game.startState(true);
         }
+        // If there is a profile: replace the progress of the safe file with the progress of the profile
+        if (profile != null)
+        {
+            loadProfile();
+        }
+        loadQuizPlanning();
+        game.getMetrics().stop(Metrics.Operation.LOAD, start);
+    }
+    
+    /**
+     * Loads the progress of the profile, a new profile starts without progress
+     */
+    private void loadProfile()
+    {
+        File progress = new File(getProgressLocation());
+        // If the profile is new: forget the progress of the safe file
+        if (!progress.exists())
+        {
+            game.forgetProgress(false);
+            return;
+        }
+        // Read the progress
+        try (DataInputStream input = new DataInputStream(Compression.open(progress)))
+        {
+            ProgressFile.load(game, input);
+        }
+        // If the progress could not be read: start the profile over
+        catch (IOException | ElementallyException ex)
+        {
+            System.out.println(PROFILE_LOAD_FAILURE);
+            game.forgetProgress(false);
+        }
+    }
+    
+    /**
+     * Saves the categories that changed to the safe file, together with the progress.<br>
+     * Should not be used with a profile, the safe file would get the progress of the profile
+     */
+    private void saveSafeFile()
+    {
+        assert profile == null : "safe file saved with a profile";
+        try
+        {
+            safeFile.save(game);
+        }
+        catch (IOException ioEx)
+        {
+            System.out.println(SAVE_FAILURE +
+                               "\n" + game.getSaveString());
+            return;
+        }
+        saveQuizPlanning();
+        System.out.println(SAVE_SUCCESS);
+    }
+    
+    /**
+     * Saves only the progress to the profile
+     */
+    private void saveProfile()
+    {
+        File progress = new File(getProgressLocation());
+        // Write the progress
+        try (DataOutputStream output = new DataOutputStream(Compression.create(progress, compress)))
+        {
+            ProgressFile.save(game, output);
+        }
+        // If the progress could not be written: inform the player
+        catch (IOException ioEx)
+        {
+            System.out.println(PROFILE_SAVE_FAILURE);
+            return;
+        }
+        saveQuizPlanning();
+        System.out.println(SAVE_SUCCESS);
+    }
+    
+    /**
+     * Finds where the progress is kept
+     *
+     * @return The location of the profile or the safe file when there is no profile
+     */
+    private String getProgressLocation()
+    {
+        return profile == null ? safeFileLocation : safeFileLocation + "." + profile + ProgressFile.EXTENSION;
+    }
+    
+    /**
+     * Checks if there are profiles that store the ids of the elements in the safe file
+     *
+     * @return True when a profile is used or there is a profile next to the safe file
+     */
+    private boolean hasProfiles()
+    {
+        // If a profile is used: it has the ids even when it was never saved
+        if (profile != null) return true;
+        File location = new File(safeFileLocation).getAbsoluteFile();
+        String prefix = location.getName() + ".";
+        File[] profiles = location.getParentFile().listFiles((directory, name) -> name.startsWith(prefix) &&
+                                                                                  name.endsWith(ProgressFile.EXTENSION));
+        return profiles != null && profiles.length > 0;
+    }
+    
+    /**
+     * Loads the quiz planning from the file next to the safe file or the profile
+     */
+    private void loadQuizPlanning()
+    {
+        File planning = new File(getProgressLocation() + QUIZ_PLANNING_EXTENSION);
+        // If there is no planning: the quized recipes are due straight away
+        if (!planning.exists()) return;
+        // Read the planning
+        try (DataInputStream input = new DataInputStream(Compression.open(planning)))
+        {
+            game.getQuizScheduler().load(input);
+        }
+        // If the planning could not be read: inform the player
+        catch (IOException | ElementallyException ex)
+        {
+            System.out.println(QUIZ_LOAD_FAILURE);
+        }
+    }
+    
+    /**
+     * Saves the quiz planning to the file next to the safe file or the profile
+     */
+    private void saveQuizPlanning()
+    {
+        File planning = new File(getProgressLocation() + QUIZ_PLANNING_EXTENSION);
+        // Write the planning
+        try (DataOutputStream output = new DataOutputStream(Compression.create(planning, compress)))
+        {
+            game.getQuizScheduler().save(output);
+        }
+        // If the planning could not be written: inform the player
+        catch (IOException ioEx)
+        {
+            System.out.println(QUIZ_SAVE_FAILURE);
+        }
     }
     
     /**
@@ -138,7 +427,26 @@ public class App
         running = true;
         showMenu = true;
         game = ElementCooker.getInstance();
-        safeFileLocation = "src\\SafeFile";
+        safeFile = new SegmentedSafeFile(new File(safeFileLocation));
+        safeFile.setCompressed(compress);
+        // If a seed is given: use it
+        if (seed != null)
+        {
+            game.setSeed(seed);
+        }
+        game.getMetrics().register();
+        // If a start state is given: read it once so every reset can copy it
+        if (startStateLocation != null)
+        {
+            try
+            {
+                game.setStartTemplate(StartStateTemplate.compile(new File(startStateLocation)));
+            }
+            catch (ElementallyException eEx)
+            {
+                System.out.println(START_STATE_FAILURE + eEx.getMessage());
+            }
+        }
         userInput = new Scanner(System.in);
         hints = Integer.MAX_VALUE;
         setCommands();
@@ -152,19 +460,22 @@ public class App
         Command save = new Command("save");
         save.setCode((args) ->
                      {
-                         String saveString = game.getSaveString();
-                         try
+                         long start = game.getMetrics().start();
+                         // If there is a profile: only save the progress, the safe file is shared with other players
+                         if (profile != null)
                          {
-                             PrintWriter saver = new PrintWriter(new File(safeFileLocation));
-                             saver.print(saveString);
-                             saver.close();
-                             System.out.println(SAVE_SUCCESS);
+                             saveProfile();
+                             // If the elements could have been edited: let the player know the edits are not saved
+                             if (editMode)
+                             {
+                                 System.out.println(PROFILE_EDITS_NOT_SAVED);
+                             }
                          }
-                         catch (FileNotFoundException e)
+                         else
                          {
-                             System.out.println(SAVE_FAILURE +
-                                                "\n" + saveString);
+                             saveSafeFile();
                          }
+                         game.getMetrics().stop(Metrics.Operation.SAVE, start);
                          showMenu = false;
                          return null;
                      });
@@ -180,6 +491,115 @@ public class App
                           game.startState(editMode);
                           return null;
                       });
+        Command stats = new Command("stats");
+        stats.setCode((args) ->
+                      {
+                          // If no argument is given: print the metrics
+                          if (args.length == 1)
+                          {
+                              System.out.print(game.getMetrics().getReport());
+                          }
+                          // Else if the metrics should be forgotten: forget them
+                          else if (args.length == 2 && args[1].equals("reset"))
+                          {
+                              game.getMetrics().reset();
+                          }
+                          // Else if measuring should be turned on or off: turn it on or off
+                          else if (args.length == 2 && (args[1].equals("on") || args[1].equals("off")))
+                          {
+                              game.getMetrics().setEnabled(args[1].equals("on"));
+                          }
+                          // Else: Inform the player
+                          else
+                          {
+                              System.out.println("The correct format for stats is: " + stats.getName() +
+                                                 "\nor: " + stats.getName() + " reset" +
+                                                 "\nor: " + stats.getName() + " [on/off]");
+                          }
+                          showMenu = false;
+                          return null;
+                      });
+        Command uses = new Command("uses");
+        uses.setCode((args) ->
+                     {
+                         // If the command has the correct arguments: print the recipes the element is used in
+                         if (args.length == 2 ||
+                             editMode && args.length == 3 && (args[2].equals("known") || args[2].equals("unknown")))
+                         {
+                             // Print the recipes the element is used in
+                             try
+                             {
+                                 printUses(parseElement(args[1]), args.length == 3 ? args[2] : null); // Throws NumberFormatException
+                             }
+                             // If the id was not a number: inform the player
+                             catch (NumberFormatException nfEx)
+                             {
+                                 System.out.println(ID_NAN_ERROR);
+                             }
+                         }
+                         // Else if only known recipes can be shown: Inform the player
+                         else if (!editMode)
+                         {
+                             System.out.println("The correct format for uses is: " + uses.getName() + " [elementId]");
+                         }
+                         // Else: Inform the player
+                         else
+                         {
+                             System.out.println("The correct format for uses is: " + uses.getName() + " [elementId]" +
+                                                "\nor: " + uses.getName() + " [elementId] [known/unknown]");
+                         }
+                         showMenu = false;
+                         return null;
+                     });
+        Command find = new Command("find");
+        find.setCode((args) ->
+                     {
+                         // If text is given: print the elements with a name like it
+                         if (args.length >= 2)
+                         {
+                             String text = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+                             ArrayList<Element> found = game.getNameIndex(!editMode).search(text, SUGGESTIONS, !editMode);
+                             System.out.println(found.isEmpty() ? NO_MATCHES : elementsString(found).trim());
+                         }
+                         // Else: Inform the player
+                         else
+                         {
+                             System.out.println("The correct format for finding is: " + find.getName() + " [name]");
+                         }
+                         showMenu = false;
+                         return null;
+                     });
+        Command solve = new Command("solve");
+        solve.setCode((args) ->
+                      {
+                          // If the command has the correct argument amount: find the combinations for the element
+                          if (args.length == 2 || editMode && args.length == 3 && args[2].equals("known"))
+                          {
+                              // Print the combinations that create the element
+                              try
+                              {
+                                  printSolution(parseElement(args[1]), args.length == 3); // Throws NumberFormatException
+                              }
+                              // If the id was not a number: inform the player
+                              catch (NumberFormatException nfEx)
+                              {
+                                  System.out.println(ID_NAN_ERROR);
+                              }
+                          }
+                          // Else if only the known recipes can be followed: Inform the player
+                          else if (!editMode)
+                          {
+                              System.out.println("The correct format for solving is: " + solve.getName() + " [elementId]");
+                          }
+                          // Else: Inform the player
+                          else
+                          {
+                              System.out.println("The correct format for solving is: " + solve.getName() + " [elementId]" +
+                                                 "\nor: " + solve.getName() + " [elementId] known");
+                          }
+                          showMenu = false;
+                          return null;
+                      });
         Command cancel = new Command("cancel");
         // If the player should not edit any elements: don't add those commands
         if (!editMode)
@@ -211,7 +631,7 @@ public class App
                              }
                              return null;
                          });
-            commands = new Command[]{save, quiz, hint, exit, reset, cancel};
+            commands = new Command[]{save, quiz, hint, find, uses, solve, stats, exit, reset, cancel};
         }
         // Else: add all commands
         else
@@ -339,7 +759,208 @@ public class App
                 }
                 return null;
             }));
-            commands = new Command[]{save, exit, reset, random, rename, move, renameCat, remove, editRecipe, cancel};
+            Command lint = new Command("lint");
+            lint.setCode((args) ->
+                         {
+                             AtomicInteger found = new AtomicInteger();
+                             // Print every problem as soon as it is found
+                             new ContentLinter(game).lint(issue ->
+                                                          {
+                                                              found.incrementAndGet();
+                                                              System.out.println(issue);
+                                                          });
+                             System.out.println(found.get() + " problems found");
+                             showMenu = false;
+                             return null;
+                         });
+            Command export = new Command("export");
+            export.setCode((args) ->
+                           {
+                               // If the command has a format, a file and a correct filter: write the graph
+                               if (args.length >= 3 && (args[1].equals("dot") || args[1].equals("graphml")) &&
+                                   (args.length == 3 || args.length == 4 && args[3].equals("known") ||
+                                    args.length == 5 && args[3].equals("category") ||
+                                    args.length == 6 && args[3].equals("around")))
+                               {
+                                   exportGraph(args);
+                               }
+                               // Else: Inform the player
+                               else
+                               {
+                                   System.out.println("The correct format for exporting is: " + export.getName() + " [dot/graphml] [file]" +
+                                                      "\nor: " + export.getName() + " [dot/graphml] [file] known" +
+                                                      "\nor: " + export.getName() + " [dot/graphml] [file] category [categoryName]" +
+                                                      "\nor: " + export.getName() + " [dot/graphml] [file] around [elementId] [recipes]");
+                               }
+                               showMenu = false;
+                               return null;
+                           });
+            Command compact = new Command("compact");
+            compact.setCode((args) ->
+                            {
+                                // If the command has the correct argument amount: compact the recipes
+                                if (args.length == 1 || args.length == 2 && args[1].equals("renumber"))
+                                {
+                                    // If profiles store the ids: renumbering would give them other elements
+                                    if (args.length == 2 && hasProfiles())
+                                    {
+                                        System.out.println(RENUMBER_WITH_PROFILES);
+                                        showMenu = false;
+                                        return null;
+                                    }
+                                    int removed = game.compact(args.length == 2);
+                                    System.out.println(removed + " recipes removed, the highest id is " + Element.getHighestId());
+                                }
+                                // Else: Inform the player
+                                else
+                                {
+                                    System.out.println("The correct format for compacting is: " + compact.getName() +
+                                                       "\nor: " + compact.getName() + " renumber");
+                                }
+                                showMenu = false;
+                                return null;
+                            });
+            Command undo = new Command("undo");
+            undo.setCode((args) ->
+                         {
+                             // Undo the last step
+                             try
+                             {
+                                 game.getHistory().undo();
+                             }
+                             // If there is nothing to undo: inform the player
+                             catch (ElementallyException eEx)
+                             {
+                                 System.out.println(eEx.getMessage());
+                                 showMenu = false;
+                             }
+                             return null;
+                         });
+            Command redo = new Command("redo");
+            redo.setCode((args) ->
+                         {
+                             // Redo the last undone step
+                             try
+                             {
+                                 game.getHistory().redo();
+                             }
+                             // If there is nothing to redo: inform the player
+                             catch (ElementallyException eEx)
+                             {
+                                 System.out.println(eEx.getMessage());
+                                 showMenu = false;
+                             }
+                             return null;
+                         });
+            Command checkpoint = new Command("checkpoint");
+            checkpoint.setCode((args) ->
+                               {
+                                   // If the command has the correct argument amount: remember this moment
+                                   if (args.length == 2)
+                                   {
+                                       game.getHistory().checkpoint(args[1]);
+                                       System.out.println("Checkpoint " + args[1] + " created");
+                                   }
+                                   // Else: Inform the player
+                                   else
+                                   {
+                                       System.out.println("The correct format for checkpoints is: " + checkpoint.getName() + " [name]");
+                                   }
+                                   showMenu = false;
+                                   return null;
+                               });
+            Command revert = new Command("revert");
+            revert.setCode((args) ->
+                           {
+                               // If the command has the correct argument amount: go back to the checkpoint
+                               if (args.length == 2)
+                               {
+                                   // Go back to the checkpoint
+                                   try
+                                   {
+                                       game.getHistory().revert(args[1]);
+                                   }
+                                   // If the checkpoint can't be reached: inform the player
+                                   catch (ElementallyException eEx)
+                                   {
+                                       System.out.println(eEx.getMessage());
+                                       showMenu = false;
+                                   }
+                               }
+                               // Else: Inform the player
+                               else
+                               {
+                                   System.out.println("The correct format for reverting is: " + revert.getName() + " [name]");
+                                   showMenu = false;
+                               }
+                               return null;
+                           });
+            Command patch = new Command("patch");
+            patch.setCode((args) ->
+                          {
+                              // If the command has the correct argument amount: apply the patch
+                              if (args.length == 2)
+                              {
+                                  applyPatch(args[1]);
+                              }
+                              // Else: Inform the player
+                              else
+                              {
+                                  System.out.println("The correct format for patching is: " + patch.getName() + " [file]");
+                              }
+                              showMenu = false;
+                              return null;
+                          });
+            commands = new Command[]{save, exit, reset, random, rename, move, renameCat, remove, editRecipe, solve, find, uses, lint,
+                                     export, compact, undo, redo, checkpoint, revert, patch, stats, cancel};
+        }
+    }
+    
+    /**
+     * Applies all the recipe changes in a patch file in one batch.<br>
+     * Elements that lose all their recipes are removed after the whole patch is applied.
+     *
+     * @param location The location of the patch file
+     */
+    private void applyPatch(String location)
+    {
+        RecipeBatch batch = game.startBatch();
+        // Apply every line of the patch
+        try (Scanner patch = new Scanner(new File(location)))
+        {
+            int lineNumber = 0;
+            // Apply the lines one by one
+            while (patch.hasNextLine())
+            {
+                String line = patch.nextLine();
+                lineNumber++;
+                if (line.trim().isEmpty()) continue;
+                // Apply the line
+                try
+                {
+                    batch.apply(line); // Throws ElementallyException
+                }
+                // If a line has a incorrect format: let the player know and go on with the next line
+                catch (ElementallyException eEx)
+                {
+                    System.out.println("line" + lineNumber + ": " + eEx.getMessage());
+                }
+            }
+        }
+        // If the patch could not be read: inform the player, the lines that were applied stay applied
+        catch (FileNotFoundException fnfEx)
+        {
+            System.out.println(PATCH_FAILURE);
+        }
+        // Commit the batch, this can't fail because the batch is new
+        try
+        {
+            int removed = batch.commit();
+            System.out.println(batch.getChanges() + " changes applied, " + removed + " elements removed");
+        }
+        catch (ElementallyException eEx)
+        {
+            System.out.println(eEx.getMessage());
         }
     }
     
@@ -355,12 +976,10 @@ public class App
             Element[] correct = game.getQuizAnswer(null);
             Element correctResult = game.combine(correct[0], correct[1], false);
             choices[0] = correct;
+            Element[][] incorrect = game.getDistractors().generate(correct, correctResult, choices.length - 1);
             // Fill the other options with incorrect answers
-            for (int i = 1; i < choices.length; i++)
-            {
-                choices[i] = game.getQuizAnswer(correctResult);
-            }
-            int correctPosition = (int) (Math.random() * choices.length);
+            System.arraycopy(incorrect, 0, choices, 1, incorrect.length);
+            int correctPosition = game.getRandom().nextInt(choices.length);
             choices[0] = choices[correctPosition];
             choices[correctPosition] = correct;
             System.out.println("Which combination creates " + game.combine(correct[0], correct[1], false).getName());
@@ -377,7 +996,7 @@ public class App
                 try
                 {
                     System.out.print("Answer: ");
-                    answer = Integer.parseInt(userInput.nextLine());
+                    answer = Integer.parseInt(readLine());
                 }
                 // If the player did not give an id: inform the user
                 catch (NumberFormatException nfEx)
@@ -386,32 +1005,150 @@ public class App
                 }
             }
             // Have the answer be valid
-            while (answer < 1 || answer > choices.length);
+            while ((answer < 1 || answer > choices.length) && running);
+            // If the game stopped before the question was answered: the question can be asked again
+            if (!running)
+            {
+                game.cancelQuiz(correct);
+                return;
+            }
             answer--;
+            game.answerQuiz(correct, answer == correctPosition);
             // If the answer is correct: congratulate the user
             if (answer == correctPosition)
             {
                 System.out.println("Correct, you now have " + ++hints + " hints");
             }
-            // Else: let the player know the real answer
-            else
+            // Else if the player may know what the chosen answer creates: let the player know it and the real answer
+            else if (game.isKnownCombination(choices[answer][0], choices[answer][1]))
             {
                 Element[] chosen = choices[answer];
-                String chosenResult = game.combine(chosen[0], chosen[1], false).getName();
+                Element chosenElement = game.combine(chosen[0], chosen[1], false);
+                String chosenResult = chosenElement == null ? ElementCooker.NOTHING_NAME : chosenElement.getName();
                 System.out.printf("Incorrect, %s creates %s%n" +
                                   "The correct answer was %s%n", answerString(chosen), chosenResult, answerString(correct));
             }
+            // Else: only let the player know the real answer
+            else
+            {
+                System.out.printf("Incorrect%nThe correct answer was %s%n", answerString(correct));
+            }
         }
         // If there are questions to ask: inform the user
         catch (ElementallyException eEx)
         {
             System.out.println(NO_QUESTIONS_ERROR);
-            // Make sure the elements that were can be asked again
-            for (Element[] choice : choices)
+            // Make sure the recipe that was picked can be asked again
+            if (choices[0] != null)
+            {
+                game.cancelQuiz(choices[0]);
+            }
+        }
+    }
+    
+    /**
+     * Prints a short sequence of combinations that creates an element,
+     * without edit mode only the recipes the player knows are followed from the basic elements
+     *
+     * @param target    The element that should be created, can be null
+     * @param fromKnown True if the known elements can be used, false if only the basic elements can be used
+     */
+    private void printSolution(Element target, boolean fromKnown)
+    {
+        if (target == null) return;
+        // Print every combination needed to create the element
+        try
+        {
+            ArrayList<Element[]> steps = game.getSolver().solve(target, fromKnown, !editMode); // Throws ElementallyException
+            System.out.println(target.getName() + " can be created in " + steps.size() + " combinations");
+            // Print the combinations in the order they should be made
+            for (Element[] step : steps)
+            {
+                System.out.println(answerString(new Element[]{step[0], step[1]}) + " = " + step[2].getName());
+            }
+        }
+        // If the element can not be created: inform the player
+        catch (ElementallyException eEx)
+        {
+            System.out.println(eEx.getMessage());
+        }
+    }
+    
+    /**
+     * Prints the recipes an element is an ingredient of, without edit mode only the known recipes are printed
+     *
+     * @param ingredient The element that is used, can be null
+     * @param state      "known" or "unknown" to only print the recipes in that state, null for all recipes
+     */
+    private void printUses(Element ingredient, String state)
+    {
+        if (ingredient == null) return;
+        ArrayList<Element[]> found;
+        // If only known recipes can be shown or are asked for: only find those
+        if (!editMode || state != null)
+        {
+            found = game.getUses(ingredient, !editMode || state.equals("known"));
+        }
+        else
+        {
+            found = game.getUses(ingredient);
+        }
+        System.out.println(ingredient.getName() + " is used in " + found.size() + " recipes");
+        // Print every recipe with the other ingredient and the result
+        for (Element[] use : found)
+        {
+            System.out.println(answerString(new Element[]{ingredient, use[0]}) + " = " + use[1].getName());
+        }
+    }
+    
+    /**
+     * Writes the recipe graph to a file
+     *
+     * @param args The arguments of the export command: the format, the file and optionally a filter
+     */
+    private void exportGraph(String[] args)
+    {
+        GraphExporter exporter = new GraphExporter(game);
+        // Set the filter and write the graph
+        try
+        {
+            // If only the known elements should be written: leave out the unknown ones
+            if (args.length == 4)
+            {
+                exporter.setKnownOnly(true);
+            }
+            // Else if only a category should be written: find the category
+            else if (args.length == 5)
+            {
+                Category category = game.getCategoryByName(args[4]);
+                // If the category does not exist: inform the player
+                if (category == null)
+                {
+                    System.out.println(UNKNOWN_CATEGORY_ERROR);
+                    return;
+                }
+                exporter.setCategory(category);
+            }
+            // Else if only the elements around an element should be written: find the element
+            else if (args.length == 6)
             {
-                if (choice == null) return;
-                game.cancelQuiz(choice);
+                Element center = parseElement(args[4]); // Throws NumberFormatException
+                if (center == null) return;
+                exporter.setNeighbourhood(center, Math.max(0, Integer.parseInt(args[5]))); // Throws NumberFormatException
             }
+            GraphExporter.Format format = args[1].equals("dot") ? GraphExporter.Format.DOT : GraphExporter.Format.GRAPHML;
+            exporter.export(new File(args[2]), format, compress); // Throws IOException
+            System.out.println(exporter.getElements() + " elements and " + exporter.getRecipes() + " recipes exported");
+        }
+        // If an id or the amount of recipes was not a number: inform the player
+        catch (NumberFormatException nfEx)
+        {
+            System.out.println(ID_NAN_ERROR);
+        }
+        // If the file could not be written: inform the player
+        catch (IOException ioEx)
+        {
+            System.out.println(EXPORT_FAILURE);
         }
     }
     
@@ -436,17 +1173,38 @@ public class App
     }
     
     /**
-     * Tries to get an element with the id given by the player
+     * Tries to get an element with the id or the name given by the player.<br>
+     * A name only has to look like the name of the element, when several elements match they are shown instead.
      *
-     * @param input           The id of the element
+     * @param input             The id or the name of the element
      * @param previousElementId The element that is not allowed to be filled in
      *
      * @return The element found with the id or null when no element is found
-     * @throws NumberFormatException When the input is not a integer
+     * @throws NumberFormatException When the input is not a integer and no element has a name like it, or it's a command
      */
     private Element parseElement(String input, int previousElementId) throws NumberFormatException
     {
-        Element chosen = game.getElementById(Integer.parseInt(input), !editMode); //Throws NumberFormatException
+        Element chosen;
+        // If the input is an id: find the element with the id, else find the element by its name
+        try
+        {
+            chosen = game.getElementById(Integer.parseInt(input), !editMode); //Throws NumberFormatException
+        }
+        catch (NumberFormatException nfEx)
+        {
+            // If the input is empty or a command: it should be executed instead
+            if (input.trim().isEmpty() || isCommand(input)) throw nfEx;
+            ArrayList<Element> found = game.getNameIndex(!editMode).search(input, SUGGESTIONS, !editMode);
+            // If no name looks like the input: it's not an element
+            if (found.isEmpty()) throw nfEx;
+            chosen = found.get(0);
+            // If several elements match and the first isn't exactly the input: let the player choose
+            if (found.size() > 1 && !chosen.getName().equalsIgnoreCase(input.trim()))
+            {
+                System.out.println(AMBIGUOUS_NAME + elementsString(found));
+                return null;
+            }
+        }
         // If the element does not exist: inform the player.
         if (chosen == null)
         {
@@ -461,6 +1219,42 @@ public class App
         return chosen;
     }
     
+    /**
+     * Checks if an input starts with the name of a command
+     *
+     * @param input The input of the player
+     *
+     * @return True if the input would execute a command
+     */
+    private boolean isCommand(String input)
+    {
+        String name = input.trim().split(" ")[0];
+        // Check every command
+        for (Command command : commands)
+        {
+            if (command.shouldExecuteAt(name)) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Makes a line with the ids and names of elements
+     *
+     * @param elements The elements to show
+     *
+     * @return The elements as [id. name] after each other
+     */
+    private String elementsString(ArrayList<Element> elements)
+    {
+        StringBuilder line = new StringBuilder();
+        // Add every element with its id
+        for (Element element : elements)
+        {
+            line.append(" [").append(element.getId()).append(". ").append(element.getName()).append(']');
+        }
+        return line.toString();
+    }
+    
     /**
      * Asks the player for two ids to combine.
      * If the player fills in an word it will be executed as an command
@@ -492,7 +1286,8 @@ public class App
                 while (combination[i] == null)
                 {
                     System.out.printf("Element %d: ", i + 1);
-                    input = userInput.nextLine();
+                    input = readLine();
+                    if (!running) return null;
                     combination[i] = parseElement(input, previous);
                 }
             }
@@ -574,7 +1369,7 @@ public class App
             // If the element name is not taken yet: rename the element
             if (existingElement == null)
             {
-                toRename.setName(newName);
+                game.rename(toRename, newName);
             }
             // Else: merge the two elements
             else
@@ -613,8 +1408,7 @@ public class App
             {
                 moveTo = new Category(category);
             }
-            game.remove(toMove, false);
-            moveTo.addElement(toMove);
+            game.move(toMove, moveTo);
         }
         // If the player filled in a word instead of an id: inform the player of this
         catch (NumberFormatException nfEx)
@@ -650,7 +1444,7 @@ public class App
         // If the category name is not taken yet: rename the category
         if (existingCategory == null)
         {
-            toRename.setName(newName);
+            game.rename(toRename, newName);
         }
         // Else: merge the two categories into one
         else
@@ -709,7 +1503,7 @@ public class App
         assert element1 != null : "null element";
         assert element2 != null : "null element";
         System.out.print(": ");
-        String elementName = userInput.nextLine();
+        String elementName = readLine();
         if (elementName.trim().isEmpty()) elementName = ElementCooker.NOTHING_NAME;
         Element creates = game.getElementByName(elementName);
         // If the element is not known yet: create it
@@ -718,19 +1512,19 @@ public class App
             creates = new Element(elementName);
             String categoryName = "";
             // Make sure the category name is not empty
-            while (categoryName.trim().isEmpty())
+            while (categoryName.trim().isEmpty() && running)
             {
                 System.out.print("Category: ");
-                categoryName = userInput.nextLine();
+                categoryName = readLine();
             }
+            if (!running) return;
             Category category = game.getCategoryByName(categoryName);
             // If the category is not known yet: create it
             if (category == null)
             {
                 category = new Category(categoryName);
-                game.addCategory(category);
             }
-            category.addElement(creates);
+            game.addElement(creates, category);
         }
         game.addRecipe(element1.getId(), element2.getId(), creates);
     }
@@ -790,6 +1584,6 @@ public class App
     private boolean confirm()
     {
         System.out.print(CONTINUE);
-        return userInput.nextLine().toLowerCase().startsWith("y");
+        return readLine().toLowerCase().startsWith("y");
     }
 }
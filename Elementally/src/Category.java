@@ -9,9 +9,14 @@ import java.util.ArrayList;
  */
 public class Category
 {
-    private String name;
+    private int name;
     private ArrayList<Element> containing;
     private ArrayList<Element> known;
+    private int changes;
+    private int basics;
+    private int epoch;
+    private int segment;
+    private boolean dirty;
     
     /**
      * Constructor for the class
@@ -24,7 +29,12 @@ public class Category
         assert name.isEmpty() : "empty names can not be found in the terminal";
         containing = new ArrayList<>();
         known = new ArrayList<>();
-        this.name = name;
+        this.name = NameArena.getInstance().intern(name);
+        changes = 0;
+        basics = 0;
+        epoch = Element.getProgressEpoch();
+        segment = -1;
+        dirty = true;
     }
     
     /**
@@ -33,6 +43,16 @@ public class Category
      * @return The name for this category
      */
     public String getName()
+    {
+        return NameArena.getInstance().get(name);
+    }
+    
+    /**
+     * Simple getter for the number of the name in the NameArena, two categories have the same name when the numbers are
+     *
+     * @return The number of the name
+     */
+    public int getNameNumber()
     {
         return name;
     }
@@ -45,7 +65,8 @@ public class Category
     public void setName(String name)
     {
         assert name != null : "null name";
-        this.name = name;
+        this.name = NameArena.getInstance().intern(name);
+        dirty = true;
     }
     
     /**
@@ -65,6 +86,7 @@ public class Category
      */
     public ArrayList<Element> getKnown()
     {
+        refresh();
         return known;
     }
     
@@ -91,6 +113,7 @@ public class Category
     private void addElement(Element toAdd, boolean toKnown)
     {
         assert toAdd != null : "null element";
+        refresh();
         ArrayList<Element> addTo = toKnown ? known : containing;
         // If the element is known but it is not currently added to known: add it to known
         if (!toKnown && toAdd.isKnown())
@@ -109,6 +132,7 @@ public class Category
         if (addTo.isEmpty() || id > addTo.get(largest).getId())
         {
             addTo.add(toAdd);
+            added(toAdd, toKnown);
             return;
         }
         if (addTo.get(largest).getId() == id) return;
@@ -117,6 +141,7 @@ public class Category
         if (id < addTo.get(smallest).getId())
         {
             addTo.add(0, toAdd);
+            added(toAdd, toKnown);
             return;
         }
         if (addTo.get(smallest).getId() == id) return;
@@ -142,6 +167,54 @@ public class Category
             }
         }
         addTo.add(largest, toAdd);
+        added(toAdd, toKnown);
+    }
+    
+    /**
+     * Counts an element that was added
+     *
+     * @param toAdd   The element that was added
+     * @param toKnown True if the element was added to the known ArrayList
+     */
+    private void added(Element toAdd, boolean toKnown)
+    {
+        changes++;
+        dirty = true;
+        // If a basic element is added to the category: the category always stays known
+        if (!toKnown && toAdd.isBasic())
+        {
+            basics++;
+        }
+    }
+    
+    /**
+     * Adds elements that are already sorted by id in one go, used when loading a safe file.<br>
+     * Should only be used on an empty category
+     *
+     * @param sorted      All the elements, sorted by id without duplicate ids
+     * @param sortedKnown The known elements, sorted by id and all in sorted as well
+     * @param epoch       The progress epoch the known elements belong to
+     */
+    void addSorted(ArrayList<Element> sorted, ArrayList<Element> sortedKnown, int epoch)
+    {
+        assert sorted != null : "null elements";
+        assert sortedKnown != null : "null known elements";
+        assert containing.isEmpty() : "category is not empty";
+        this.epoch = epoch;
+        containing.addAll(sorted);
+        known.addAll(sortedKnown);
+        // Tell every element it is in this category now
+        for (Element element : sorted)
+        {
+            element.setCategory(this);
+            // If the element is basic: count it
+            if (element.isBasic())
+            {
+                basics++;
+            }
+        }
+        changes++;
+        dirty = true;
     }
     
     /**
@@ -154,6 +227,7 @@ public class Category
      */
     public Element getElementById(int elementId, boolean fromKnown)
     {
+        refresh();
         ArrayList<Element> from = fromKnown ? known : containing;
         int largest = from.size() - 1;
         // If the element is larger than the largest element in this category: return null
@@ -201,11 +275,26 @@ public class Category
     public Element getElementByName(String elementName)
     {
         assert elementName != null : "null name";
+        int number = NameArena.getInstance().find(elementName);
+        // If the name was never used: no element has it
+        if (number == -1) return null;
+        return getElementByName(number);
+    }
+    
+    /**
+     * Searches through the category to find the element with a name from the NameArena
+     *
+     * @param nameNumber The number of the name
+     *
+     * @return The element with the name or null if no such element could be found
+     */
+    public Element getElementByName(int nameNumber)
+    {
         // Go through every element in this category and return the element if it is in here
         for (Element element : containing)
         {
             // If an element is found with the same name: return it
-            if (element.getName().equals(elementName))
+            if (element.getNameNumber() == nameNumber)
             {
                 return element;
             }
@@ -278,7 +367,7 @@ public class Category
     @Override
     public String toString()
     {
-        return name;
+        return getName();
     }
     
     /**
@@ -317,7 +406,16 @@ public class Category
             // If the element is found: remove the element and return true
             else if (elementId == middleElement.getId())
             {
+                refresh();
                 containing.remove(middle);
+                known.remove(middleElement);
+                changes++;
+                dirty = true;
+                // If the element was basic: count it
+                if (middleElement.isBasic())
+                {
+                    basics--;
+                }
                 return true;
             }
             // Else: Move the smallest limit
@@ -330,36 +428,109 @@ public class Category
     }
     
     /**
-     * Resets the known ArrayList to the starting state
+     * Resets the known ArrayList to the starting state when the progress was forgotten since the last time.<br>
+     * Only the basic elements stay known, they are the same for every epoch
      */
-    public void unlearnAllElements()
+    private void refresh()
     {
-        ArrayList<Element> basic = new ArrayList<>();
-        // Add all the basic elements to the ArrayList
-        for (Element element : known)
+        // If the known elements belong to the current epoch: they are still valid
+        if (epoch == Element.getProgressEpoch()) return;
+        epoch = Element.getProgressEpoch();
+        ArrayList<Element> pinned = new ArrayList<>(basics);
+        // Keep the basic elements, containing is sorted so the basic elements are as well
+        for (int i = 0; i < containing.size() && pinned.size() < basics; i++)
         {
-            element.unLearnAllRecipes();
-            // If the element is basic: add it
-            if (element.isBasic())
+            // If the element is basic: it stays known
+            if (containing.get(i).isBasic())
             {
-                basic.add(element);
+                pinned.add(containing.get(i));
             }
         }
-        known = new ArrayList<>();
-        // learn all the basic elements again
-        for (Element element : basic)
-        {
-            addElement(element);
-        }
-        // If this is now unknown: unlearn
-        if (known.size() == 0)
+        known = pinned;
+        changes++;
+        dirty = true;
+    }
+    
+    /**
+     * Checks if the category has a basic element, so it's known in every epoch
+     *
+     * @return True if at least one element is basic
+     */
+    public boolean hasBasic()
+    {
+        return basics > 0;
+    }
+    
+    /**
+     * Simple getter for the amount of times elements were added, removed or unlearned.<br>
+     * Can be used to check if a copy of the elements is still up to date
+     *
+     * @return The amount of changes to this category
+     */
+    public int getChanges()
+    {
+        refresh();
+        return changes;
+    }
+    
+    /**
+     * Remembers that the lines of this category are different from the saved lines
+     */
+    void markDirty()
+    {
+        dirty = true;
+    }
+    
+    /**
+     * Checks if the category or one of its elements changed since it was saved or loaded
+     *
+     * @return True if the category should be saved again
+     */
+    public boolean isDirty()
+    {
+        return dirty;
+    }
+    
+    /**
+     * Simple getter for the segment the category is saved in
+     *
+     * @return The position of the segment in the safe file or -1 when the category was never saved
+     */
+    public int getSegment()
+    {
+        return segment;
+    }
+    
+    /**
+     * Remembers where the category is saved, it stays clean until it changes
+     *
+     * @param segment The position of the segment in the safe file or -1 when the category is not in a safe file
+     */
+    void markSaved(int segment)
+    {
+        this.segment = segment;
+        dirty = false;
+    }
+    
+    /**
+     * Creates the category line and the lines of all the elements, so they can be exported to a safe file
+     *
+     * @return The lines, every line ends with a line break
+     */
+    public String exportLines()
+    {
+        StringBuilder output = new StringBuilder("c;").append(getName()).append("\n");
+        // Add the line of every element
+        for (Element element : containing)
         {
-            ElementCooker.getInstance().unlearn(this);
+            output.append(element.exportLine()).append("\n");
         }
+        return output.toString();
     }
     
     public ArrayList<Element> getUnknown()
     {
+        refresh();
         ArrayList<Element> unknown = new ArrayList<>();
         int index = 0;
         while (containing.size() - known.size() - unknown.size() > 0)
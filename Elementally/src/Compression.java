@@ -0,0 +1,159 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresses the files of the game with the Deflater and Inflater of the JDK.<br>
+ * Streams are written as gzip, a file is read as gzip when it starts with the gzip identifier and as is otherwise,
+ * so compressed and uncompressed files can be read the same way.
+ * The streams of open and create go through buffers of a fixed size, so the memory they use does not depend
+ * on the size of the file.
+ * The segments of a SegmentedSafeFile are compressed one by one, so they can still be written over.
+ * A segment is compressed and decompressed in one piece, so deflate and inflate need memory for the whole segment.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class Compression
+{
+    public static final int BUFFER_SIZE = 1 << 16;
+    
+    private static final int GZIP_IDENTIFIER = GZIPInputStream.GZIP_MAGIC;
+    private static final int IDENTIFIER_BYTES = 2;
+    
+    /**
+     * Constructor for the class, only the static methods are used
+     */
+    private Compression()
+    {
+    }
+    
+    /**
+     * Opens a file that may be compressed
+     *
+     * @param file The file to open
+     *
+     * @return A stream with the uncompressed bytes of the file
+     * @throws IOException When the file does not exist or could not be read
+     */
+    public static InputStream open(File file) throws IOException
+    {
+        assert file != null : "null file";
+        InputStream input = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        // Check the identifier and go back to the start of the file
+        try
+        {
+            input.mark(IDENTIFIER_BYTES);
+            int identifier = input.read() | input.read() << 8;
+            input.reset();
+            // If the file starts with the gzip identifier: read it through an Inflater
+            if (identifier == GZIP_IDENTIFIER)
+            {
+                return new GZIPInputStream(input, BUFFER_SIZE);
+            }
+            return input;
+        }
+        catch (IOException ioEx)
+        {
+            input.close();
+            throw ioEx;
+        }
+    }
+    
+    /**
+     * Creates a file that is compressed or not
+     *
+     * @param file     The file to create, an existing file is replaced
+     * @param compress True if the file should be compressed
+     *
+     * @return A stream that writes to the file
+     * @throws IOException When the file could not be created
+     */
+    public static OutputStream create(File file, boolean compress) throws IOException
+    {
+        assert file != null : "null file";
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+        // If the file should be compressed: write it through a Deflater
+        if (compress)
+        {
+            try
+            {
+                return new GZIPOutputStream(output, BUFFER_SIZE);
+            }
+            catch (IOException ioEx)
+            {
+                output.close();
+                throw ioEx;
+            }
+        }
+        return output;
+    }
+    
+    /**
+     * Compresses a segment
+     *
+     * @param data     The bytes of the segment
+     * @param deflater The Deflater to use, it is reset first so it can be used for every segment
+     *
+     * @return The compressed bytes
+     */
+    static byte[] deflate(byte[] data, Deflater deflater)
+    {
+        assert data != null : "null data";
+        assert deflater != null : "null deflater";
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 4 + 16);
+        byte[] buffer = new byte[Math.min(BUFFER_SIZE, data.length + 64)];
+        // Take the compressed bytes out of the Deflater until everything is compressed
+        while (!deflater.finished())
+        {
+            output.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return output.toByteArray();
+    }
+    
+    /**
+     * Decompresses a segment and adds its text, the text of the segment ends up in memory as a whole
+     *
+     * @param data     The compressed bytes of the segment
+     * @param inflater The Inflater to use, it is reset first so it can be used for every segment
+     * @param text     The text to add the decompressed characters to
+     *
+     * @throws IOException When the segment is damaged
+     */
+    static void inflate(byte[] data, Inflater inflater, StringBuilder text) throws IOException
+    {
+        assert data != null : "null data";
+        assert inflater != null : "null inflater";
+        inflater.reset();
+        // Small segments get small buffers, large segments go through buffers of the fixed size
+        int size = Math.max(1, Math.min(BUFFER_SIZE, data.length));
+        Reader reader = new InputStreamReader(new InflaterInputStream(new ByteArrayInputStream(data), inflater, size),
+                                              StandardCharsets.UTF_8);
+        char[] buffer = new char[size];
+        int read;
+        // Add the characters until the end of the segment
+        while ((read = reader.read(buffer)) != -1)
+        {
+            text.append(buffer, 0, read);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Checks the loaded elements, categories and recipes for mistakes that loading does not notice.<br>
+ * The categories are checked in parallel, found problems are passed on as soon as they are found.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class ContentLinter
+{
+    private final ElementCooker game;
+    
+    /**
+     * Constructor for the class
+     *
+     * @param game The game of which the content should be checked
+     */
+    public ContentLinter(ElementCooker game)
+    {
+        assert game != null : "null game";
+        this.game = game;
+    }
+    
+    /**
+     * Checks all the content and collects the problems
+     *
+     * @return A report with all the problems that were found
+     */
+    public Report lint()
+    {
+        Report report = new Report();
+        lint(report::add);
+        return report;
+    }
+    
+    /**
+     * Checks all the content and passes every problem on as soon as it is found.<br>
+     * The consumer can be called from multiple threads at the same time.
+     *
+     * @param found The consumer that receives the problems
+     */
+    public void lint(Consumer<Issue> found)
+    {
+        assert found != null : "null consumer";
+        ArrayList<Category> categories = game.getAllCategories();
+        Element nothing = game.getElementById(0, false);
+        ConcurrentHashMap<Integer, Element> ids = new ConcurrentHashMap<>();
+        ConcurrentHashMap<String, Element> recipeOwners = new ConcurrentHashMap<>();
+        ids.put(nothing.getId(), nothing);
+        // Claim all the ids, an id that is already claimed is a duplicate
+        categories.parallelStream().forEach(category ->
+        {
+            // If the category is empty: it can never be shown
+            if (category.getContaining().isEmpty())
+            {
+                found.accept(new Issue(Kind.EMPTY_CATEGORY, category, null, null,
+                                       "category " + category.getName() + " has no elements"));
+            }
+            // Claim the id of every element in the category
+            for (Element element : category.getContaining())
+            {
+                Element owner = ids.putIfAbsent(element.getId(), element);
+                // If an other element already has the id: report it
+                if (owner != null && owner != element)
+                {
+                    found.accept(new Issue(Kind.DUPLICATE_ID, category, element, null,
+                                           element + " in " + category.getName() + " has the same id as " + owner +
+                                           " in " + owner.getCategory()));
+                }
+            }
+        });
+        checkRecipes(null, nothing, ids, recipeOwners, found);
+        // Check the recipes of every element
+        categories.parallelStream().forEach(category ->
+        {
+            // Check the recipes of every element in the category
+            for (Element element : category.getContaining())
+            {
+                checkRecipes(category, element, ids, recipeOwners, found);
+            }
+        });
+        // Look for recipes that were removed but are still in the map
+        game.getRecipes().entrySet().parallelStream().forEach(recipe ->
+        {
+            // If the recipe does not create anything: it was left behind by a removed element
+            if (recipe.getValue() == null)
+            {
+                found.accept(new Issue(Kind.REMOVED_RECIPE, null, null, recipe.getKey(),
+                                       "recipe " + recipe.getKey() + " belongs to a removed element"));
+            }
+        });
+    }
+    
+    /**
+     * Checks if the ingredients of the recipes of an element exist and if no other element claims the recipes
+     *
+     * @param category     The category of the element, can be null
+     * @param element      The element of which the recipes are checked
+     * @param ids          All the existing ids and their elements
+     * @param recipeOwners The recipes that are already claimed by an element
+     * @param found        The consumer that receives the problems
+     */
+    private void checkRecipes(Category category, Element element, Map<Integer, Element> ids,
+                              ConcurrentHashMap<String, Element> recipeOwners, Consumer<Issue> found)
+    {
+        // Check every recipe of the element
+        for (String recipe : element.getAllRecipes())
+        {
+            Element owner = recipeOwners.putIfAbsent(recipe, element);
+            // If an other element already has the recipe: only one of them can be created with it
+            if (owner != null && owner != element)
+            {
+                found.accept(new Issue(Kind.DUPLICATE_RECIPE, category, element, recipe,
+                                       "recipe " + recipe + " creates both " + owner + " and " + element));
+            }
+            int[] ingredients;
+            // Read the ids of the ingredients
+            try
+            {
+                ingredients = ElementCooker.splitKey(recipe); // Throws NumberFormatException
+            }
+            // If the recipe can't be read: report it
+            catch (NumberFormatException | StringIndexOutOfBoundsException ex)
+            {
+                found.accept(new Issue(Kind.MISSING_INGREDIENT, category, element, recipe,
+                                       "recipe " + recipe + " of " + element + " is not a valid recipe"));
+                continue;
+            }
+            // Report every ingredient that does not exist
+            for (int ingredient : ingredients)
+            {
+                // If the ingredient does not exist: report it
+                if (!ids.containsKey(ingredient))
+                {
+                    found.accept(new Issue(Kind.MISSING_INGREDIENT, category, element, recipe,
+                                           "recipe " + recipe + " of " + element + " uses the unknown id " + ingredient));
+                }
+            }
+        }
+    }
+    
+    /**
+     * The kinds of problems that can be found
+     */
+    public enum Kind
+    {
+        MISSING_INGREDIENT, DUPLICATE_ID, DUPLICATE_RECIPE, REMOVED_RECIPE, EMPTY_CATEGORY
+    }
+    
+    /**
+     * A single problem in the content
+     */
+    public static class Issue
+    {
+        private final Kind kind;
+        private final Category category;
+        private final Element element;
+        private final String recipe;
+        private final String message;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param kind     The kind of problem
+         * @param category The category with the problem, can be null
+         * @param element  The element with the problem, can be null
+         * @param recipe   The recipe with the problem, can be null
+         * @param message  A description of the problem
+         */
+        public Issue(Kind kind, Category category, Element element, String recipe, String message)
+        {
+            assert kind != null : "null kind";
+            assert message != null : "null message";
+            this.kind = kind;
+            this.category = category;
+            this.element = element;
+            this.recipe = recipe;
+            this.message = message;
+        }
+        
+        /**
+         * Simple getter for the kind of problem
+         *
+         * @return The kind of problem
+         */
+        public Kind getKind()
+        {
+            return kind;
+        }
+        
+        /**
+         * Simple getter for the category
+         *
+         * @return The category with the problem or null
+         */
+        public Category getCategory()
+        {
+            return category;
+        }
+        
+        /**
+         * Simple getter for the element
+         *
+         * @return The element with the problem or null
+         */
+        public Element getElement()
+        {
+            return element;
+        }
+        
+        /**
+         * Simple getter for the recipe
+         *
+         * @return The recipe with the problem or null
+         */
+        public String getRecipe()
+        {
+            return recipe;
+        }
+        
+        /**
+         * toString of this class
+         *
+         * @return The kind and description of the problem
+         */
+        @Override
+        public String toString()
+        {
+            return kind + ": " + message;
+        }
+    }
+    
+    /**
+     * All the problems found while checking the content
+     */
+    public static class Report
+    {
+        private final ConcurrentLinkedQueue<Issue> issues;
+        
+        /**
+         * Constructor for the class
+         */
+        private Report()
+        {
+            issues = new ConcurrentLinkedQueue<>();
+        }
+        
+        /**
+         * Adds a problem to the report
+         *
+         * @param issue The problem to add
+         */
+        private void add(Issue issue)
+        {
+            issues.add(issue);
+        }
+        
+        /**
+         * Gets all the problems of a certain kind
+         *
+         * @param kind The kind of problem
+         *
+         * @return An ArrayList with the problems of that kind
+         */
+        public ArrayList<Issue> getIssues(Kind kind)
+        {
+            ArrayList<Issue> output = new ArrayList<>();
+            // Add every problem of the right kind
+            for (Issue issue : issues)
+            {
+                // If the problem is of the right kind: add it
+                if (issue.getKind() == kind)
+                {
+                    output.add(issue);
+                }
+            }
+            return output;
+        }
+        
+        /**
+         * Simple getter for all the problems
+         *
+         * @return An ArrayList with all the problems
+         */
+        public ArrayList<Issue> getIssues()
+        {
+            return new ArrayList<>(issues);
+        }
+        
+        /**
+         * @return True if no problems were found
+         */
+        public boolean isClean()
+        {
+            return issues.isEmpty();
+        }
+    }
+}
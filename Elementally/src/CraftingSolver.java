@@ -0,0 +1,398 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the cheapest way to create an element.<br>
+ * The recipes form a hypergraph where every recipe is an edge from two ingredients to a result,
+ * the cost of an element is the cost of both ingredients plus one for the combination.
+ * An ingredient that is needed twice is counted twice, so the cost is the size of the tree of combinations
+ * and at most the amount of different combinations needed. Finding the smallest set of combinations is much harder,
+ * so solve follows the cheapest tree and leaves out the combinations that were already made,
+ * the amount of steps it gives can be lower than the cost.<br>
+ * Costs are calculated once and kept until the recipes or the known elements change.
+ * The player can only follow the recipes they know, those costs start at the basic elements.
+ * The recipes an element is used in come from the IngredientIndex of the game.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class CraftingSolver
+{
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final String UNREACHABLE_ERROR = "Element can not be created from the starting elements";
+    
+    private final ElementCooker game;
+    private Element[] elements;
+    private IngredientIndex ingredientIndex;
+    private Costs fromKnown, fromBasic, learned;
+    
+    /**
+     * Constructor for the class
+     *
+     * @param game The game to take the recipes and elements from
+     */
+    public CraftingSolver(ElementCooker game)
+    {
+        assert game != null : "null game";
+        this.game = game;
+        invalidate();
+    }
+    
+    /**
+     * Forgets all the calculated costs, should be called when recipes are removed or elements unlearned
+     */
+    public void invalidate()
+    {
+        elements = null;
+        ingredientIndex = null;
+        fromKnown = new Costs(true, false);
+        fromBasic = new Costs(false, false);
+        learned = new Costs(false, true);
+    }
+    
+    /**
+     * Lowers the costs after an element was learned
+     *
+     * @param learned The element that became known
+     */
+    public void elementLearned(Element learned)
+    {
+        assert learned != null : "null element";
+        // If the costs are calculated: start the element at zero and pass on the lower costs
+        if (fromKnown.cost != null && learned.getId() < fromKnown.cost.length)
+        {
+            fromKnown.lower(learned.getId(), 0, null);
+        }
+    }
+    
+    /**
+     * Lowers the costs after a recipe was added that did not replace another recipe
+     *
+     * @param key    The recipe that was added
+     * @param result The element the recipe creates
+     */
+    public void recipeAdded(String key, Element result)
+    {
+        assert key != null : "null key";
+        assert result != null : "null element";
+        int[] ingredients = ElementCooker.splitKey(key);
+        // If the lookup does not contain the ingredients or the result: start over when asked
+        if (elements == null || result.getId() >= elements.length ||
+            ingredients[0] >= elements.length || ingredients[1] >= elements.length)
+        {
+            invalidate();
+            return;
+        }
+        elements[result.getId()] = result;
+        fromKnown.relax(key, result.getId());
+        fromBasic.relax(key, result.getId());
+    }
+    
+    /**
+     * Lowers the costs of the recipes the player knows after a recipe was learned
+     *
+     * @param key    The recipe that was learned
+     * @param result The element the recipe creates
+     */
+    public void recipeLearned(String key, Element result)
+    {
+        assert key != null : "null key";
+        assert result != null : "null element";
+        int[] ingredients = ElementCooker.splitKey(key);
+        // If the lookup does not contain the ingredients or the result: start over when asked
+        if (elements == null || result.getId() >= elements.length ||
+            ingredients[0] >= elements.length || ingredients[1] >= elements.length)
+        {
+            invalidate();
+            return;
+        }
+        learned.relax(key, result.getId());
+    }
+    
+    /**
+     * Calculates the cost of an element, an ingredient that is needed twice is counted twice
+     *
+     * @param target    The element that should be created
+     * @param fromKnown True if the known elements can be used, false if only the basic elements can be used
+     *
+     * @return The cost, at least the amount of steps solve gives, or -1 when the element can not be created
+     */
+    public int getCost(Element target, boolean fromKnown)
+    {
+        assert target != null : "null element";
+        Costs costs = getCosts(fromKnown, false);
+        int id = target.getId();
+        // If the element is not part of the game: it can not be created
+        if (id >= costs.cost.length || costs.cost[id] == UNREACHABLE)
+        {
+            return -1;
+        }
+        return costs.cost[id];
+    }
+    
+    /**
+     * Finds a short sequence of combinations that creates an element, following the cheapest tree of combinations.<br>
+     * Every element in the sequence is created once and only after its ingredients are created.
+     *
+     * @param target    The element that should be created
+     * @param fromKnown True if the known elements can be used, false if only the basic elements can be used
+     *
+     * @return A list of combinations, every combination has the two ingredients followed by the result
+     * @throws ElementallyException When the element can not be created
+     */
+    public ArrayList<Element[]> solve(Element target, boolean fromKnown) throws ElementallyException
+    {
+        return solve(target, fromKnown, false);
+    }
+    
+    /**
+     * Finds a short sequence of combinations that creates an element, following the cheapest tree of combinations.<br>
+     * Every element in the sequence is created once and only after its ingredients are created.
+     *
+     * @param target    The element that should be created
+     * @param fromKnown True if the known elements can be used, false if only the basic elements can be used
+     * @param knownOnly True if only the recipes the player knows can be used, starting at the basic elements
+     *
+     * @return A list of combinations, every combination has the two ingredients followed by the result
+     * @throws ElementallyException When the element can not be created
+     */
+    public ArrayList<Element[]> solve(Element target, boolean fromKnown, boolean knownOnly) throws ElementallyException
+    {
+        assert target != null : "null element";
+        Costs costs = getCosts(fromKnown, knownOnly);
+        int id = target.getId();
+        // If there is no way to create the element: throw an exception
+        if (id >= costs.cost.length || costs.cost[id] == UNREACHABLE)
+        {
+            throw new ElementallyException(UNREACHABLE_ERROR);
+        }
+        ArrayList<Element[]> steps = new ArrayList<>();
+        addSteps(costs, id, new HashSet<>(), steps);
+        return steps;
+    }
+    
+    /**
+     * Adds the combinations needed for an element after the combinations needed for its ingredients
+     *
+     * @param costs   The costs to follow
+     * @param id      The id of the element to create
+     * @param created The ids of the elements that are already in the steps
+     * @param steps   The list to add the combinations to
+     */
+    private void addSteps(Costs costs, int id, HashSet<Integer> created, ArrayList<Element[]> steps)
+    {
+        String recipe = costs.via[id];
+        // If the element has to be created and isn't created yet: create the ingredients and then the element
+        if (recipe != null && created.add(id))
+        {
+            int[] ingredients = ElementCooker.splitKey(recipe);
+            addSteps(costs, ingredients[0], created, steps);
+            addSteps(costs, ingredients[1], created, steps);
+            steps.add(new Element[]{elements[ingredients[0]], elements[ingredients[1]], elements[id]});
+        }
+    }
+    
+    /**
+     * Gets the costs and calculates them when they are not known
+     *
+     * @param fromKnown True for the costs starting at the known elements
+     * @param knownOnly True for the costs of the recipes the player knows, starting at the basic elements
+     *
+     * @return The calculated costs
+     */
+    private Costs getCosts(boolean fromKnown, boolean knownOnly)
+    {
+        // Only the known recipes are loaded straight away, the other costs wait until every recipe is loaded
+        IngredientIndex index = game.getIngredientIndex(knownOnly);
+        // If the elements are not looked up: look them up
+        if (elements == null)
+        {
+            index(index);
+        }
+        Costs costs = knownOnly ? learned : fromKnown ? this.fromKnown : fromBasic;
+        // If the costs are not calculated: calculate them
+        if (costs.cost == null)
+        {
+            costs.calculate();
+        }
+        return costs;
+    }
+    
+    /**
+     * Takes the id lookup from the ingredient index, the index gives the recipes each element is an ingredient of
+     *
+     * @param index The ingredient index of the game
+     */
+    private void index(IngredientIndex index)
+    {
+        ingredientIndex = index;
+        int size = Element.getHighestId() + 1;
+        elements = new Element[size];
+        // Put every element on the position of its id
+        for (int id = 0; id < size; id++)
+        {
+            elements[id] = ingredientIndex.getElement(id);
+        }
+    }
+    
+    /**
+     * The costs from one set of starting elements
+     */
+    private class Costs
+    {
+        private final boolean startAtKnown, knownRecipesOnly;
+        private int[] cost;
+        private String[] via;
+        
+        /**
+         * Constructor for the class, the costs get calculated when they are first needed
+         *
+         * @param startAtKnown     True if all known elements are free, false if only the basic elements are free
+         * @param knownRecipesOnly True if only the recipes the player knows can be used
+         */
+        private Costs(boolean startAtKnown, boolean knownRecipesOnly)
+        {
+            this.startAtKnown = startAtKnown;
+            this.knownRecipesOnly = knownRecipesOnly;
+        }
+        
+        /**
+         * Calculates the cost of every element starting at the free elements
+         */
+        private void calculate()
+        {
+            cost = new int[elements.length];
+            via = new String[elements.length];
+            PriorityQueue<Long> queue = new PriorityQueue<>();
+            // Give the free elements a cost of zero
+            for (int id = 0; id < elements.length; id++)
+            {
+                Element element = elements[id];
+                cost[id] = UNREACHABLE;
+                // If the element can be used from the start: queue it
+                if (element != null && (element.isBasic() || startAtKnown && element.isKnown()))
+                {
+                    cost[id] = 0;
+                    queue.add(entry(0, id));
+                }
+            }
+            spread(queue);
+        }
+        
+        /**
+         * Lowers the cost of an element and passes the lower cost on to the elements it is used for
+         *
+         * @param id      The id of the element
+         * @param newCost The new cost of the element
+         * @param recipe  The recipe that creates the element for the new cost, null when it's free
+         */
+        private void lower(int id, int newCost, String recipe)
+        {
+            // If the cost is not lower: nothing changes
+            if (newCost >= cost[id]) return;
+            cost[id] = newCost;
+            via[id] = recipe;
+            PriorityQueue<Long> queue = new PriorityQueue<>();
+            queue.add(entry(newCost, id));
+            spread(queue);
+        }
+        
+        /**
+         * Checks if a single recipe lowers the cost of its result
+         *
+         * @param key    The recipe to check
+         * @param result The id of the element the recipe creates
+         */
+        private void relax(String key, int result)
+        {
+            // If the costs aren't calculated: they will be calculated with the recipe later
+            if (cost == null) return;
+            int[] ingredients = ElementCooker.splitKey(key);
+            int left = cost[ingredients[0]];
+            int right = cost[ingredients[1]];
+            // If one of the ingredients can't be created or the recipe can't be followed: the recipe can't be used
+            if (left == UNREACHABLE || right == UNREACHABLE || !canFollow(key, elements[result])) return;
+            lower(result, combine(left, right), key);
+        }
+        
+        /**
+         * Takes the cheapest element from the queue and lowers the costs of the elements it is used for.<br>
+         * Because costs only go down the cheapest element from the queue is always final.
+         *
+         * @param queue The elements with a changed cost
+         */
+        private void spread(PriorityQueue<Long> queue)
+        {
+            // Go through the elements from cheap to expensive
+            while (!queue.isEmpty())
+            {
+                long next = queue.poll();
+                int id = (int) next;
+                int current = (int) (next >>> 32);
+                // If the element got cheaper after it was queued: skip it
+                if (current != cost[id]) continue;
+                // Go through every recipe the element is used in
+                for (String recipe : ingredientIndex.getRecipes(id))
+                {
+                    int partner = IngredientIndex.getPartner(recipe, id);
+                    // If the other ingredient does not exist or can't be created yet: the recipe can't be used
+                    if (partner >= cost.length || cost[partner] == UNREACHABLE) continue;
+                    Element result = game.getLoadedRecipes().get(recipe);
+                    // If the recipe was removed or can't be followed: skip it
+                    if (result == null || result.getId() >= cost.length || !canFollow(recipe, result)) continue;
+                    int newCost = combine(current, cost[partner]);
+                    // If this recipe is cheaper: use it and queue the result
+                    if (newCost < cost[result.getId()])
+                    {
+                        cost[result.getId()] = newCost;
+                        via[result.getId()] = recipe;
+                        queue.add(entry(newCost, result.getId()));
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Checks if a recipe can be used for these costs
+         *
+         * @param recipe The recipe
+         * @param result The element the recipe creates, can be null
+         *
+         * @return True if the recipe can be used
+         */
+        private boolean canFollow(String recipe, Element result)
+        {
+            return !knownRecipesOnly || result != null && result.isKnownRecipe(recipe);
+        }
+        
+        /**
+         * Calculates the cost of a recipe from the costs of its ingredients.<br>
+         * The cost is a tree cost, so it can grow past the range of an int on deep trees,
+         * it stops just below unreachable so it never turns negative and the queue still sorts on it
+         *
+         * @param left  The cost of the first ingredient
+         * @param right The cost of the second ingredient
+         *
+         * @return The cost of the recipe
+         */
+        private int combine(int left, int right)
+        {
+            return (int) Math.min((long) left + right + 1, UNREACHABLE - 1);
+        }
+        
+        /**
+         * Combines a cost and an id so the queue sorts on cost
+         *
+         * @param cost The cost of the element
+         * @param id   The id of the element
+         *
+         * @return A number with the cost in the high and the id in the low bits
+         */
+        private long entry(int cost, int id)
+        {
+            return (long) cost << 32 | id;
+        }
+    }
+}
@@ -0,0 +1,1053 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets many virtual players discover the elements of a content pack to find out how hard it is.<br>
+ * The elements and recipes are copied once into arrays that every thread reads, so a combination is one lookup
+ * in a table of numbers instead of a call to the game. Every thread plays its own players with its own progress
+ * and counts its own results, the counts are added together when every player is done.
+ * Every player gets a random generator made from the seed and its number, so the results do not depend on
+ * the amount of threads.
+ * <p>
+ * A player starts with the basic elements and stops when every element that can be created is known
+ * or when it has made the highest amount of attempts.
+ * The report has the attempts needed for every element, every category and the whole pack.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class DifficultySimulator
+{
+    private static final String USAGE = "Usage: DifficultySimulator [safe file] [random/hint/greedy] [players] [seed (optional)] [allowDuplicates (optional)]";
+    private static final String UNKNOWN_STRATEGY = "Unknown strategy, use random, hint or greedy";
+    private static final String PLAYERS_NAN_ERROR = "The amount of players and the seed must be integers";
+    private static final String SIMULATION_FAILURE = "A player could not finish: ";
+    private static final String ALLOW_DUPLICATES = "allowDuplicates";
+    private static final int DEFAULT_ATTEMPTS_PER_ELEMENT = 1000;
+    private static final int DEFAULT_HINT_AFTER = 50;
+    private static final int REPORTED_ELEMENTS = 20;
+    private static final long PLAYER_SEED_STEP = 0x9E3779B97F4A7C15L;
+    
+    /**
+     * The ways a virtual player chooses what to combine
+     */
+    public enum Strategy
+    {
+        /**
+         * Combines two random known elements
+         */
+        RANDOM,
+        /**
+         * Combines random elements and asks for a hint after too many combinations without a new element
+         */
+        HINT_GUIDED,
+        /**
+         * Combines the newest element with every element known before it, then goes back to older elements,
+         * without trying a combination twice
+         */
+        GREEDY_FRONTIER
+    }
+    
+    private final World world;
+    private final boolean allowDuplicates;
+    private int threads;
+    private long maxAttempts;
+    private int hintAfter;
+    
+    /**
+     * Constructor for the class, copies the elements and recipes of the game
+     *
+     * @param game            The game with the content pack to simulate
+     * @param allowDuplicates True if an element can be combined with itself
+     */
+    public DifficultySimulator(ElementCooker game, boolean allowDuplicates)
+    {
+        assert game != null : "null game";
+        world = new World(game, allowDuplicates);
+        this.allowDuplicates = allowDuplicates;
+        threads = Runtime.getRuntime().availableProcessors();
+        maxAttempts = Math.min(Integer.MAX_VALUE, (long) DEFAULT_ATTEMPTS_PER_ELEMENT * world.reachable);
+        hintAfter = DEFAULT_HINT_AFTER;
+    }
+    
+    /**
+     * Main method for simulating players
+     *
+     * @param args The safe file, the strategy, the amount of players, optionally the seed
+     *             and optionally allowDuplicates to let elements be combined with themselves
+     */
+    public static void main(String[] args)
+    {
+        boolean allowDuplicates = args.length > 3 && args[args.length - 1].equals(ALLOW_DUPLICATES);
+        // If allowDuplicates is given: it is not one of the other arguments
+        if (allowDuplicates)
+        {
+            args = Arrays.copyOf(args, args.length - 1);
+        }
+        // If the arguments are not given: inform the user
+        if (args.length < 3 || args.length > 4)
+        {
+            System.out.println(USAGE);
+            return;
+        }
+        Strategy strategy;
+        // Find the strategy with its short name
+        switch (args[1])
+        {
+            case "random":
+                strategy = Strategy.RANDOM;
+                break;
+            case "hint":
+                strategy = Strategy.HINT_GUIDED;
+                break;
+            case "greedy":
+                strategy = Strategy.GREEDY_FRONTIER;
+                break;
+            default:
+                System.out.println(UNKNOWN_STRATEGY);
+                return;
+        }
+        // Load the pack and let the players play it
+        try
+        {
+            int players = Integer.parseInt(args[2]); // Throws NumberFormatException
+            long seed = args.length == 4 ? Long.parseLong(args[3]) : System.nanoTime(); // Throws NumberFormatException
+            ElementCooker game = ElementCooker.getInstance();
+            game.loadDataFrom(new SegmentedSafeFile(new File(args[0])).read()); // Throws IOException, ElementallyException
+            System.out.print(new DifficultySimulator(game, allowDuplicates).simulate(strategy, players, seed));
+        }
+        // If the amount of players or the seed is not a number: inform the user
+        catch (NumberFormatException nfEx)
+        {
+            System.out.println(PLAYERS_NAN_ERROR);
+        }
+        // If the safe file could not be read: inform the user
+        catch (IOException | ElementallyException ex)
+        {
+            System.out.println(ex.getMessage());
+        }
+    }
+    
+    /**
+     * Sets the amount of threads the players are divided over
+     *
+     * @param threads The amount of threads, the amount of processors by default
+     */
+    public void setThreads(int threads)
+    {
+        assert threads > 0 : "no threads";
+        this.threads = threads;
+    }
+    
+    /**
+     * Sets the amount of attempts after which a player gives up
+     *
+     * @param maxAttempts The highest amount of attempts of one player
+     */
+    public void setMaxAttempts(long maxAttempts)
+    {
+        assert maxAttempts > 0 : "no attempts";
+        this.maxAttempts = Math.min(Integer.MAX_VALUE, maxAttempts);
+    }
+    
+    /**
+     * Sets after how many attempts without a new element a hint guided player asks for a hint
+     *
+     * @param hintAfter The amount of attempts without a new element
+     */
+    public void setHintAfter(int hintAfter)
+    {
+        assert hintAfter > 0 : "no attempts";
+        this.hintAfter = hintAfter;
+    }
+    
+    /**
+     * Lets the players discover the elements in parallel
+     *
+     * @param strategy The way every player chooses what to combine
+     * @param players  The amount of players
+     * @param seed     The seed the random generators of the players are made from
+     *
+     * @return The attempts needed for every element, category and the whole pack
+     * @throws ElementallyException When a player stopped because of an error
+     */
+    public Report simulate(Strategy strategy, int players, long seed) throws ElementallyException
+    {
+        assert strategy != null : "null strategy";
+        assert players > 0 : "no players";
+        long start = System.nanoTime();
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(threads, players);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        ArrayList<Future<Tally>> futures = new ArrayList<>(workers);
+        // Start the threads, every thread takes the next player until every player is done
+        for (int i = 0; i < workers; i++)
+        {
+            futures.add(executor.submit(() ->
+                                        {
+                                            Tally tally = new Tally(world);
+                                            Player player = new Player(strategy, tally);
+                                            int number;
+                                            // Play the next player until every player is done
+                                            while ((number = next.getAndIncrement()) < players)
+                                            {
+                                                player.play(new SplittableRandom(seed + number * PLAYER_SEED_STEP));
+                                            }
+                                            return tally;
+                                        }));
+        }
+        executor.shutdown();
+        Tally total = new Tally(world);
+        // Add the counts of every thread together
+        try
+        {
+            for (Future<Tally> future : futures)
+            {
+                total.add(future.get());
+            }
+        }
+        catch (ExecutionException eEx)
+        {
+            throw new ElementallyException(SIMULATION_FAILURE + eEx.getCause());
+        }
+        catch (InterruptedException iEx)
+        {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new ElementallyException(SIMULATION_FAILURE + iEx);
+        }
+        return new Report(world, strategy, players, total, System.nanoTime() - start);
+    }
+    
+    /**
+     * The elements and recipes of a pack in arrays, every element has a position from 0 in the order of the categories
+     */
+    private static class World
+    {
+        private static final long EMPTY = -1;
+        
+        private final Element[] elements;
+        private final int[] category;
+        private final String[] categoryNames;
+        private final int[] reachableInCategory;
+        private final int[] basics;
+        private final boolean[] canReach;
+        private final int reachable;
+        private final long[] keys;
+        private final int[] results;
+        private final int mask;
+        private final int[] useStart, usePartner, useResult;
+        
+        /**
+         * Constructor for the class, copies the elements and recipes of the game
+         *
+         * @param game            The game with the content pack
+         * @param allowDuplicates True if an element can be combined with itself
+         */
+        World(ElementCooker game, boolean allowDuplicates)
+        {
+            ArrayList<Category> categories = game.getAllCategories();
+            ArrayList<Element> all = new ArrayList<>();
+            ArrayList<Integer> categoryOf = new ArrayList<>();
+            categoryNames = new String[categories.size()];
+            // Give every element of every category the next position
+            for (int i = 0; i < categories.size(); i++)
+            {
+                categoryNames[i] = categories.get(i).getName();
+                // Add the elements of this category
+                for (Element element : categories.get(i).getContaining())
+                {
+                    all.add(element);
+                    categoryOf.add(i);
+                }
+            }
+            elements = all.toArray(new Element[0]);
+            category = new int[elements.length];
+            HashMap<Integer, Integer> positions = new HashMap<>(elements.length * 2);
+            ArrayList<Integer> basicList = new ArrayList<>();
+            // Remember the position of every id and which elements are known from the start
+            for (int i = 0; i < elements.length; i++)
+            {
+                category[i] = categoryOf.get(i);
+                positions.put(elements[i].getId(), i);
+                if (elements[i].isBasic()) basicList.add(i);
+            }
+            basics = basicList.stream().mapToInt(Integer::intValue).toArray();
+            ArrayList<int[]> recipes = new ArrayList<>();
+            int[] uses = new int[elements.length];
+            // Copy every recipe that combines two elements into a different element than nothing
+            for (Element result : elements)
+            {
+                // Copy the recipes of this element
+                for (String recipe : result.getAllRecipes())
+                {
+                    int[] ids = ElementCooker.splitKey(recipe);
+                    Integer first = positions.get(ids[0]), second = positions.get(ids[1]);
+                    if (first == null || second == null) continue;
+                    recipes.add(new int[]{first, second, positions.get(result.getId())});
+                    uses[first]++;
+                    if (!first.equals(second)) uses[second]++;
+                }
+            }
+            int capacity = Integer.highestOneBit(Math.max(2, recipes.size() * 2 - 1)) << 1;
+            keys = new long[capacity];
+            results = new int[capacity];
+            mask = capacity - 1;
+            Arrays.fill(keys, EMPTY);
+            useStart = new int[elements.length + 1];
+            // Let every element start its uses after the uses of the elements before it
+            for (int i = 0; i < elements.length; i++)
+            {
+                useStart[i + 1] = useStart[i] + uses[i];
+            }
+            usePartner = new int[useStart[elements.length]];
+            useResult = new int[usePartner.length];
+            int[] filled = Arrays.copyOf(useStart, elements.length);
+            // Put every recipe in the table and in the uses of both ingredients
+            for (int[] recipe : recipes)
+            {
+                if (!put(recipe[0], recipe[1], recipe[2])) continue;
+                usePartner[filled[recipe[0]]] = recipe[1];
+                useResult[filled[recipe[0]]++] = recipe[2];
+                // If the ingredients are different: the second one uses the recipe as well
+                if (recipe[0] != recipe[1])
+                {
+                    usePartner[filled[recipe[1]]] = recipe[0];
+                    useResult[filled[recipe[1]]++] = recipe[2];
+                }
+            }
+            canReach = new boolean[elements.length];
+            reachable = findReachable(allowDuplicates);
+            reachableInCategory = new int[categoryNames.length];
+            // Count the elements that can be created in every category
+            for (int i = 0; i < elements.length; i++)
+            {
+                if (canReach[i]) reachableInCategory[category[i]]++;
+            }
+        }
+        
+        /**
+         * Combines two positions into the key of the table, the smallest first
+         *
+         * @param first  The position of an ingredient
+         * @param second The position of the other ingredient
+         *
+         * @return The key
+         */
+        private static long key(int first, int second)
+        {
+            return first < second ? (long) first << 32 | second : (long) second << 32 | first;
+        }
+        
+        /**
+         * Finds the first slot of a key in the table
+         *
+         * @param key The key of a recipe
+         *
+         * @return The slot to start looking
+         */
+        private int slot(long key)
+        {
+            long mixed = key * PLAYER_SEED_STEP;
+            return (int) (mixed ^ mixed >>> 32) & mask;
+        }
+        
+        /**
+         * Puts a recipe in the table, a recipe that is already in the table keeps its first result
+         *
+         * @param first  The position of an ingredient
+         * @param second The position of the other ingredient
+         * @param result The position of the result
+         *
+         * @return True if the recipe was put in the table, false when the ingredients already had a result
+         */
+        private boolean put(int first, int second, int result)
+        {
+            long key = key(first, second);
+            int slot = slot(key);
+            // Look for the key or an empty slot
+            while (keys[slot] != EMPTY)
+            {
+                if (keys[slot] == key) return false;
+                slot = slot + 1 & mask;
+            }
+            keys[slot] = key;
+            results[slot] = result;
+            return true;
+        }
+        
+        /**
+         * Combines two elements
+         *
+         * @param first  The position of an ingredient
+         * @param second The position of the other ingredient
+         *
+         * @return The position of the result or -1 when the combination creates nothing
+         */
+        int combine(int first, int second)
+        {
+            long key = key(first, second);
+            int slot = slot(key);
+            // Look for the key until an empty slot
+            while (keys[slot] != EMPTY)
+            {
+                if (keys[slot] == key) return results[slot];
+                slot = slot + 1 & mask;
+            }
+            return -1;
+        }
+        
+        /**
+         * Marks every element that can be created from the basic elements
+         *
+         * @param allowDuplicates True if an element can be combined with itself
+         *
+         * @return The amount of elements that can be created, including the basic elements
+         */
+        private int findReachable(boolean allowDuplicates)
+        {
+            int[] queue = new int[elements.length];
+            int size = 0;
+            // Start with the basic elements
+            for (int basic : basics)
+            {
+                canReach[basic] = true;
+                queue[size++] = basic;
+            }
+            // Go through the created elements and create what they can create with the elements before them
+            for (int head = 0; head < size; head++)
+            {
+                int element = queue[head];
+                // Check every recipe the element is used in
+                for (int use = useStart[element]; use < useStart[element + 1]; use++)
+                {
+                    if (!allowDuplicates && usePartner[use] == element) continue;
+                    // If the other ingredient is created and the result is not: create the result
+                    if (canReach[usePartner[use]] && !canReach[useResult[use]])
+                    {
+                        canReach[useResult[use]] = true;
+                        queue[size++] = useResult[use];
+                    }
+                }
+            }
+            return size;
+        }
+    }
+    
+    /**
+     * One virtual player, the same object plays one player after the other on its own thread
+     */
+    private class Player
+    {
+        private final Strategy strategy;
+        private final Tally tally;
+        private final boolean[] known;
+        private final int[] knownList;
+        private final int[] foundInCategory;
+        private final int[] stack, cursor;
+        private int knownCount;
+        private int attempts;
+        private int stackSize;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param strategy The way the player chooses what to combine
+         * @param tally    The counts of the thread the player is played on
+         */
+        Player(Strategy strategy, Tally tally)
+        {
+            this.strategy = strategy;
+            this.tally = tally;
+            known = new boolean[world.elements.length];
+            knownList = new int[world.elements.length];
+            foundInCategory = new int[world.categoryNames.length];
+            stack = strategy == Strategy.GREEDY_FRONTIER ? new int[world.elements.length] : null;
+            cursor = strategy == Strategy.GREEDY_FRONTIER ? new int[world.elements.length] : null;
+        }
+        
+        /**
+         * Starts over with the basic elements and plays until everything is found or the attempts run out
+         *
+         * @param random The random generator of this player
+         */
+        void play(SplittableRandom random)
+        {
+            // Forget the elements of the player before, which is faster than forgetting every element
+            for (int i = 0; i < knownCount; i++)
+            {
+                known[knownList[i]] = false;
+            }
+            Arrays.fill(foundInCategory, 0);
+            knownCount = 0;
+            attempts = 0;
+            stackSize = 0;
+            // Start with the basic elements
+            for (int basic : world.basics)
+            {
+                discover(basic);
+            }
+            int sinceNew = 0;
+            // Combine elements until everything is found or the attempts run out
+            while (knownCount < world.reachable && attempts < maxAttempts)
+            {
+                int result;
+                // If the player does not look for combinations at random: take the next combination
+                if (strategy == Strategy.GREEDY_FRONTIER)
+                {
+                    // If every combination is tried: nothing new can be found
+                    if (stackSize == 0) break;
+                    result = nextFrontier();
+                }
+                // Else if the player was stuck for too long: ask for a hint
+                else if (strategy == Strategy.HINT_GUIDED && sinceNew >= hintAfter)
+                {
+                    result = hint(random);
+                }
+                else
+                {
+                    // If only one element is known and it can't be combined with itself: nothing can be found
+                    if (knownCount < 2 && !allowDuplicates) break;
+                    int first = knownList[random.nextInt(knownCount)];
+                    int second = knownList[random.nextInt(knownCount)];
+                    // If an element is combined with itself while that is not allowed: pick again
+                    while (second == first && !allowDuplicates)
+                    {
+                        second = knownList[random.nextInt(knownCount)];
+                    }
+                    attempts++;
+                    result = world.combine(first, second);
+                }
+                // If the combination created a new element: learn it
+                if (result != -1 && !known[result])
+                {
+                    discover(result);
+                    sinceNew = 0;
+                }
+                else
+                {
+                    sinceNew++;
+                }
+            }
+            tally.finished(this);
+        }
+        
+        /**
+         * Combines the newest element that has untried combinations with the next element known before it
+         *
+         * @return The position of the result or -1 when the combination creates nothing
+         */
+        private int nextFrontier()
+        {
+            int top = stack[stackSize - 1];
+            int partner = knownList[cursor[top]++];
+            int limit = allowDuplicates ? top + 1 : top;
+            // If the element was combined with every element before it: go back to an older element
+            if (cursor[top] >= limit)
+            {
+                stackSize--;
+            }
+            attempts++;
+            return world.combine(knownList[top], partner);
+        }
+        
+        /**
+         * Finds a combination of known elements that creates an unknown element and makes it
+         *
+         * @param random The random generator of this player
+         *
+         * @return The position of the result or -1 when no known combination creates something new
+         */
+        private int hint(SplittableRandom random)
+        {
+            int start = random.nextInt(knownCount);
+            // Look for a new result from a random known element on
+            for (int i = 0; i < knownCount; i++)
+            {
+                int element = knownList[(start + i) % knownCount];
+                // Look for a recipe with a known partner and an unknown result
+                for (int use = world.useStart[element]; use < world.useStart[element + 1]; use++)
+                {
+                    if (!known[world.usePartner[use]] || known[world.useResult[use]]) continue;
+                    if (!allowDuplicates && world.usePartner[use] == element) continue;
+                    attempts++;
+                    return world.useResult[use];
+                }
+            }
+            attempts++;
+            return -1;
+        }
+        
+        /**
+         * Learns an element and counts the attempts it took
+         *
+         * @param element The position of the element
+         */
+        private void discover(int element)
+        {
+            known[element] = true;
+            knownList[knownCount] = element;
+            // If the player tries combinations in order: the new element is combined first
+            if (stack != null)
+            {
+                int limit = allowDuplicates ? knownCount + 1 : knownCount;
+                cursor[knownCount] = 0;
+                // If the element has an element to combine with: it gets the next combinations
+                if (limit > 0)
+                {
+                    stack[stackSize++] = knownCount;
+                }
+            }
+            knownCount++;
+            tally.discovered(element, attempts, ++foundInCategory[world.category[element]]);
+        }
+    }
+    
+    /**
+     * The counts of the players of one thread, or of all players when the threads are added together
+     */
+    private static class Tally
+    {
+        private final World world;
+        private final long[] elementSum;
+        private final double[] elementSquares;
+        private final int[] elementFound, elementMax;
+        private final Distribution[] categoryFirst, categoryDone;
+        private final Distribution total;
+        private long combinations;
+        private int finished;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param world The elements and recipes of the pack
+         */
+        Tally(World world)
+        {
+            this.world = world;
+            elementSum = new long[world.elements.length];
+            elementSquares = new double[world.elements.length];
+            elementFound = new int[world.elements.length];
+            elementMax = new int[world.elements.length];
+            categoryFirst = new Distribution[world.categoryNames.length];
+            categoryDone = new Distribution[world.categoryNames.length];
+            // Give every category an empty distribution
+            for (int i = 0; i < categoryFirst.length; i++)
+            {
+                categoryFirst[i] = new Distribution();
+                categoryDone[i] = new Distribution();
+            }
+            total = new Distribution();
+        }
+        
+        /**
+         * Counts an element that was found
+         *
+         * @param element  The position of the element
+         * @param attempts The attempts the player made before finding it
+         * @param found    The amount of elements found in the category of the element, including this one
+         */
+        void discovered(int element, int attempts, int found)
+        {
+            elementSum[element] += attempts;
+            elementSquares[element] += (double) attempts * attempts;
+            elementFound[element]++;
+            elementMax[element] = Math.max(elementMax[element], attempts);
+            int category = world.category[element];
+            // If it's the first element of the category: the category is unlocked
+            if (found == 1)
+            {
+                categoryFirst[category].add(attempts);
+            }
+            // If it's the last element of the category that can be created: the category is completed
+            if (found == world.reachableInCategory[category])
+            {
+                categoryDone[category].add(attempts);
+            }
+        }
+        
+        /**
+         * Counts a player that is done
+         *
+         * @param player The player that stopped
+         */
+        void finished(Player player)
+        {
+            combinations += player.attempts;
+            finished++;
+            // If the player found everything: count the attempts it took
+            if (player.knownCount == world.reachable)
+            {
+                total.add(player.attempts);
+            }
+        }
+        
+        /**
+         * Adds the counts of an other thread
+         *
+         * @param other The counts to add
+         */
+        void add(Tally other)
+        {
+            // Add the counts of every element
+            for (int i = 0; i < elementSum.length; i++)
+            {
+                elementSum[i] += other.elementSum[i];
+                elementSquares[i] += other.elementSquares[i];
+                elementFound[i] += other.elementFound[i];
+                elementMax[i] = Math.max(elementMax[i], other.elementMax[i]);
+            }
+            // Add the distributions of every category
+            for (int i = 0; i < categoryFirst.length; i++)
+            {
+                categoryFirst[i].add(other.categoryFirst[i]);
+                categoryDone[i].add(other.categoryDone[i]);
+            }
+            total.add(other.total);
+            combinations += other.combinations;
+            finished += other.finished;
+        }
+    }
+    
+    /**
+     * Counts values in buckets that get wider as the values get larger, so percentiles can be estimated
+     * with a fixed amount of memory. A bucket is at most a quarter of its lowest value wide.
+     */
+    public static class Distribution
+    {
+        private static final int SUB_BUCKETS = 4;
+        private static final int BUCKETS = SUB_BUCKETS * 32;
+        
+        private final long[] buckets;
+        private long count, sum;
+        private int min, max;
+        
+        /**
+         * Constructor for the class
+         */
+        public Distribution()
+        {
+            buckets = new long[BUCKETS];
+            min = Integer.MAX_VALUE;
+            max = 0;
+        }
+        
+        /**
+         * Counts a value
+         *
+         * @param value The value, can not be negative
+         */
+        public void add(int value)
+        {
+            assert value >= 0 : "negative value";
+            buckets[bucket(value)]++;
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        
+        /**
+         * Adds all the values of an other distribution
+         *
+         * @param other The distribution to add
+         */
+        public void add(Distribution other)
+        {
+            // Add the count of every bucket
+            for (int i = 0; i < BUCKETS; i++)
+            {
+                buckets[i] += other.buckets[i];
+            }
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        
+        /**
+         * @return The amount of values
+         */
+        public long getCount()
+        {
+            return count;
+        }
+        
+        /**
+         * @return The average value or 0 without values
+         */
+        public double getMean()
+        {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+        
+        /**
+         * @return The lowest value or 0 without values
+         */
+        public int getMin()
+        {
+            return count == 0 ? 0 : min;
+        }
+        
+        /**
+         * @return The highest value
+         */
+        public int getMax()
+        {
+            return max;
+        }
+        
+        /**
+         * Estimates the value below which a part of the values are
+         *
+         * @param part The part of the values, from 0 to 1
+         *
+         * @return The lowest value of the bucket the percentile is in, at most the highest value
+         */
+        public int getPercentile(double part)
+        {
+            long needed = (long) Math.ceil(part * count);
+            long seen = 0;
+            // Go through the buckets until enough values are seen
+            for (int i = 0; i < BUCKETS; i++)
+            {
+                seen += buckets[i];
+                if (seen >= needed && seen > 0) return Math.min(max, Math.max(min, lowest(i)));
+            }
+            return max;
+        }
+        
+        /**
+         * Finds the bucket of a value, the values below the amount of sub buckets have their own bucket
+         *
+         * @param value The value
+         *
+         * @return The number of the bucket
+         */
+        private static int bucket(int value)
+        {
+            // If the value is small: it has its own bucket
+            if (value < SUB_BUCKETS) return value;
+            int magnitude = 31 - Integer.numberOfLeadingZeros(value);
+            int sub = value >>> magnitude - 2 & SUB_BUCKETS - 1;
+            return SUB_BUCKETS * (magnitude - 1) + sub;
+        }
+        
+        /**
+         * Finds the lowest value of a bucket
+         *
+         * @param bucket The number of the bucket
+         *
+         * @return The lowest value that is counted in the bucket
+         */
+        private static int lowest(int bucket)
+        {
+            // If the bucket is for one small value: it's that value
+            if (bucket < SUB_BUCKETS) return bucket;
+            int magnitude = bucket / SUB_BUCKETS + 1;
+            return SUB_BUCKETS + bucket % SUB_BUCKETS << magnitude - 2;
+        }
+        
+        /**
+         * @return The count, mean, median, 90th percentile and highest value
+         */
+        @Override
+        public String toString()
+        {
+            return String.format("n=%d mean=%.1f p50=%d p90=%d max=%d",
+                                 count, getMean(), getPercentile(0.5), getPercentile(0.9), getMax());
+        }
+    }
+    
+    /**
+     * The attempts the players needed for every element, every category and the whole pack
+     */
+    public static class Report
+    {
+        private final World world;
+        private final Strategy strategy;
+        private final int players;
+        private final Tally tally;
+        private final long nanos;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param world    The elements and recipes of the pack
+         * @param strategy The strategy the players used
+         * @param players  The amount of players
+         * @param tally    The counts of all players
+         * @param nanos    The time the simulation took in nanoseconds
+         */
+        private Report(World world, Strategy strategy, int players, Tally tally, long nanos)
+        {
+            this.world = world;
+            this.strategy = strategy;
+            this.players = players;
+            this.tally = tally;
+            this.nanos = nanos;
+        }
+        
+        /**
+         * @return The attempts of the players that found every element that can be created
+         */
+        public Distribution getTotal()
+        {
+            return tally.total;
+        }
+        
+        /**
+         * @return The amount of elements that can be created from the basic elements
+         */
+        public int getReachable()
+        {
+            return world.reachable;
+        }
+        
+        /**
+         * @return The amount of combinations made by all players
+         */
+        public long getCombinations()
+        {
+            return tally.combinations;
+        }
+        
+        /**
+         * @return The amount of combinations made every second
+         */
+        public double getCombinationsPerSecond()
+        {
+            return tally.combinations / Math.max(1e-9, nanos / 1e9);
+        }
+        
+        /**
+         * Gives the attempts after which the categories got their first element
+         *
+         * @param category The position of the category in the order of ElementCooker.getAllCategories
+         *
+         * @return The attempts of the players that unlocked the category
+         */
+        public Distribution getCategoryUnlocked(int category)
+        {
+            return tally.categoryFirst[category];
+        }
+        
+        /**
+         * Gives the attempts after which the categories got every element that can be created
+         *
+         * @param category The position of the category in the order of ElementCooker.getAllCategories
+         *
+         * @return The attempts of the players that completed the category
+         */
+        public Distribution getCategoryCompleted(int category)
+        {
+            return tally.categoryDone[category];
+        }
+        
+        /**
+         * Gives the average attempts before an element was found
+         *
+         * @param element The element
+         *
+         * @return The average of the players that found it or -1 when no player found it or it's not in the pack
+         */
+        public double getMeanAttempts(Element element)
+        {
+            int position = indexOf(element);
+            // If no player found the element: there is no average
+            if (position == -1 || tally.elementFound[position] == 0) return -1;
+            return (double) tally.elementSum[position] / tally.elementFound[position];
+        }
+        
+        /**
+         * Gives the part of the players that found an element
+         *
+         * @param element The element
+         *
+         * @return The part from 0 to 1
+         */
+        public double getFoundPart(Element element)
+        {
+            int position = indexOf(element);
+            return position == -1 ? 0 : (double) tally.elementFound[position] / players;
+        }
+        
+        /**
+         * Finds the position of an element
+         *
+         * @param element The element
+         *
+         * @return The position or -1 when the element is not in the pack
+         */
+        private int indexOf(Element element)
+        {
+            // Compare every element
+            for (int i = 0; i < world.elements.length; i++)
+            {
+                if (world.elements[i] == element) return i;
+            }
+            return -1;
+        }
+        
+        /**
+         * @return The totals, every category and the elements that took the most attempts
+         */
+        @Override
+        public String toString()
+        {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("%s: %d players, %d of %d elements can be created, %d combinations at %.0f per second%n",
+                                        strategy, players, world.reachable, world.elements.length,
+                                        tally.combinations, getCombinationsPerSecond()));
+            report.append(String.format("found everything: %s%n", tally.total));
+            // Add the unlock and completion of every category
+            for (int i = 0; i < world.categoryNames.length; i++)
+            {
+                report.append(String.format("%s: unlocked %s, completed %s%n", world.categoryNames[i],
+                                            tally.categoryFirst[i], tally.categoryDone[i]));
+            }
+            Integer[] hardest = new Integer[world.elements.length];
+            // Sort the elements from the most average attempts to the least
+            for (int i = 0; i < hardest.length; i++)
+            {
+                hardest[i] = i;
+            }
+            Arrays.sort(hardest, (first, second) -> Double.compare(mean(second), mean(first)));
+            report.append("hardest elements:").append(System.lineSeparator());
+            // Add the elements that took the most attempts
+            for (int i = 0; i < Math.min(REPORTED_ELEMENTS, hardest.length); i++)
+            {
+                int element = hardest[i];
+                int found = tally.elementFound[element];
+                double mean = mean(element);
+                double deviation = found == 0 ? 0 : Math.sqrt(Math.max(0, tally.elementSquares[element] / found - mean * mean));
+                report.append(String.format("%s: mean=%.1f sd=%.1f max=%d found by %.1f%%%n", world.elements[element],
+                                            mean, deviation, tally.elementMax[element], 100.0 * found / players));
+            }
+            return report.toString();
+        }
+        
+        /**
+         * Gives the average attempts before an element was found
+         *
+         * @param element The position of the element
+         *
+         * @return The average or 0 when no player found it
+         */
+        private double mean(int element)
+        {
+            int found = tally.elementFound[element];
+            return found == 0 ? 0 : (double) tally.elementSum[element] / found;
+        }
+    }
+}
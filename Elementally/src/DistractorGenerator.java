@@ -0,0 +1,174 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * Creates wrong answers for quiz questions without changing which recipes are quized.<br>
+ * A wrong answer swaps one of the ingredients of the correct answer for a known element
+ * from the same category, so the wrong answers look like the correct one.
+ * Only combinations that create nothing or a recipe the player knows are used,
+ * so telling the player what a wrong answer creates does not show an element that was not discovered.
+ * The known elements of every category are kept in an array that is only rebuilt when the category changes.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class DistractorGenerator
+{
+    private static final int ATTEMPTS = 16;
+    private static final String NOT_ENOUGH_ELEMENTS = "Not enough known elements for a question";
+    
+    private final ElementCooker game;
+    private final IdentityHashMap<Category, Candidates> candidates;
+    
+    /**
+     * Constructor for the class
+     *
+     * @param game The game to take the known elements and recipes from
+     */
+    public DistractorGenerator(ElementCooker game)
+    {
+        assert game != null : "null game";
+        this.game = game;
+        candidates = new IdentityHashMap<>();
+    }
+    
+    /**
+     * Creates wrong answers for a question
+     *
+     * @param correct The correct combination
+     * @param result  The element the correct combination creates
+     * @param amount  The amount of wrong answers needed
+     *
+     * @return An array with the wrong combinations, each with a length of 2
+     * @throws ElementallyException When there are not enough known elements to create the wrong answers
+     */
+    public Element[][] generate(Element[] correct, Element result, int amount) throws ElementallyException
+    {
+        assert correct != null : "null answer";
+        assert correct.length == 2 : "incorrect answer length, length of 2 expected";
+        Element[][] output = new Element[amount][];
+        // Fill every position with a wrong answer
+        for (int i = 0; i < amount; i++)
+        {
+            Element[] distractor = null;
+            // Try to swap an ingredient for an element from the same category first, then from any category
+            for (int attempt = 0; attempt < 2 * ATTEMPTS && distractor == null; attempt++)
+            {
+                int swap = game.getRandom().nextInt(2);
+                Category from = attempt < ATTEMPTS ? correct[swap].getCategory() : randomKnownCategory();
+                Element replacement = pick(from);
+                Element[] option = new Element[]{correct[1 - swap], replacement};
+                // If the option is a valid wrong answer: use it
+                if (isWrong(option, correct, result, output, i))
+                {
+                    distractor = option;
+                }
+            }
+            // If no wrong answer could be found: there are not enough elements
+            if (distractor == null)
+            {
+                throw new ElementallyException(NOT_ENOUGH_ELEMENTS);
+            }
+            output[i] = distractor;
+        }
+        return output;
+    }
+    
+    /**
+     * Checks if an option can be used as wrong answer
+     *
+     * @param option  The option to check
+     * @param correct The correct combination
+     * @param result  The element the correct combination creates
+     * @param chosen  The wrong answers that are already chosen
+     * @param amount  The amount of wrong answers that are already chosen
+     *
+     * @return True if the option does not create the result, is not chosen yet
+     * and creates nothing or a recipe the player knows
+     */
+    private boolean isWrong(Element[] option, Element[] correct, Element result, Element[][] chosen, int amount)
+    {
+        // If there was no element to pick or both elements are the same: the option can't be used
+        if (option[1] == null || option[0] == option[1]) return false;
+        if (isSame(option, correct)) return false;
+        // Go through the chosen answers to check if the option is new
+        for (int i = 0; i < amount; i++)
+        {
+            // If the option is already chosen: it can't be used again
+            if (isSame(option, chosen[i])) return false;
+        }
+        // If the option creates the result: it's not wrong
+        if (game.combine(option[0], option[1], false) == result) return false;
+        return game.isKnownCombination(option[0], option[1]);
+    }
+    
+    /**
+     * Checks if two combinations contain the same elements
+     *
+     * @param combination1 The first combination
+     * @param combination2 The second combination
+     *
+     * @return True if the combinations are the same in any order
+     */
+    private boolean isSame(Element[] combination1, Element[] combination2)
+    {
+        return combination1[0] == combination2[0] && combination1[1] == combination2[1] ||
+               combination1[0] == combination2[1] && combination1[1] == combination2[0];
+    }
+    
+    /**
+     * Picks a random known category
+     *
+     * @return A known category or null if there are no known categories
+     */
+    private Category randomKnownCategory()
+    {
+        ArrayList<Category> known = game.getKnownCategories();
+        // If there are no known categories: there is nothing to pick
+        if (known.isEmpty()) return null;
+        return known.get(game.getRandom().nextInt(known.size()));
+    }
+    
+    /**
+     * Picks a random known element from a category
+     *
+     * @param category The category to pick from, can be null
+     *
+     * @return A known element or null if there are no known elements in the category
+     */
+    private Element pick(Category category)
+    {
+        if (category == null) return null;
+        Candidates inCategory = candidates.get(category);
+        // If the known elements changed since the array was made: make a new array
+        if (inCategory == null || inCategory.changes != category.getChanges())
+        {
+            inCategory = new Candidates(category);
+            candidates.put(category, inCategory);
+        }
+        // If there are no known elements: there is nothing to pick
+        if (inCategory.known.length == 0) return null;
+        return inCategory.known[game.getRandom().nextInt(inCategory.known.length)];
+    }
+    
+    /**
+     * The known elements of a category at the moment it was last changed
+     */
+    private static class Candidates
+    {
+        private final int changes;
+        private final Element[] known;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param category The category to take the known elements from
+         */
+        private Candidates(Category category)
+        {
+            changes = category.getChanges();
+            known = category.getKnown().toArray(new Element[0]);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Remembers the edits made in edit mode so they can be undone and redone.<br>
+ * An edit is stored as the code that reverses it and the code that does it again,
+ * the edits point to the same elements and categories as the game instead of keeping copies.
+ * Edits that belong together are grouped in a step, only the last steps are kept.
+ * The amount of edits kept in all the steps together is limited as well, the oldest steps are forgotten first.
+ * A step with more edits than the limit can't be undone, the steps before it are forgotten
+ * because they can't be undone without undoing it first.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class EditHistory
+{
+    private static final int DEFAULT_LIMIT = 256;
+    private static final int MAX_EDITS = 1 << 16;
+    private static final String NOTHING_TO_UNDO = "There is nothing to undo";
+    private static final String NOTHING_TO_REDO = "There is nothing to redo";
+    private static final String UNKNOWN_CHECKPOINT = "There is no checkpoint with that name";
+    private static final String CHECKPOINT_TOO_OLD = "The checkpoint is too old to go back to";
+    
+    private final ArrayDeque<ArrayList<Edit>> done, undone;
+    private final HashMap<String, Long> checkpoints;
+    private final int limit;
+    private ArrayList<Edit> current;
+    private int groups, edits;
+    private long forgotten;
+    private boolean applying, tooLarge;
+    
+    /**
+     * Constructor for the class that keeps the default amount of steps
+     */
+    public EditHistory()
+    {
+        this(DEFAULT_LIMIT);
+    }
+    
+    /**
+     * Constructor for the class
+     *
+     * @param limit The maximum amount of steps that can be undone
+     */
+    public EditHistory(int limit)
+    {
+        assert limit > 0 : "limit must be positive";
+        this.limit = limit;
+        done = new ArrayDeque<>();
+        undone = new ArrayDeque<>();
+        checkpoints = new HashMap<>();
+        current = null;
+        groups = 0;
+        edits = 0;
+        forgotten = 0;
+        applying = false;
+        tooLarge = false;
+    }
+    
+    /**
+     * Starts a step, all edits until the matching end will be undone together
+     */
+    public void begin()
+    {
+        groups++;
+    }
+    
+    /**
+     * Ends a step that was started with begin
+     */
+    public void end()
+    {
+        assert groups > 0 : "end without begin";
+        // If this doesn't end the outer step: the step goes on
+        if (--groups > 0) return;
+        // If the step had too many edits: it was not kept
+        if (tooLarge)
+        {
+            tooLarge = false;
+        }
+        // Else if the step has edits: store the step
+        else if (current != null)
+        {
+            store(current);
+        }
+        current = null;
+    }
+    
+    /**
+     * Adds an edit to the history
+     *
+     * @param undo The code that reverses the edit
+     * @param redo The code that does the edit again
+     */
+    public void record(Runnable undo, Runnable redo)
+    {
+        assert undo != null : "null undo";
+        assert redo != null : "null redo";
+        // If the edit is made by undoing or redoing: it is already in the history
+        if (applying || tooLarge) return;
+        Edit edit = new Edit(undo, redo);
+        // If there is no step started: the edit is a step on its own
+        if (groups == 0)
+        {
+            ArrayList<Edit> step = new ArrayList<>(1);
+            step.add(edit);
+            store(step);
+            return;
+        }
+        // If this is the first edit of the step: start the step
+        if (current == null)
+        {
+            current = new ArrayList<>();
+        }
+        current.add(edit);
+        // If the step has too many edits: it can't be undone, so the steps before it can't either
+        if (current.size() > MAX_EDITS)
+        {
+            forgetAll();
+            current = null;
+            tooLarge = true;
+        }
+    }
+    
+    /**
+     * Undoes the last step
+     *
+     * @throws ElementallyException When there is nothing to undo
+     */
+    public void undo() throws ElementallyException
+    {
+        // If there are no steps: there is nothing to undo
+        if (done.isEmpty())
+        {
+            throw new ElementallyException(NOTHING_TO_UNDO);
+        }
+        ArrayList<Edit> step = done.removeLast();
+        applying = true;
+        // Undo the edits in the opposite order they were made
+        try
+        {
+            for (int i = step.size() - 1; i >= 0; i--)
+            {
+                step.get(i).undo.run();
+            }
+        }
+        finally
+        {
+            applying = false;
+        }
+        undone.addLast(step);
+    }
+    
+    /**
+     * Redoes the last undone step
+     *
+     * @throws ElementallyException When there is nothing to redo
+     */
+    public void redo() throws ElementallyException
+    {
+        // If there are no undone steps: there is nothing to redo
+        if (undone.isEmpty())
+        {
+            throw new ElementallyException(NOTHING_TO_REDO);
+        }
+        ArrayList<Edit> step = undone.removeLast();
+        applying = true;
+        // Redo the edits in the order they were made
+        try
+        {
+            for (Edit edit : step)
+            {
+                edit.redo.run();
+            }
+        }
+        finally
+        {
+            applying = false;
+        }
+        done.addLast(step);
+    }
+    
+    /**
+     * Remembers the current moment under a name
+     *
+     * @param name The name of the checkpoint
+     */
+    public void checkpoint(String name)
+    {
+        assert name != null : "null name";
+        checkpoints.put(name, position());
+    }
+    
+    /**
+     * Undoes or redoes steps until the game is back at a checkpoint
+     *
+     * @param name The name of the checkpoint
+     *
+     * @throws ElementallyException When the checkpoint does not exist or is too old
+     */
+    public void revert(String name) throws ElementallyException
+    {
+        Long target = checkpoints.get(name);
+        // If the checkpoint does not exist: it can't be reverted to
+        if (target == null)
+        {
+            throw new ElementallyException(UNKNOWN_CHECKPOINT);
+        }
+        // If the steps before the checkpoint are forgotten: it can't be reverted to
+        if (target < forgotten)
+        {
+            throw new ElementallyException(CHECKPOINT_TOO_OLD);
+        }
+        // Undo steps until the checkpoint is reached
+        while (position() > target)
+        {
+            undo();
+        }
+        // Redo steps until the checkpoint is reached
+        while (position() < target)
+        {
+            redo();
+        }
+    }
+    
+    /**
+     * Forgets all the steps and checkpoints, a step that was begun stays open until it is ended
+     */
+    public void clear()
+    {
+        done.clear();
+        undone.clear();
+        checkpoints.clear();
+        current = null;
+        edits = 0;
+        forgotten = 0;
+        tooLarge = false;
+    }
+    
+    /**
+     * @return The amount of steps that were made since the start, including the forgotten steps
+     */
+    private long position()
+    {
+        return forgotten + done.size();
+    }
+    
+    /**
+     * Stores a finished step, forgets the undone steps and the oldest steps when there are too many steps or edits
+     *
+     * @param step The finished step, with at most the maximum amount of edits
+     */
+    private void store(ArrayList<Edit> step)
+    {
+        forgetUndone();
+        done.addLast(step);
+        edits += step.size();
+        // If there are too many steps or edits: forget the oldest
+        while (done.size() > limit || edits > MAX_EDITS)
+        {
+            edits -= done.removeFirst().size();
+            forgotten++;
+        }
+    }
+    
+    /**
+     * Forgets every step, including the step that is being made, checkpoints before it become too old
+     */
+    private void forgetAll()
+    {
+        forgetUndone();
+        // The step that is being made counts as forgotten
+        forgotten = position() + 1;
+        done.clear();
+        edits = 0;
+    }
+    
+    /**
+     * Forgets the undone steps and the checkpoints that were made in them
+     */
+    private void forgetUndone()
+    {
+        // Forget the edits of every undone step
+        for (ArrayList<Edit> step : undone)
+        {
+            edits -= step.size();
+        }
+        undone.clear();
+        long position = position();
+        Iterator<Map.Entry<String, Long>> iterator = checkpoints.entrySet().iterator();
+        // Forget the checkpoints that were made in the undone steps
+        while (iterator.hasNext())
+        {
+            // If the checkpoint is after the current moment: it can't be reached anymore
+            if (iterator.next().getValue() > position)
+            {
+                iterator.remove();
+            }
+        }
+    }
+    
+    /**
+     * A single edit with the code to undo and redo it
+     */
+    private static class Edit
+    {
+        private final Runnable undo, redo;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param undo The code that reverses the edit
+         * @param redo The code that does the edit again
+         */
+        private Edit(Runnable undo, Runnable redo)
+        {
+            this.undo = undo;
+            this.redo = redo;
+        }
+    }
+}
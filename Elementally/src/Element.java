@@ -1,4 +1,6 @@
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created for elementally
@@ -9,13 +11,17 @@ import java.util.ArrayList;
  */
 public class Element
 {
-    private static int highestId = 0;
+    private static final AtomicInteger highestId = new AtomicInteger();
+    private static final int LOOKUP_THRESHOLD = 16;
+    private static volatile int progressEpoch = 0;
     
-    private final int id;
-    private String name;
+    private int id;
+    private int name;
     private ArrayList<String> quizedRecipes, knownRecipes, unknownRecipes;
+    private HashSet<String> learnedLookup;
     private Category category;
-    private boolean basic;
+    private boolean basic, changed;
+    private int epoch;
     
     /**
      * Simple constructor the class
@@ -24,7 +30,7 @@ public class Element
      */
     public Element(String name)
     {
-        this(name, ++highestId, false);
+        this(name, highestId.incrementAndGet(), false);
     }
     
     /**
@@ -38,19 +44,193 @@ public class Element
     public Element(String name, int id, boolean basic)
     {
         assert name != null : "null name";
-        this.name = name;
+        this.name = NameArena.getInstance().intern(name);
         quizedRecipes = new ArrayList<>();
         knownRecipes = new ArrayList<>();
         unknownRecipes = new ArrayList<>();
         this.id = id;
         this.basic = basic;
         category = null;
+        epoch = progressEpoch;
+        changed = false;
         
-        // If the id is higher then the highest id: update the highest id
-        if (id > highestId)
+        // Update the highest id, elements can be created on several threads while loading
+        highestId.accumulateAndGet(id, Math::max);
+    }
+    
+    /**
+     * Constructor for copying an element from a StartStateTemplate, the name is already in the NameArena
+     *
+     * @param name           The number of the name in the NameArena
+     * @param id             The id of the element
+     * @param basic          True if the element is a basic element
+     * @param quizedRecipes  The recipes that were quized, the list is used by the element
+     * @param knownRecipes   The recipes that are known, the list is used by the element
+     * @param unknownRecipes The recipes that are unknown, the list is used by the element
+     */
+    Element(int name, int id, boolean basic, ArrayList<String> quizedRecipes, ArrayList<String> knownRecipes,
+            ArrayList<String> unknownRecipes)
+    {
+        this.name = name;
+        this.id = id;
+        this.basic = basic;
+        this.quizedRecipes = quizedRecipes;
+        this.knownRecipes = knownRecipes;
+        this.unknownRecipes = unknownRecipes;
+        category = null;
+        epoch = progressEpoch;
+        changed = false;
+        highestId.accumulateAndGet(id, Math::max);
+    }
+    
+    /**
+     * Simple getter for the current progress epoch, progress from an older epoch counts as forgotten
+     *
+     * @return The current epoch
+     */
+    public static int getProgressEpoch()
+    {
+        return progressEpoch;
+    }
+    
+    /**
+     * Forgets the progress of every element and category at once by starting a new epoch.<br>
+     * Every element and category moves its known recipes and elements back the first time it is used afterwards
+     */
+    static void forgetAllProgress()
+    {
+        progressEpoch++;
+    }
+    
+    /**
+     * Keeps the progress of this element in the current epoch, used for the nothing element which is never forgotten
+     */
+    void keepProgress()
+    {
+        epoch = progressEpoch;
+    }
+    
+    /**
+     * Sets the epoch the progress of this element belongs to, used when the element was read from an older safe file
+     *
+     * @param epoch The progress epoch
+     */
+    void setEpoch(int epoch)
+    {
+        this.epoch = epoch;
+    }
+    
+    /**
+     * Makes all the recipes unknown when the progress was forgotten since the last time
+     */
+    private void refresh()
+    {
+        // If the recipes belong to the current epoch: they are still valid
+        if (epoch == progressEpoch) return;
+        epoch = progressEpoch;
+        // If there are known or quized recipes: unlearn them
+        if (!quizedRecipes.isEmpty() || !knownRecipes.isEmpty())
+        {
+            unknownRecipes.addAll(quizedRecipes);
+            unknownRecipes.addAll(knownRecipes);
+            quizedRecipes.clear();
+            knownRecipes.clear();
+            learnedLookup = null;
+        }
+    }
+    
+    /**
+     * Remembers that the line of this element is different from the saved line.<br>
+     * An element in a category makes the category dirty, an element without a category like nothing remembers it itself
+     */
+    private void changed()
+    {
+        // If the element is in a category: the whole category is saved again
+        if (category != null)
+        {
+            category.markDirty();
+        }
+        else
+        {
+            changed = true;
+        }
+    }
+    
+    /**
+     * Checks if an element without a category changed since it was saved or loaded
+     *
+     * @return True if the line of the element should be saved again
+     */
+    public boolean isChanged()
+    {
+        return changed;
+    }
+    
+    /**
+     * Remembers that the line of an element without a category is saved
+     */
+    void markSaved()
+    {
+        changed = false;
+    }
+    
+    /**
+     * Simple getter for the highest id that is given to an element
+     *
+     * @return The highest id
+     */
+    public static int getHighestId()
+    {
+        return highestId.get();
+    }
+    
+    /**
+     * Gives this element a new id and rewrites its recipes to the new ids.<br>
+     * Should only be used by the ElementCooker when it makes the ids dense
+     *
+     * @param newIds The new id for every old id, -1 for ids that don't exist anymore
+     *
+     * @return The amount of recipes that were dropped because an ingredient does not exist
+     */
+    int renumber(int[] newIds)
+    {
+        assert newIds != null : "null ids";
+        refresh();
+        changed();
+        id = newIds[id];
+        highestId.accumulateAndGet(id, Math::max);
+        learnedLookup = null;
+        return renumberRecipes(quizedRecipes, newIds) +
+               renumberRecipes(knownRecipes, newIds) +
+               renumberRecipes(unknownRecipes, newIds);
+    }
+    
+    /**
+     * Helper method for renumbering recipes
+     *
+     * @param recipes The recipes that should get the new ids
+     * @param newIds  The new id for every old id, -1 for ids that don't exist anymore
+     *
+     * @return The amount of recipes that were dropped
+     */
+    private int renumberRecipes(ArrayList<String> recipes, int[] newIds)
+    {
+        int kept = 0;
+        // Rewrite every recipe and keep the ones with existing ingredients at the front
+        for (String recipe : recipes)
         {
-            highestId = id;
+            int[] ingredients = ElementCooker.splitKey(recipe);
+            int first = ingredients[0] < newIds.length ? newIds[ingredients[0]] : -1;
+            int second = ingredients[1] < newIds.length ? newIds[ingredients[1]] : -1;
+            // If both ingredients still exist: keep the recipe
+            if (first != -1 && second != -1)
+            {
+                recipes.set(kept++, first + "," + second);
+            }
         }
+        int dropped = recipes.size() - kept;
+        recipes.subList(kept, recipes.size()).clear();
+        return dropped;
     }
     
     /**
@@ -58,7 +238,7 @@ public class Element
      */
     public static void resetCounter()
     {
-        highestId = 0;
+        highestId.set(0);
     }
     
     /**
@@ -145,7 +325,9 @@ public class Element
      */
     public void addRecipe(String toAdd)
     {
+        refresh();
         unknownRecipes.add(toAdd);
+        changed();
     }
     
     /**
@@ -156,7 +338,7 @@ public class Element
     @Override
     public String toString()
     {
-        return "[" + id + ". " + name + "]";
+        return "[" + id + ". " + getName() + "]";
     }
     
     /**
@@ -175,6 +357,16 @@ public class Element
      * @return The name of the instance
      */
     public String getName()
+    {
+        return NameArena.getInstance().get(name);
+    }
+    
+    /**
+     * Simple getter for the number of the name in the NameArena, two elements have the same name when the numbers are
+     *
+     * @return The number of the name
+     */
+    public int getNameNumber()
     {
         return name;
     }
@@ -187,7 +379,8 @@ public class Element
     public void setName(String name)
     {
         assert name != null : "null name";
-        this.name = name;
+        this.name = NameArena.getInstance().intern(name);
+        changed();
     }
     
     /**
@@ -197,9 +390,21 @@ public class Element
      */
     public ArrayList<String> getKnownRecipes()
     {
+        refresh();
         return knownRecipes;
     }
     
+    /**
+     * Simple getter for the quizedRecipes
+     *
+     * @return The quizedRecipes of this instance
+     */
+    public ArrayList<String> getQuizedRecipes()
+    {
+        refresh();
+        return quizedRecipes;
+    }
+    
     /**
      * Adds the quized, known and unknown recipes in one arrayList
      *
@@ -207,12 +412,47 @@ public class Element
      */
     public ArrayList<String> getAllRecipes()
     {
+        refresh();
         ArrayList<String> output = new ArrayList<>(unknownRecipes);
         output.addAll(knownRecipes);
         output.addAll(quizedRecipes);
         return output;
     }
     
+    /**
+     * Checks if the player has learned a recipe of this element
+     *
+     * @param recipe The key of the recipe
+     *
+     * @return True if the recipe is known or quized, false if it's unknown or not a recipe of this element
+     */
+    public boolean isKnownRecipe(String recipe)
+    {
+        refresh();
+        // If there are few learned recipes: going through them is as fast as a lookup
+        if (knownRecipes.size() + quizedRecipes.size() <= LOOKUP_THRESHOLD)
+        {
+            return knownRecipes.contains(recipe) || quizedRecipes.contains(recipe);
+        }
+        // If there is no lookup yet: put the known and quized recipes in one, it's kept up to date from now on
+        if (learnedLookup == null)
+        {
+            learnedLookup = new HashSet<>(knownRecipes);
+            learnedLookup.addAll(quizedRecipes);
+        }
+        return learnedLookup.contains(recipe);
+    }
+    
+    /**
+     * Counts the recipes that create this element without copying them
+     *
+     * @return The amount of quized, known and unknown recipes
+     */
+    public int getRecipeCount()
+    {
+        return unknownRecipes.size() + knownRecipes.size() + quizedRecipes.size();
+    }
+    
     /**
      * Moves a recipe from known to quized
      *
@@ -220,7 +460,14 @@ public class Element
      */
     public void gotQuized(String recipe)
     {
-        move(recipe, knownRecipes, quizedRecipes);
+        refresh();
+        // If the recipe was known: it can't be asked as new question anymore but gets planned for later
+        if (move(recipe, knownRecipes, quizedRecipes))
+        {
+            changed();
+            ElementCooker.getInstance().getQuizPool().remove(recipe);
+            ElementCooker.getInstance().getQuizScheduler().add(recipe);
+        }
     }
     
     /**
@@ -229,8 +476,10 @@ public class Element
      * @param toMove The String that should be moved
      * @param from   The arrayList that the string is in
      * @param to     The arrayList that the string should go in
+     *
+     * @return True if the string was in the from ArrayList
      */
-    private void move(Object toMove, ArrayList from, ArrayList to)
+    private boolean move(Object toMove, ArrayList from, ArrayList to)
     {
         assert from != null : "null ArrayList";
         assert to != null : "null ArrayList";
@@ -242,9 +491,10 @@ public class Element
             {
                 from.remove(i);
                 to.add(toMove);
-                return;
+                return true;
             }
         }
+        return false;
     }
     
     /**
@@ -255,6 +505,7 @@ public class Element
      */
     public void quizCanceled(String recipe)
     {
+        refresh();
         // Remove the string and add it to the destination
         // Starts from the back for optimization
         for (int i = quizedRecipes.size() - 1; i >= 0; i--)
@@ -264,6 +515,9 @@ public class Element
             {
                 quizedRecipes.remove(i);
                 knownRecipes.add(recipe);
+                changed();
+                ElementCooker.getInstance().addQuiz(this, recipe);
+                ElementCooker.getInstance().getQuizScheduler().forget(recipe);
                 return;
             }
         }
@@ -276,30 +530,58 @@ public class Element
      */
     public void learnRecipe(String recipe)
     {
-        move(recipe, unknownRecipes, knownRecipes);
+        refresh();
+        // If the recipe was unknown: it can be asked from now on
+        if (move(recipe, unknownRecipes, knownRecipes))
+        {
+            // If there is a lookup of the learned recipes: add the recipe to it
+            if (learnedLookup != null)
+            {
+                learnedLookup.add(recipe);
+            }
+            changed();
+            ElementCooker.getInstance().addQuiz(this, recipe);
+            ElementCooker.getInstance().getSolver().recipeLearned(recipe, this);
+        }
     }
     
     /**
-     * Unlearn all recipes
+     * Removes a recipe from the element
+     *
+     * @param recipe The recipe that should be removed
      */
-    public void unLearnAllRecipes()
+    public void removeRecipe(String recipe)
     {
-        unknownRecipes.addAll(quizedRecipes);
-        unknownRecipes.addAll(knownRecipes);
-        quizedRecipes = new ArrayList<>();
-        knownRecipes = new ArrayList<>();
+        refresh();
+        // If the recipe was quized: stop planning it
+        if (removeRecipeFrom(recipe, quizedRecipes))
+        {
+            forgetLearned(recipe);
+            ElementCooker.getInstance().getQuizScheduler().forget(recipe);
+            return;
+        }
+        // If the recipe was known: it can't be asked anymore
+        if (removeRecipeFrom(recipe, knownRecipes))
+        {
+            forgetLearned(recipe);
+            ElementCooker.getInstance().getQuizPool().remove(recipe);
+            return;
+        }
+        removeRecipeFrom(recipe, unknownRecipes);
     }
     
     /**
-     * Removes a recipe from the element
+     * Removes a recipe from the lookup of the learned recipes when there is one
      *
-     * @param recipe The recipe that should be removed
+     * @param recipe The recipe that is not known or quized anymore
      */
-    public void removeRecipe(String recipe)
+    private void forgetLearned(String recipe)
     {
-        if (removeRecipeFrom(recipe, quizedRecipes)) return;
-        if (removeRecipeFrom(recipe, knownRecipes)) return;
-        removeRecipeFrom(recipe, unknownRecipes);
+        // If there is a lookup of the learned recipes: remove the recipe from it
+        if (learnedLookup != null)
+        {
+            learnedLookup.remove(recipe);
+        }
     }
     
     /**
@@ -321,6 +603,7 @@ public class Element
             if (knownRecipes.get(i).equals(recipe))
             {
                 knownRecipes.remove(i);
+                changed();
                 return true;
             }
         }
@@ -335,7 +618,7 @@ public class Element
     public String exportLine()
     {
         String known = basic ? "b" : isKnown() ? "k" : "u";
-        return known + ";" + id + ";" + name + ";" + getRecipesString();
+        return known + ";" + id + ";" + getName() + ";" + getRecipesString();
     }
     
     /**
@@ -355,11 +638,12 @@ public class Element
      */
     private String getRecipesString()
     {
+        refresh();
         StringBuilder output = new StringBuilder();
         output.append("q;");
         for (String recipe : quizedRecipes)
         {
-            output.append(recipe);
+            output.append(recipe).append(";");
         }
         output.append("k;");
         for (String recipe : knownRecipes)
@@ -386,6 +670,7 @@ public class Element
     
     public ArrayList<String> getUnknownRecipes()
     {
+        refresh();
         return unknownRecipes;
     }
 }
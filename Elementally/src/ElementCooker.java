@@ -1,5 +1,11 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
 
 /**
  * Created for elementally
@@ -14,28 +20,87 @@ public class ElementCooker
     
     private static final ElementCooker instance = new ElementCooker();
     private static final String ALL_COMBINATIONS_FILLED_ERROR = "All combinations are filled in";
-    private static final String NO_ARGUMENTS_ERROR = "Line must contain arguments";
-    private static final String INVALID_ARGUMENT_AMOUNT_CATEGORY = "Category must have two arguments";
-    private static final String NO_CATEGORY_SPECIFIED = "no category specified for element";
     private static final String NO_QUIZABLE_ELEMENTS = "No quizable elements";
     private static final String NO_NEXT_ELEMENT = "No element found";
     private static final String COULD_NOT_RESTART_ERROR = "Default state could not be loaded";
+    private static final String ELEMENT_KIND = "element";
+    private static final String CATEGORY_KIND = "category";
     
     private Element nothing;
     private ArrayList<Category> unknownCategories, knownCategories;
     private ArrayList<Category>[] allCategories;
     private HashMap<String, Element> recipes;
+    private CraftingSolver solver;
+    private IngredientIndex ingredients;
+    private NameIndex names;
+    private QuizPool quizPool;
+    private QuizScheduler quizScheduler;
+    private DistractorGenerator distractors;
+    private EditHistory history;
+    private ProgressiveLoader loading;
+    private SplittableRandom random;
+    private Metrics metrics;
+    private StartStateTemplate startTemplate;
+    private long seed;
+    private int generation, knownElementCount, recipeCount;
     
     /**
      * Constructor for the class
      */
     private ElementCooker()
     {
+        metrics = new Metrics();
+        history = new EditHistory();
+        generation = 0;
         initGlobals();
+        setSeed(new SplittableRandom().nextLong());
     }
     
     /**
-     * Initializes the non static global variables
+     * Starts a new random generator, the random choices will be the same for every game with the same seed
+     *
+     * @param seed The seed for the random generator
+     */
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+    }
+    
+    /**
+     * Simple getter for the seed of the random generator
+     *
+     * @return The seed the random generator was started with
+     */
+    public long getSeed()
+    {
+        return seed;
+    }
+    
+    /**
+     * Simple getter for the generation of the game, it goes up every time a safe file is loaded or the game is reset.<br>
+     * A safe file only knows the categories of the generation it was loaded or saved in
+     *
+     * @return The generation of the game
+     */
+    public int getGeneration()
+    {
+        return generation;
+    }
+    
+    /**
+     * Simple getter for the random generator, all random choices of the game should use it
+     *
+     * @return The random generator of this session
+     */
+    public SplittableRandom getRandom()
+    {
+        return random;
+    }
+    
+    /**
+     * Initializes the non static global variables, the edit history is emptied instead of replaced
+     * because a step of it can be going on while the game is reset
      */
     private void initGlobals()
     {
@@ -44,6 +109,15 @@ public class ElementCooker
         knownCategories = new ArrayList<>();
         allCategories = new ArrayList[]{knownCategories, unknownCategories};
         nothing = new Element(NOTHING_NAME, 0, true);
+        ingredients = new IngredientIndex(this);
+        names = new NameIndex(this);
+        solver = new CraftingSolver(this);
+        quizPool = new QuizPool();
+        quizScheduler = new QuizScheduler();
+        distractors = new DistractorGenerator(this);
+        history.clear();
+        recipeCount = 0;
+        publishSizes();
     }
     
     /**
@@ -66,11 +140,18 @@ public class ElementCooker
         // If the elements should be removed: remove them and go back to the first four elements
         if (removeElements)
         {
+            finishLoading();
             try
             {
+                StartStateTemplate template = getStartTemplate(); // Throws ElementallyException
                 initGlobals();
+                generation++;
                 Element.resetCounter();
-                loadDataFrom(StartState.startState); // Throws ElementallyException
+                // Add the copied chunks in the order of the start state
+                for (SafeFileLoader.Chunk chunk : template.instantiate())
+                {
+                    install(chunk);
+                }
             }
             catch (ElementallyException eEx)
             {
@@ -80,13 +161,78 @@ public class ElementCooker
         // Else: unlearn all the elements
         else
         {
-            ArrayList<Category> nonChangingKnownCategories = new ArrayList<>(knownCategories);
-            // Go through every category and unlearn all elements
-            for (Category category : nonChangingKnownCategories)
+            forgetProgress(true);
+        }
+    }
+    
+    /**
+     * Unlearns all the elements by starting a new epoch, the elements forget their progress when they are used.<br>
+     * Categories that are still loading are added with the progress of the new epoch
+     *
+     * @param keepNothing True if the recipes of the nothing element should stay known
+     */
+    public void forgetProgress(boolean keepNothing)
+    {
+        Element.forgetAllProgress();
+        quizPool = new QuizPool();
+        quizScheduler.clear();
+        names.forgotten();
+        // If the nothing element keeps its progress: keep its recipes, they are never asked in a quiz
+        if (keepNothing)
+        {
+            nothing.keepProgress();
+        }
+        ArrayList<Category> stillKnown = new ArrayList<>();
+        // Only the categories with basic elements stay known
+        for (Category category : knownCategories)
+        {
+            // If the category has a basic element: keep it known, else unlearn it
+            if (category.hasBasic())
             {
-                category.unlearnAllElements();
+                stillKnown.add(category);
+            }
+            else
+            {
+                unknownCategories.add(category);
             }
         }
+        knownCategories.clear();
+        knownCategories.addAll(stillKnown);
+        solver.invalidate();
+        history.clear();
+        publishSizes();
+    }
+    
+    /**
+     * Simple getter for the start state the game is reset to, the standard start state is read the first time
+     *
+     * @return The template of the start state
+     * @throws ElementallyException When the standard start state could not be read
+     */
+    public StartStateTemplate getStartTemplate() throws ElementallyException
+    {
+        // If no start state is chosen yet: use the standard start state
+        if (startTemplate == null)
+        {
+            setStartTemplate(StartStateTemplate.getStandard()); // Throws ElementallyException
+        }
+        return startTemplate;
+    }
+    
+    /**
+     * Changes the start state the game is reset to
+     *
+     * @param startTemplate The template of the new start state
+     */
+    public void setStartTemplate(StartStateTemplate startTemplate)
+    {
+        assert startTemplate != null : "null template";
+        this.startTemplate = startTemplate;
+        // If a line of the start state has a incorrect format: let the player know once
+        for (String error : startTemplate.getErrors())
+        {
+            System.err.println(error);
+        }
     }
     
     /**
@@ -99,72 +245,174 @@ public class ElementCooker
     public void loadDataFrom(String dataLine) throws ElementallyException
     {
         assert dataLine != null : "null line";
-        String[] data = dataLine.split("\n");
-        int lineNumber = 0;
-        Category lastCategory = null;
-        // Import the data from all the lines
-        while (lineNumber < data.length)
+        finishLoading();
+        generation++;
+        GameEvents.LoadEvent event = new GameEvents.LoadEvent();
+        event.begin();
+        ArrayList<SafeFileLoader.Chunk> chunks = SafeFileLoader.parseAll(dataLine);
+        // Add the chunks in the order they are in the file
+        for (SafeFileLoader.Chunk chunk : chunks)
         {
-            // Import data from a line
-            try
+            install(chunk);
+        }
+        solver.invalidate();
+        history.clear();
+        event.end();
+        // If the load is recorded: count what was loaded
+        if (event.shouldCommit())
+        {
+            fillLoadEvent(event, dataLine, chunks, false);
+            event.commit();
+        }
+    }
+    
+    /**
+     * Loads the nothing element and the categories with known elements from a String,
+     * the other categories are loaded in the background and added when they are needed
+     *
+     * @param dataLine The line with all the data
+     */
+    public void loadProgressively(String dataLine)
+    {
+        assert dataLine != null : "null line";
+        finishLoading();
+        generation++;
+        GameEvents.LoadEvent event = new GameEvents.LoadEvent();
+        event.begin();
+        loading = new ProgressiveLoader(this, dataLine);
+        event.end();
+        // If the load is recorded: count what was loaded straight away
+        if (event.shouldCommit())
+        {
+            fillLoadEvent(event, dataLine, new ArrayList<>(), true);
+            event.lines -= loading.getPendingLines();
+            event.commit();
+        }
+        // If there was nothing to load in the background: the loading is done
+        if (loading.isDone())
+        {
+            loading = null;
+        }
+        history.clear();
+    }
+    
+    /**
+     * Fills in the fields of a load event
+     *
+     * @param event       The event to fill in
+     * @param dataLine    The data that was loaded
+     * @param chunks      The chunks that were loaded, can be empty when the lines should be counted from the data
+     * @param progressive True if only the known categories were loaded straight away
+     */
+    private void fillLoadEvent(GameEvents.LoadEvent event, String dataLine, ArrayList<SafeFileLoader.Chunk> chunks,
+                               boolean progressive)
+    {
+        event.characters = dataLine.length();
+        event.categories = getCategoryCount();
+        event.recipes = recipes.size();
+        event.progressive = progressive;
+        // Count the lines of every chunk
+        for (SafeFileLoader.Chunk chunk : chunks)
+        {
+            event.lines += chunk.getLines();
+        }
+        // If there are no chunks: count the lines in the data
+        if (chunks.isEmpty())
+        {
+            // Count every line break
+            for (int i = 0; i < dataLine.length(); i++)
             {
-                String[] components = data[lineNumber].split(";");
-                // If there are no arguments to read: throw an error
-                if (components.length == 0)
-                {
-                    throw new ElementallyException(NO_ARGUMENTS_ERROR);
-                }
-                // If the line contains a category: add the category
-                if (components[0].equals("c"))
-                {
-                    if (components.length != 2) throw new ElementallyException(INVALID_ARGUMENT_AMOUNT_CATEGORY);
-                    lastCategory = new Category(components[1]);
-                    addCategory(lastCategory);
-                }
-                // If there is a last category to add elements to: add it
-                else
-                {
-                    Element loaded = Element.parseLine(data[lineNumber]); // Throws ElementallyException
-                    // If a category is specified: add the element to that category
-                    if (lastCategory != null)
-                    {
-                        lastCategory.addElement(loaded);
-                        // If the element is known: learn it
-                        if (components[0].equals("k"))
-                        {
-                            lastCategory.learn(loaded);
-                        }
-                    }
-                    // Check if the element is the nothing element
-                    else
-                    {
-                        // If the element is nothing: replace the element
-                        if (loaded.getName().equals(NOTHING_NAME))
-                        {
-                            nothing = loaded;
-                        }
-                        // No category specified: throw an exception
-                        else
-                        {
-                            throw new ElementallyException(NO_CATEGORY_SPECIFIED);
-                        }
-                    }
-                    // Add all the recipes to the recipe map
-                    for (String recipe : loaded.getAllRecipes())
-                    {
-                        recipes.put(recipe, loaded);
-                    }
-                }
+                if (dataLine.charAt(i) == '\n') event.lines++;
             }
-            // If a line has a incorrect format: let the player know
-            catch (ElementallyException eEx)
+        }
+    }
+    
+    /**
+     * Adds the categories that were loaded in the background since the last time, without waiting for the others
+     */
+    public void installLoaded()
+    {
+        // If the game is still loading: add what is ready
+        if (loading != null)
+        {
+            loading.installReady();
+            // If everything is loaded: stop loading
+            if (loading.isDone())
             {
-                System.err.println("line" + (lineNumber + 1) + ": " + eEx.getMessage());
+                loading = null;
             }
-            lineNumber++;
         }
     }
     
+    /**
+     * Waits until every category that is loaded in the background is added
+     */
+    private void finishLoading()
+    {
+        // If the game is still loading: wait for all the categories
+        if (loading != null)
+        {
+            loading.awaitAll();
+            loading = null;
+        }
+    }
+    
+    /**
+     * Adds a chunk that was read by the SafeFileLoader to the game
+     *
+     * @param chunk The read chunk
+     */
+    void install(SafeFileLoader.Chunk chunk)
+    {
+        assert chunk != null : "null chunk";
+        // If a line has a incorrect format: let the player know
+        for (String error : chunk.getErrors())
+        {
+            System.err.println(error);
+        }
+        // If the element is nothing: replace the element
+        if (chunk.getNothing() != null)
+        {
+            nothing = chunk.getNothing();
+            nothing.markSaved();
+            addQuizzes(nothing);
+        }
+        // If the chunk is a category: add the category with all its elements
+        if (chunk.getCategoryName() != null)
+        {
+            Category category = new Category(chunk.getCategoryName());
+            category.addSorted(chunk.getElements(), chunk.getKnown(), chunk.getEpoch());
+            // The category is the same as the lines it was read from until it changes
+            category.markSaved(chunk.getIndex());
+            addCategory(category);
+        }
+        // Add every recipe of the chunk, a later recipe replaces an earlier one
+        for (Map.Entry<String, Element> recipe : chunk.getRecipes().entrySet())
+        {
+            Element previous = recipes.put(recipe.getKey(), recipe.getValue());
+            countRecipe(previous, recipe.getValue());
+            // If the recipe is new: add it to its ingredients, a replaced recipe is already there
+            if (previous == null && recipe.getValue() != null)
+            {
+                ingredients.added(recipe.getKey());
+            }
+        }
+        // If the element is nothing: put it in the id lookup
+        if (chunk.getNothing() != null)
+        {
+            ingredients.elementAdded(nothing);
+        }
+        // Add the known recipes of every element to the quizzes and the element to the indexes
+        for (Element element : chunk.getElements())
+        {
+            addQuizzes(element);
+            ingredients.elementAdded(element);
+            names.added(element);
+        }
+        solver.invalidate();
+        publishSizes();
+    }
+    
     /**
      * Adds a category to this class
      *
@@ -186,100 +434,848 @@ public class ElementCooker
     }
     
     /**
-     * Creates a combination of known and unknown categories
+     * Adds an element to a category and adds the category when it isn't in the game yet
+     *
+     * @param element  The element to add
+     * @param category The category the element should be added to
+     */
+    public void addElement(Element element, Category category)
+    {
+        finishLoading();
+        addElement(element, category, false);
+    }
+    
+    /**
+     * Adds an element to a category and adds the category when it isn't in the game yet
+     *
+     * @param element  The element to add
+     * @param category The category the element should be added to
+     * @param learn    True if the element should be known in the category
+     */
+    private void addElement(Element element, Category category, boolean learn)
+    {
+        assert element != null : "null element";
+        assert category != null : "null category";
+        boolean newCategory = !knownCategories.contains(category) && !unknownCategories.contains(category);
+        category.addElement(element);
+        // If the element should be known: learn it
+        if (learn)
+        {
+            category.learn(element);
+        }
+        // If the category is new: add it
+        if (newCategory)
+        {
+            addCategory(category);
+        }
+        ingredients.elementAdded(element);
+        names.added(element);
+        solver.invalidate();
+        publishSizes();
+        history.record(() -> takeOut(element, category),
+                       () -> addElement(element, category, learn));
+    }
+    
+    /**
+     * Takes an element out of a category without touching its recipes, the category is removed when it's empty
+     *
+     * @param element  The element to take out
+     * @param category The category the element is in
+     */
+    private void takeOut(Element element, Category category)
+    {
+        category.remove(element);
+        ingredients.elementRemoved(element);
+        names.removed(element);
+        // If the category is empty: remove it
+        if (category.getContaining().isEmpty())
+        {
+            knownCategories.remove(category);
+            unknownCategories.remove(category);
+        }
+        // Else if there are no known elements left: unlearn the category
+        else if (category.getKnown().isEmpty())
+        {
+            unlearn(category);
+        }
+        solver.invalidate();
+        publishSizes();
+    }
+    
+    /**
+     * Moves an element to an other category, a known element stays known
+     *
+     * @param element  The element to move
+     * @param category The category the element should be moved to
+     */
+    public void move(Element element, Category category)
+    {
+        assert element != null : "null element";
+        assert category != null : "null category";
+        boolean known = element.isKnown();
+        history.begin();
+        remove(element, false);
+        addElement(element, category, known);
+        history.end();
+    }
+    
+    /**
+     * Renames an element
+     *
+     * @param element The element to rename
+     * @param name    The new name of the element
+     */
+    public void rename(Element element, String name)
+    {
+        assert element != null : "null element";
+        assert name != null : "null name";
+        String oldName = element.getName();
+        setName(element, name);
+        history.record(() -> setName(element, oldName),
+                       () -> setName(element, name));
+    }
+    
+    /**
+     * Gives an element a new name and keeps the name index up to date
+     *
+     * @param element The element to rename
+     * @param name    The new name of the element
+     */
+    private void setName(Element element, String name)
+    {
+        names.removed(element);
+        element.setName(name);
+        names.added(element);
+    }
+    
+    /**
+     * Renames a category
+     *
+     * @param category The category to rename
+     * @param name     The new name of the category
+     */
+    public void rename(Category category, String name)
+    {
+        assert category != null : "null category";
+        assert name != null : "null name";
+        String oldName = category.getName();
+        category.setName(name);
+        history.record(() -> category.setName(oldName),
+                       () -> category.setName(name));
+    }
+    
+    /**
+     * Simple getter for the history of the edits
+     *
+     * @return The edit history of this game
+     */
+    public EditHistory getHistory()
+    {
+        return history;
+    }
+    
+    /**
+     * Creates a combination of known and unknown categories
+     *
+     * @return An ArrayList with all the categories
+     */
+    public ArrayList<Category> getAllCategories()
+    {
+        finishLoading();
+        return getLoadedCategories();
+    }
+    
+    /**
+     * Creates a combination of the known and unknown categories that are loaded, without waiting for the others.<br>
+     * Every known category is loaded straight away, the others are added to the indexes when they are loaded
+     *
+     * @return An ArrayList with the loaded categories
+     */
+    ArrayList<Category> getLoadedCategories()
+    {
+        ArrayList<Category> allCategories = new ArrayList<>(knownCategories);
+        allCategories.addAll(unknownCategories);
+        return allCategories;
+    }
+    
+    /**
+     * Adds a recipe
+     *
+     * @param elementId1      The first id of the element that will make up the recipe
+     * @param elementId2      The second id of the element that will make up the recipe
+     * @param existingElement The result of the recipe
+     */
+    public void addRecipe(int elementId1, int elementId2, Element existingElement)
+    {
+        assert existingElement != null : "null element";
+        finishLoading();
+        GameEvents.RecipeEvent event = new GameEvents.RecipeEvent();
+        event.begin();
+        history.begin();
+        Element previous = putRecipe(elementId1, elementId2, existingElement);
+        boolean removed = false;
+        // Todo: Search for infinite loops
+        // If there are no recipes left for the previous element and it's not basic: remove it
+        if (previous != null && previous.getRecipeCount() == 0 && !previous.isBasic())
+        {
+            remove(previous, true);
+            removed = true;
+        }
+        history.end();
+        event.end();
+        // If the change is recorded: fill in the recipe
+        if (event.shouldCommit())
+        {
+            event.element1 = elementId1;
+            event.element2 = elementId2;
+            event.result = existingElement.getId();
+            event.previous = previous == null ? GameEvents.NO_ELEMENT : previous.getId();
+            event.removed = removed;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Adds a recipe without removing the element that had the recipe before
+     *
+     * @param elementId1      The first id of the element that will make up the recipe
+     * @param elementId2      The second id of the element that will make up the recipe
+     * @param existingElement The result of the recipe
+     *
+     * @return The element that had the recipe before or null if the recipe is new
+     */
+    Element putRecipe(int elementId1, int elementId2, Element existingElement)
+    {
+        assert existingElement != null : "null element";
+        String key = getKey(elementId1, elementId2);
+        existingElement.addRecipe(key);
+        Element previous = setRecipe(key, existingElement);
+        history.record(() -> undoRecipe(key, existingElement, previous),
+                       () -> putRecipe(elementId1, elementId2, existingElement));
+        // If the recipe is new: only costs can go down
+        if (previous == null)
+        {
+            solver.recipeAdded(key, existingElement);
+        }
+        // If there already was an element in that position: take the recipe from that element
+        else
+        {
+            solver.invalidate();
+            previous.removeRecipe(key);
+        }
+        return previous;
+    }
+    
+    /**
+     * Removes a recipe without removing the element that had the recipe
+     *
+     * @param elementId1 The first id of the element that makes up the recipe
+     * @param elementId2 The second id of the element that makes up the recipe
+     *
+     * @return The element that had the recipe or null if the recipe did not exist
+     */
+    Element takeRecipe(int elementId1, int elementId2)
+    {
+        String key = getKey(elementId1, elementId2);
+        Element previous = dropRecipe(key);
+        // If the recipe did not exist: there is nothing to take
+        if (previous == null) return null;
+        previous.removeRecipe(key);
+        solver.invalidate();
+        history.record(() -> undoRecipe(key, null, previous),
+                       () -> takeRecipe(elementId1, elementId2));
+        return previous;
+    }
+    
+    /**
+     * Sets the element a recipe creates and keeps the ingredient index up to date
+     *
+     * @param key    The key of the recipe
+     * @param result The element the recipe creates
+     *
+     * @return The element that had the recipe before or null if the recipe is new
+     */
+    private Element setRecipe(String key, Element result)
+    {
+        Element previous = recipes.put(key, result);
+        // If the recipe did not create anything before: its ingredients are used for it now
+        if (previous == null)
+        {
+            ingredients.added(key);
+        }
+        countRecipe(previous, result);
+        metrics.publishRecipes(recipes.size(), recipeCount);
+        return previous;
+    }
+    
+    /**
+     * Removes a recipe and keeps the ingredient index up to date
+     *
+     * @param key The key of the recipe
+     *
+     * @return The element that had the recipe or null if the recipe did not create anything
+     */
+    private Element dropRecipe(String key)
+    {
+        Element previous = recipes.remove(key);
+        // If the recipe created something: its ingredients are not used for it anymore
+        if (previous != null)
+        {
+            ingredients.removed(key);
+        }
+        countRecipe(previous, null);
+        metrics.publishRecipes(recipes.size(), recipeCount);
+        return previous;
+    }
+    
+    /**
+     * Starts a batch of recipe changes, elements without recipes are only removed when the batch is committed
+     *
+     * @return The new batch
+     */
+    public RecipeBatch startBatch()
+    {
+        finishLoading();
+        return new RecipeBatch(this);
+    }
+    
+    /**
+     * Reverses adding a recipe
+     *
+     * @param key      The key of the recipe
+     * @param added    The element the recipe was added to, can be null
+     * @param previous The element that had the recipe before, can be null
+     */
+    private void undoRecipe(String key, Element added, Element previous)
+    {
+        // If the recipe was added to an element: take it back
+        if (added != null)
+        {
+            added.removeRecipe(key);
+        }
+        // If no element had the recipe: remove it
+        if (previous == null)
+        {
+            dropRecipe(key);
+        }
+        // Else: give the recipe back
+        else
+        {
+            setRecipe(key, previous);
+            previous.addRecipe(key);
+        }
+        solver.invalidate();
+    }
+    
+    /**
+     * Gets the key for the HashMap
+     *
+     * @param elementId1 The id for the first element
+     * @param elementId2 The id for the second element
+     *
+     * @return A key that can be used to get the Element from the HashMap
+     */
+    private String getKey(int elementId1, int elementId2)
+    {
+        int smallest = elementId1;
+        int largest = elementId2;
+        // If the ids are the wrong way round: switch them
+        if (elementId1 > elementId2)
+        {
+            smallest = elementId2;
+            largest = elementId1;
+        }
+        return smallest + "," + largest;
+    }
+    
+    /**
+     * Splits a key from the HashMap back into the ids of the two elements
+     *
+     * @param key A key following the format: [int id],[int id]
+     *
+     * @return An array with the two ids, the smallest first
+     */
+    public static int[] splitKey(String key)
+    {
+        assert key != null : "null key";
+        int separator = key.indexOf(',');
+        return new int[]{Integer.parseInt(key.substring(0, separator)),
+                         Integer.parseInt(key.substring(separator + 1))};
+    }
+    
+    /**
+     * Simple getter for all the recipes and the elements they create
+     *
+     * @return A map from recipe key to the created element, removed recipes map to null
+     */
+    public Map<String, Element> getRecipes()
+    {
+        finishLoading();
+        return recipes;
+    }
+    
+    /**
+     * Simple getter for the recipes of the loaded categories, without waiting for the others.<br>
+     * Every known recipe is loaded straight away, the others are added to the indexes when they are loaded
+     *
+     * @return A map from recipe key to the created element, removed recipes map to null
+     */
+    Map<String, Element> getLoadedRecipes()
+    {
+        return recipes;
+    }
+    
+    /**
+     * Simple getter for the recipes that can be asked in a quiz
+     *
+     * @return The quiz pool of this game
+     */
+    public QuizPool getQuizPool()
+    {
+        return quizPool;
+    }
+    
+    /**
+     * Simple getter for the planning of quized recipes
+     *
+     * @return The quiz scheduler of this game
+     */
+    public QuizScheduler getQuizScheduler()
+    {
+        return quizScheduler;
+    }
+    
+    /**
+     * Adds a known recipe to the quiz pool, the recipes of the nothing element are never asked
+     *
+     * @param element The element the recipe creates
+     * @param recipe  The recipe following the format: [int id],[int id]
+     */
+    void addQuiz(Element element, String recipe)
+    {
+        // If the recipe creates an element: it can be asked
+        if (element != nothing)
+        {
+            quizPool.add(element, recipe);
+        }
+    }
+    
+    /**
+     * Adds the known recipes of an element to the quiz pool and plans its quized recipes,
+     * the recipes of the nothing element are never asked
+     *
+     * @param element The element of which the recipes can be asked
+     */
+    private void addQuizzes(Element element)
+    {
+        if (element == nothing) return;
+        quizPool.addAll(element);
+        // Plan every quized recipe
+        for (String recipe : element.getQuizedRecipes())
+        {
+            quizScheduler.add(recipe);
+        }
+    }
+    
+    /**
+     * Removes the recipes of an element from the quiz pool and the quiz planning
+     *
+     * @param element The element of which the recipes can't be asked anymore
+     */
+    private void removeQuizzes(Element element)
+    {
+        quizPool.removeAll(element);
+        // Stop planning every quized recipe
+        for (String recipe : element.getQuizedRecipes())
+        {
+            quizScheduler.forget(recipe);
+        }
+    }
+    
+    /**
+     * Simple getter for the generator of wrong quiz answers
+     *
+     * @return The distractor generator of this game
+     */
+    public DistractorGenerator getDistractors()
+    {
+        return distractors;
+    }
+    
+    /**
+     * Simple getter for the nothing element, it is not in a category
+     *
+     * @return The element that failed combinations create
+     */
+    public Element getNothing()
+    {
+        return nothing;
+    }
+    
+    /**
+     * Simple getter for the metrics, they are kept when the game is reset
+     *
+     * @return The metrics of this game
+     */
+    public Metrics getMetrics()
+    {
+        return metrics;
+    }
+    
+    /**
+     * Counts the elements in every category that is added, doesn't wait for the categories that are still loading
+     *
+     * @return The amount of elements
+     */
+    public int getElementCount()
+    {
+        int amount = 0;
+        // Add the size of every category
+        for (ArrayList<Category> categories : allCategories)
+        {
+            // Add the elements of the category
+            for (Category category : categories)
+            {
+                amount += category.getContaining().size();
+            }
+        }
+        return amount;
+    }
+    
+    /**
+     * Counts the elements that are known
+     *
+     * @return The amount of known elements
+     */
+    public int getKnownElementCount()
+    {
+        int amount = 0;
+        // Only the known categories can have known elements
+        for (Category category : knownCategories)
+        {
+            amount += category.getKnown().size();
+        }
+        return amount;
+    }
+    
+    /**
+     * Counts the categories that are added, doesn't wait for the categories that are still loading
+     *
+     * @return The amount of categories
+     */
+    public int getCategoryCount()
+    {
+        return knownCategories.size() + unknownCategories.size();
+    }
+    
+    /**
+     * Simple getter for the size of the recipe map
+     *
+     * @return The amount of recipes that are added
+     */
+    public int getRecipeMapSize()
+    {
+        return recipes.size();
+    }
+    
+    /**
+     * Simple getter for the amount of recipes that create an element, other than nothing
+     *
+     * @return The amount of recipes that create an element
+     */
+    public int getRecipeCount()
+    {
+        return recipeCount;
+    }
+    
+    /**
+     * Gives the sizes of the game to the metrics, so they can be read on an other thread without looking at the game.<br>
+     * Should be called after the elements or categories changed
+     */
+    private void publishSizes()
+    {
+        knownElementCount = getKnownElementCount();
+        metrics.publishSizes(getElementCount(), knownElementCount, getCategoryCount());
+        metrics.publishRecipes(recipes.size(), recipeCount);
+    }
+    
+    /**
+     * Keeps the amount of recipes that create an element up to date when a recipe gets an other result
+     *
+     * @param previous The element the recipe created before, can be null
+     * @param result   The element the recipe creates now, can be null
+     */
+    private void countRecipe(Element previous, Element result)
+    {
+        // If the recipe created an element before: there is one less
+        if (previous != null && previous != nothing)
+        {
+            recipeCount--;
+        }
+        // If the recipe creates an element now: there is one more
+        if (result != null && result != nothing)
+        {
+            recipeCount++;
+        }
+    }
+    
+    /**
+     * Simple getter for the solver that finds the shortest way to create an element
+     *
+     * @return The crafting solver of this game
+     */
+    public CraftingSolver getSolver()
+    {
+        return solver;
+    }
+    
+    /**
+     * Simple getter for the index that finds elements by (a part of) their name.<br>
+     * The known elements are loaded straight away, so looking for them does not wait for the safe file to be loaded
+     *
+     * @param knownOnly True if only known elements will be looked for, false to wait until every element is loaded
+     *
+     * @return The name index of this game
+     */
+    public NameIndex getNameIndex(boolean knownOnly)
+    {
+        // If unknown elements will be looked for: they should all be loaded
+        if (!knownOnly)
+        {
+            finishLoading();
+        }
+        return names;
+    }
+    
+    /**
+     * Simple getter for the index of the recipes every element is an ingredient of.<br>
+     * The known recipes are loaded straight away, so looking for them does not wait for the safe file to be loaded
+     *
+     * @param knownOnly True if only known recipes will be looked for, false to wait until every recipe is loaded
+     *
+     * @return The ingredient index of this game
+     */
+    public IngredientIndex getIngredientIndex(boolean knownOnly)
+    {
+        // If unknown recipes will be looked for: they should all be loaded
+        if (!knownOnly)
+        {
+            finishLoading();
+        }
+        return ingredients;
+    }
+    
+    /**
+     * Finds every recipe an element is an ingredient of, the time taken depends on the amount found
+     *
+     * @param ingredient The element that is used
+     *
+     * @return A list of the other ingredient and the result of every recipe
+     */
+    public ArrayList<Element[]> getUses(Element ingredient)
+    {
+        return findUses(ingredient, null);
+    }
+    
+    /**
+     * Finds the known or the unknown recipes an element is an ingredient of
      *
-     * @return An ArrayList with all the categories
+     * @param ingredient The element that is used
+     * @param known      True for the recipes the player has learned, false for the ones still to find
+     *
+     * @return A list of the other ingredient and the result of every recipe
      */
-    public ArrayList<Category> getAllCategories()
+    public ArrayList<Element[]> getUses(Element ingredient, boolean known)
     {
-        ArrayList<Category> allCategories = new ArrayList<>(knownCategories);
-        allCategories.addAll(unknownCategories);
-        return allCategories;
+        return findUses(ingredient, known);
     }
     
     /**
-     * Adds a recipe
+     * Finds the recipes an element is an ingredient of
      *
-     * @param elementId1      The first id of the element that will make up the recipe
-     * @param elementId2      The second id of the element that will make up the recipe
-     * @param existingElement The result of the recipe
+     * @param ingredient The element that is used
+     * @param known      True for only the known recipes, false for only the unknown recipes, null for all
+     *
+     * @return A list of the other ingredient and the result of every recipe
      */
-    public void addRecipe(int elementId1, int elementId2, Element existingElement)
+    private ArrayList<Element[]> findUses(Element ingredient, Boolean known)
     {
-        assert existingElement != null : "null element";
-        String key = getKey(elementId1, elementId2);
-        existingElement.addRecipe(key);
-        Element previous = recipes.put(key, existingElement);
-        // If there already was an element in that position: remove the element if that was the last recipe for it
-        if (previous != null)
+        assert ingredient != null : "null element";
+        List<String> used = getIngredientIndex(Boolean.TRUE.equals(known)).getRecipes(ingredient.getId());
+        ArrayList<Element[]> uses = new ArrayList<>(used.size());
+        // Look up the other ingredient and the result of every recipe
+        for (String recipe : used)
         {
-            previous.removeRecipe(key);
-            // Todo: Search for infinite loops
-            // If there are no recipes left for that element and it's not basic: remove it
-            if (previous.getAllRecipes().isEmpty() && !previous.isBasic())
+            Element result = recipes.get(recipe);
+            // If the recipe doesn't have the wanted state: skip it
+            if (result == null || known != null && result.isKnownRecipe(recipe) != known) continue;
+            Element partner = ingredients.getElement(IngredientIndex.getPartner(recipe, ingredient.getId()));
+            // If the other ingredient exists: add the recipe
+            if (partner != null)
             {
-                remove(previous, true);
+                uses.add(new Element[]{partner, result});
             }
         }
+        return uses;
     }
     
     /**
-     * Gets the key for the HashMap
+     * Removes an element from its category and all its recipes
      *
-     * @param elementId1 The id for the first element
-     * @param elementId2 The id for the second element
+     * @param toRemove     Element that needs to be removed
+     * @param clearRecipes Indicates if the recipes resulting in this element should be forgotten as well
+     */
+    public void remove(Element toRemove, boolean clearRecipes)
+    {
+        assert toRemove != null : "null element";
+        Category category = toRemove.getCategory();
+        boolean known = toRemove.isKnown();
+        GameEvents.RemoveEvent event = new GameEvents.RemoveEvent();
+        event.begin();
+        // If the element is not in its category anymore: there is nothing to remove
+        if (category == null || !category.remove(toRemove)) return;
+        ingredients.elementRemoved(toRemove);
+        names.removed(toRemove);
+        solver.invalidate();
+        boolean emptied = category.getContaining().size() == 0;
+        // If the category is now empty: remove the category
+        if (emptied)
+        {
+            knownCategories.remove(category);
+            unknownCategories.remove(category);
+        }
+        // Else if there are no known elements left: unlearn the category
+        else if (category.getKnown().isEmpty())
+        {
+            unlearn(category);
+        }
+        // Remove the recipes when wanted
+        if (clearRecipes)
+        {
+            removeQuizzes(toRemove);
+            // Clear all the recipes
+            for (String recipe : toRemove.getAllRecipes())
+            {
+                dropRecipe(recipe);
+            }
+        }
+        publishSizes();
+        history.record(() -> restore(toRemove, category, emptied, known, clearRecipes),
+                       () -> remove(toRemove, clearRecipes));
+        event.end();
+        // If the removal is recorded: fill in the element
+        if (event.shouldCommit())
+        {
+            event.element = toRemove.getId();
+            event.category = category.getName();
+            event.recipes = clearRecipes ? toRemove.getAllRecipes().size() : 0;
+            event.emptied = emptied;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Reverses removing an element
      *
-     * @return A key that can be used to get the Element from the HashMap
+     * @param element      The element that was removed
+     * @param category     The category the element was in
+     * @param emptied      True if the category was removed because it was empty
+     * @param known        True if the element was known
+     * @param clearRecipes True if the recipes of the element were removed as well
      */
-    private String getKey(int elementId1, int elementId2)
+    private void restore(Element element, Category category, boolean emptied, boolean known, boolean clearRecipes)
     {
-        int smallest = elementId1;
-        int largest = elementId2;
-        // If the ids are the wrong way round: switch them
-        if (elementId1 > elementId2)
+        // If the category was removed: add it again
+        if (emptied)
         {
-            smallest = elementId2;
-            largest = elementId1;
+            addCategory(category);
         }
-        return smallest + "," + largest;
+        category.addElement(element);
+        ingredients.elementAdded(element);
+        names.added(element);
+        // If the element was known: learn it again
+        if (known)
+        {
+            category.learn(element);
+            names.learned(element);
+        }
+        // If the recipes were removed: give them back
+        if (clearRecipes)
+        {
+            // Give every recipe back to the element
+            for (String recipe : element.getAllRecipes())
+            {
+                setRecipe(recipe, element);
+            }
+            addQuizzes(element);
+        }
+        solver.invalidate();
+        publishSizes();
     }
     
     /**
-     * Removes an element from its category and all its recipes
+     * Removes the recipes that don't create anything from the recipe map.<br>
+     * When renumbering, all elements get a new id without gaps in the same order as before
+     * and every recipe gets rewritten to the new ids.
      *
-     * @param toRemove     Element that needs to be removed
-     * @param clearRecipes Indicates if the recipes resulting in this element should be forgotten as well
+     * @param renumber True if the elements should get new ids
+     *
+     * @return The amount of recipes that were removed
      */
-    public void remove(Element toRemove, boolean clearRecipes)
+    public int compact(boolean renumber)
     {
-        assert toRemove != null : "null element";
-        // Check all categories to remove the element
-        for (ArrayList<Category> categoryKind : allCategories)
+        finishLoading();
+        int before = recipes.size();
+        // If the ids should stay the same: only remove the empty recipes
+        if (!renumber)
+        {
+            recipes.values().removeIf(Objects::isNull);
+            solver.invalidate();
+            metrics.publishRecipes(recipes.size(), recipeCount);
+            return before - recipes.size();
+        }
+        int[] newIds = new int[Element.getHighestId() + 1];
+        Arrays.fill(newIds, -1);
+        newIds[nothing.getId()] = 0;
+        ArrayList<Element> elements = new ArrayList<>();
+        // Collect all the elements from every category
+        for (ArrayList<Category> categories : allCategories)
         {
-            // Go through the categories and remove the element if it's in there
-            for (Category category : categoryKind)
+            // Collect the elements from the categories
+            for (Category category : categories)
             {
-                // If the element was removed: clean up where necessary
-                if (category.remove(toRemove))
-                {
-                    // If the category is now empty: remove the category
-                    if (category.getContaining().size() == 0)
-                    {
-                        categoryKind.remove(category);
-                    }
-                    // Remove the recipes when wanted
-                    if (clearRecipes)
-                    {
-                        // Clear all the recipes
-                        for (String recipe : toRemove.getAllRecipes())
-                        {
-                            recipes.put(recipe, null);
-                        }
-                    }
-                    return;
-                }
+                elements.addAll(category.getContaining());
+            }
+        }
+        elements.sort(Comparator.comparingInt(Element::getId));
+        // Give every element the next id, so the order stays the same
+        for (int i = 0; i < elements.size(); i++)
+        {
+            newIds[elements.get(i).getId()] = i + 1;
+        }
+        Element.resetCounter();
+        history.clear();
+        elements.add(nothing);
+        recipes = new HashMap<>();
+        recipeCount = 0;
+        quizPool.clear();
+        quizScheduler.renumber(newIds);
+        int dropped = 0;
+        // Give the elements their new ids and put the rewritten recipes back in the map
+        for (Element element : elements)
+        {
+            dropped += element.renumber(newIds);
+            if (element != nothing) quizPool.addAll(element);
+            // Add all the recipes to the recipe map
+            for (String recipe : element.getAllRecipes())
+            {
+                countRecipe(recipes.put(recipe, element), element);
             }
         }
+        ingredients.clear();
+        solver.invalidate();
+        publishSizes();
+        return before - recipes.size() + dropped;
     }
     
     /**
@@ -297,21 +1293,7 @@ public class ElementCooker
         {
             return nothing;
         }
-        // Go through every category and returns the element if it's in there
-        for (ArrayList<Category> categories : allCategories)
-        {
-            // Go through the categories and return the element
-            for (Category category : categories)
-            {
-                Element found = category.getElementByName(elementName);
-                // If the element is in this category: return it
-                if (found != null)
-                {
-                    return found;
-                }
-            }
-        }
-        return null;
+        return getNameIndex(false).getExact(elementName);
     }
     
     /**
@@ -324,14 +1306,61 @@ public class ElementCooker
     {
         assert base != null : "null element";
         assert toDelete != null : "null element";
-        assert base.equals(toDelete) : "base and toDelete are the same";
+        assert !base.equals(toDelete) : "base and toDelete are the same";
+        GameEvents.MergeEvent event = new GameEvents.MergeEvent();
+        event.begin();
+        history.begin();
         remove(toDelete, false);
+        giveRecipes(toDelete, base);
+        history.record(() -> takeRecipesBack(toDelete, base),
+                       () -> giveRecipes(toDelete, base));
+        history.end();
+        event.end();
+        // If the merge is recorded: fill in the elements
+        if (event.shouldCommit())
+        {
+            event.kind = ELEMENT_KIND;
+            event.base = base.getName();
+            event.deleted = toDelete.getName();
+            event.moved = toDelete.getAllRecipes().size();
+            event.commit();
+        }
+    }
+    
+    /**
+     * Gives all the recipes of an element to an other element, the recipes stay in the list of the first element
+     *
+     * @param from The element that had the recipes
+     * @param to   The element that should get the recipes
+     */
+    private void giveRecipes(Element from, Element to)
+    {
+        removeQuizzes(from);
         // Goes through every recipe and sets them to the base element
-        for (String recipe : toDelete.getAllRecipes())
+        for (String recipe : from.getAllRecipes())
+        {
+            setRecipe(recipe, to);
+            to.addRecipe(recipe);
+        }
+        solver.invalidate();
+    }
+    
+    /**
+     * Reverses giving the recipes of an element to an other element
+     *
+     * @param from The element that had the recipes
+     * @param to   The element that got the recipes
+     */
+    private void takeRecipesBack(Element from, Element to)
+    {
+        // Take every recipe back from the other element
+        for (String recipe : from.getAllRecipes())
         {
-            recipes.put(recipe, base);
-            base.addRecipe(recipe);
+            setRecipe(recipe, from);
+            to.removeRecipe(recipe);
         }
+        addQuizzes(from);
+        solver.invalidate();
     }
     
     /**
@@ -344,9 +1373,13 @@ public class ElementCooker
     {
         assert base != null : "null category";
         assert toDelete != null : "null category";
-        assert base.equals(toDelete) : "base and toDelete are the same";
+        assert !base.equals(toDelete) : "base and toDelete are the same";
+        GameEvents.MergeEvent event = new GameEvents.MergeEvent();
+        event.begin();
+        boolean baseKnown = knownCategories.contains(base);
+        ArrayList<Element> moved = new ArrayList<>(toDelete.getContaining());
         // Add all the elements from the deleting category to the base category
-        for (Element element : toDelete.getContaining())
+        for (Element element : moved)
         {
             base.addElement(element);
         }
@@ -355,6 +1388,46 @@ public class ElementCooker
         {
             categories.remove(toDelete);
         }
+        solver.invalidate();
+        publishSizes();
+        history.record(() -> unmerge(base, toDelete, moved, baseKnown),
+                       () -> merge(base, toDelete));
+        event.end();
+        // If the merge is recorded: fill in the categories
+        if (event.shouldCommit())
+        {
+            event.kind = CATEGORY_KIND;
+            event.base = base.getName();
+            event.deleted = toDelete.getName();
+            event.moved = moved.size();
+            event.commit();
+        }
+    }
+    
+    /**
+     * Reverses merging 2 categories
+     *
+     * @param base      The category that kept existing
+     * @param toDelete  The category that was deleted
+     * @param moved     The elements that were moved from toDelete to base
+     * @param baseKnown True if base was known before the merge
+     */
+    private void unmerge(Category base, Category toDelete, ArrayList<Element> moved, boolean baseKnown)
+    {
+        // Take the elements out of base, the elements still are in toDelete
+        for (Element element : moved)
+        {
+            base.remove(element);
+            element.setCategory(toDelete);
+        }
+        // If base only became known by the merge: unlearn it again
+        if (!baseKnown)
+        {
+            unlearn(base);
+        }
+        addCategory(toDelete);
+        solver.invalidate();
+        publishSizes();
     }
     
     /**
@@ -366,6 +1439,27 @@ public class ElementCooker
      */
     public Category getCategoryByName(String categoryName)
     {
+        Category found = findCategoryByName(categoryName);
+        // If the category is not found while loading: wait for only that category
+        if (found == null && loading != null && loading.awaitCategory(categoryName))
+        {
+            found = findCategoryByName(categoryName);
+        }
+        return found;
+    }
+    
+    /**
+     * Looks for a category with a given name in the categories that are added
+     *
+     * @param categoryName The name of the category that needs to be found
+     *
+     * @return The category with that name or null if there is no category with that name
+     */
+    private Category findCategoryByName(String categoryName)
+    {
+        int number = NameArena.getInstance().find(categoryName);
+        // If the name was never used: no category has it
+        if (number == -1) return null;
         // Go through all categories and return the one with that name
         for (ArrayList<Category> categories : allCategories)
         {
@@ -373,7 +1467,7 @@ public class ElementCooker
             for (Category category : categories)
             {
                 // If the category with that name is found: return it
-                if (category.getName().equals(categoryName))
+                if (category.getNameNumber() == number)
                 {
                     return category;
                 }
@@ -387,6 +1481,9 @@ public class ElementCooker
      */
     public String getSaveString()
     {
+        finishLoading();
+        GameEvents.SaveEvent event = new GameEvents.SaveEvent();
+        event.begin();
         StringBuilder output = new StringBuilder(nothing.exportLine() + "\n");
         // Save all the categories and their elements
         for (ArrayList<Category> categories : allCategories)
@@ -394,17 +1491,18 @@ public class ElementCooker
             // Save the categories and their elements
             for (Category category : categories)
             {
-                output.append("c;")
-                      .append(category.getName())
-                      .append("\n");
-                // Save all the elements from each category
-                for (Element element : category.getContaining())
-                {
-                    output.append(element.exportLine())
-                          .append("\n");
-                }
+                output.append(category.exportLines());
             }
         }
+        event.end();
+        // If the save is recorded: fill in the size
+        if (event.shouldCommit())
+        {
+            event.characters = output.length();
+            event.categories = getCategoryCount();
+            event.elements = getElementCount();
+            event.commit();
+        }
         return output.toString();
     }
     
@@ -417,9 +1515,60 @@ public class ElementCooker
      * @return An element combination that was not created yet
      * @throws ElementallyException When all the combinations are filled in
      */
-    @SuppressWarnings("ConstantConditions")
     public Element[] getEmptyCombination(Element first, boolean allowDuplicates) throws ElementallyException
     {
+        long start = metrics.start();
+        GameEvents.SearchEvent event = new GameEvents.SearchEvent();
+        event.begin();
+        Element[] found = null;
+        // Search the combination while the time is measured
+        try
+        {
+            found = findEmptyCombination(first, allowDuplicates, event);
+            return found;
+        }
+        finally
+        {
+            commitSearch(event, Metrics.Operation.EMPTY_COMBINATION,
+                         found == null ? "" : getKey(found[0].getId(), found[1].getId()));
+            metrics.stop(Metrics.Operation.EMPTY_COMBINATION, start);
+        }
+    }
+    
+    /**
+     * Ends a search event and writes it when it is recorded
+     *
+     * @param event     The event of the search
+     * @param operation The operation that searched
+     * @param found     What was found, empty when nothing was found
+     */
+    private static void commitSearch(GameEvents.SearchEvent event, Metrics.Operation operation, String found)
+    {
+        event.end();
+        // If the search is recorded: fill in what was searched
+        if (event.shouldCommit())
+        {
+            event.kind = operation.getName();
+            event.found = found;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Goes through every combination starting at a random position
+     *
+     * @param first           The first element of the combination, can be null
+     * @param allowDuplicates True if elements can be the same
+     * @param event           The event that counts the checked combinations
+     *
+     * @return An element combination that was not created yet
+     * @throws ElementallyException When all the combinations are filled in
+     */
+    @SuppressWarnings("ConstantConditions")
+    private Element[] findEmptyCombination(Element first, boolean allowDuplicates, GameEvents.SearchEvent event)
+        throws ElementallyException
+    {
+        finishLoading();
         // todo: only check half of the combinations
         ArrayList<Category> categories = new ArrayList<>(unknownCategories);
         categories.addAll(knownCategories);
@@ -431,8 +1580,8 @@ public class ElementCooker
             // If no element is chosen to start with: choose a random one
             if (first == null || first.getCategory() == null)
             {
-                stopAtCat1 = (int) (categories.size() * Math.random());
-                stopAtEle1 = (int) (categories.get(stopAtCat1).getContaining().size() * Math.random());
+                stopAtCat1 = random.nextInt(categories.size());
+                stopAtEle1 = random.nextInt(categories.get(stopAtCat1).getContaining().size());
             }
             // If a element is chosen to start with: start with that element
             else
@@ -448,8 +1597,8 @@ public class ElementCooker
             while (!fullCircle1)
             {
                 Element ingredient1 = categories.get(currentCat1).getContaining().get(currentEle1);
-                int stopAtCat2 = (int) (categories.size() * Math.random());
-                int stopAtEle2 = (int) (categories.get(stopAtCat2).getContaining().size() * Math.random());
+                int stopAtCat2 = random.nextInt(categories.size());
+                int stopAtEle2 = random.nextInt(categories.get(stopAtCat2).getContaining().size());
                 int currentCat2 = stopAtCat2;
                 int currentEle2 = stopAtEle2;
                 boolean fullCircle2 = false;
@@ -461,6 +1610,7 @@ public class ElementCooker
                     if (allowDuplicates || currentCat1 != currentCat2 || currentEle1 != currentEle2)
                     {
                         Element ingredient2 = categories.get(currentCat2).getContaining().get(currentEle2);
+                        event.scanned++;
                         Element generated = recipes.get(getKey(ingredient1.getId(), ingredient2.getId()));
                         // If the combination is not filled in yet: return it
                         if (generated == null)
@@ -500,7 +1650,15 @@ public class ElementCooker
         assert toLearn != null : "null element";
         Category category = toLearn.getCategory();
         assert category != null : "element does not have a category";
+        boolean known = toLearn.isKnown();
         category.learn(toLearn);
+        names.learned(toLearn);
+        solver.elementLearned(toLearn);
+        // If the element was not known yet: there is one more known element
+        if (!known && toLearn.isKnown())
+        {
+            metrics.publishKnownElementCount(++knownElementCount);
+        }
     }
     
     public void learn(Category category)
@@ -529,46 +1687,89 @@ public class ElementCooker
     }
     
     /**
-     * Finds and returns a quizable element
+     * Finds and returns a quizable element.<br>
+     * Recipes that are due to be asked again go first, else a recipe that hasn't been asked before is picked
      *
      * @param exclude The element that should not be returned, can be null
      *
-     * @return A element that hasn't been asked before
+     * @return The combination that should be asked
      * @throws ElementallyException When there are no quizable elements
      */
     public Element[] getQuizAnswer(Element exclude) throws ElementallyException
     {
-        int stopAtCat = (int) (knownCategories.size() * Math.random());
-        int stopAtEle = (int) (knownCategories.get(stopAtCat).getKnown().size() * Math.random());
-        int currentCat = stopAtCat;
-        int currentEle = stopAtEle;
-        boolean fullCircle = false;
-        int maxCat = knownCategories.get(currentCat).getKnown().size();
-        // Go through all the elements until one is quizable
-        while (!fullCircle)
-        {
-            Element current = knownCategories.get(currentCat).getKnown().get(currentEle);
-            ArrayList<String> answers = current.getKnownRecipes();
-            // If there are known recipes that aren't quized yet: return a recipe
-            if (!current.equals(exclude) && answers.size() > 0)
-            {
-                ArrayList<String> recipes = current.getKnownRecipes();
-                String answer = recipes.get((int) (Math.random() * recipes.size()));
-                current.gotQuized(answer);
-                String[] ids = answer.split(",");
-                return new Element[]{getElementById(Integer.parseInt(ids[0]), true),
-                                     getElementById(Integer.parseInt(ids[1]), true)};
-            }
-            // If there are no elements left in the category: go to the next category
-            if (++currentEle == maxCat)
+        long start = metrics.start();
+        // Pick the answer while the time is measured
+        try
+        {
+            return pickQuizAnswer(exclude);
+        }
+        finally
+        {
+            metrics.stop(Metrics.Operation.QUIZ_ANSWER, start);
+        }
+    }
+    
+    /**
+     * Picks the combination of a quiz question
+     *
+     * @param exclude The element that should not be returned, can be null
+     *
+     * @return The combination that should be asked
+     * @throws ElementallyException When there are no quizable elements
+     */
+    private Element[] pickQuizAnswer(Element exclude) throws ElementallyException
+    {
+        String answer = quizScheduler.nextDue();
+        Element[] ingredients = null;
+        // If a due recipe doesn't create anything anymore or its ingredients are unknown: stop planning it
+        while (answer != null && (recipes.get(answer) == null || recipes.get(answer) == nothing ||
+                                  (ingredients = findKnownIngredients(answer)) == null))
+        {
+            quizScheduler.forget(answer);
+            answer = quizScheduler.nextDue();
+        }
+        // If no recipe is due: ask a new recipe
+        if (answer == null || recipes.get(answer).equals(exclude))
+        {
+            ingredients = null;
+            // Pick recipes until one has known ingredients
+            while (ingredients == null)
             {
-                currentEle = 0;
-                currentCat = (currentCat + 1) % knownCategories.size();
-                maxCat = knownCategories.get(currentCat).getKnown().size();
+                int position = quizPool.sample(exclude, random);
+                // If there are no recipes that can be asked: throw an exception
+                if (position == -1)
+                {
+                    throw new ElementallyException(NO_QUIZABLE_ELEMENTS);
+                }
+                answer = quizPool.getRecipe(position);
+                ingredients = findKnownIngredients(answer);
+                // If an ingredient is unknown: the recipe can't be asked, else it's asked now
+                if (ingredients == null)
+                {
+                    quizPool.remove(answer);
+                }
+                else
+                {
+                    quizPool.getElement(position).gotQuized(answer);
+                }
             }
-            fullCircle = currentCat == stopAtCat && currentEle == stopAtEle;
         }
-        throw new ElementallyException(NO_QUIZABLE_ELEMENTS);
+        return ingredients;
+    }
+    
+    /**
+     * Finds the ingredients of a recipe among the known elements
+     *
+     * @param recipe The recipe following the format: [int id],[int id]
+     *
+     * @return Both ingredients or null when one of them is not known
+     */
+    private Element[] findKnownIngredients(String recipe)
+    {
+        int[] ids = splitKey(recipe);
+        Element first = getElementById(ids[0], true);
+        Element second = getElementById(ids[1], true);
+        return first == null || second == null ? null : new Element[]{first, second};
     }
     
     /**
@@ -580,6 +1781,25 @@ public class ElementCooker
      * @return The element with the id or null if there is no element with that id
      */
     public Element getElementById(int elementId, boolean fromKnown)
+    {
+        Element found = findElementById(elementId, fromKnown);
+        // If an unknown element is not found while loading: wait for only the category with that id
+        if (found == null && !fromKnown && loading != null && loading.awaitElement(elementId))
+        {
+            found = findElementById(elementId, false);
+        }
+        return found;
+    }
+    
+    /**
+     * Looks for an element with a given id in the categories that are added
+     *
+     * @param elementId The id of the element
+     * @param fromKnown True if only the known elements should be searched
+     *
+     * @return The element with the id or null if no element has that id
+     */
+    private Element findElementById(int elementId, boolean fromKnown)
     {
         // Nothing is not in an category and will therefor be compared here
         if (elementId == nothing.getId())
@@ -621,6 +1841,34 @@ public class ElementCooker
      */
     public Element getNextElement() throws ElementallyException
     {
+        long start = metrics.start();
+        GameEvents.SearchEvent event = new GameEvents.SearchEvent();
+        event.begin();
+        Element found = null;
+        // Search the element while the time is measured
+        try
+        {
+            found = findNextElement(event);
+            return found;
+        }
+        finally
+        {
+            commitSearch(event, Metrics.Operation.NEXT_ELEMENT, found == null ? "" : String.valueOf(found.getId()));
+            metrics.stop(Metrics.Operation.NEXT_ELEMENT, start);
+        }
+    }
+    
+    /**
+     * Searches an unknown element that can be created using the known elements
+     *
+     * @param event The event that counts the checked recipes
+     *
+     * @return An element that can be created with the known elements
+     * @throws ElementallyException When there are no elements that can be created
+     */
+    private Element findNextElement(GameEvents.SearchEvent event) throws ElementallyException
+    {
+        finishLoading();
         // If there are elements that are unknown: find a unknown element that can be created
         if (isOngoing())
         {
@@ -637,6 +1885,7 @@ public class ElementCooker
                         // Go through every recipe and check if the ingredients are known
                         for (String s : element.getUnknownRecipes())
                         {
+                            event.scanned++;
                             String[] recipe = s.split(",");
                             // If both ingredients are known: return the element
                             if (getElementById(Integer.parseInt(recipe[1]), true) != null &&
@@ -680,7 +1929,7 @@ public class ElementCooker
      */
     public double getProgress()
     {
-        double total = 0;
+        double total = loading == null ? 0 : loading.getPendingLines();
         double known = 0;
         // Count all the unknown elements from unknown categories
         for (Category unknownCategory : unknownCategories)
@@ -705,7 +1954,60 @@ public class ElementCooker
     {
         assert answer != null : "null answer";
         assert answer.length == 2 : "incorrect answer length, length of 2 expected";
-        combine(answer[0], answer[1], false).quizCanceled(getKey(answer[0].getId(), answer[1].getId()));
+        String key = getKey(answer[0].getId(), answer[1].getId());
+        // If the recipe was new: make it new again, else it stays due
+        if (quizScheduler.isNew(key))
+        {
+            combine(answer[0], answer[1], false).quizCanceled(key);
+        }
+    }
+    
+    /**
+     * Plans when a recipe should be asked again
+     *
+     * @param answer  The combination associated with the question
+     * @param correct True if the question was answered correctly
+     */
+    public void answerQuiz(Element[] answer, boolean correct)
+    {
+        assert answer != null : "null answer";
+        assert answer.length == 2 : "incorrect answer length, length of 2 expected";
+        quizScheduler.answered(getKey(answer[0].getId(), answer[1].getId()), correct);
+    }
+    
+    /**
+     * Finds the element a recipe creates
+     *
+     * @param key The recipe following the format: [int id],[int id]
+     *
+     * @return The element the recipe creates or null if the recipe is not defined
+     */
+    Element findResult(String key)
+    {
+        Element result = recipes.get(key);
+        // If the recipe is not found while loading: it can be in a category that is not added yet
+        if (result == null && loading != null && loading.awaitRecipe(key))
+        {
+            result = recipes.get(key);
+        }
+        return result;
+    }
+    
+    /**
+     * Checks if the player may be shown what a combination creates
+     *
+     * @param element1 The first element of the combination
+     * @param element2 The second element of the combination
+     *
+     * @return True if the combination creates nothing or is a recipe the player knows
+     */
+    public boolean isKnownCombination(Element element1, Element element2)
+    {
+        assert element1 != null : "null element";
+        assert element2 != null : "null element";
+        String key = getKey(element1.getId(), element2.getId());
+        Element result = findResult(key);
+        return result == null || result == nothing || result.isKnownRecipe(key);
     }
     
     /**
@@ -721,13 +2023,28 @@ public class ElementCooker
     {
         assert element1 != null : "null element";
         assert element2 != null : "null element";
+        long start = metrics.start();
+        GameEvents.CombineEvent event = new GameEvents.CombineEvent();
+        event.begin();
         String key = getKey(element1.getId(), element2.getId());
-        Element result = recipes.get(key);
+        boolean waited = !recipes.containsKey(key) && loading != null;
+        Element result = findResult(key);
         // If the result can and should be learned: learn it
         if (learn && result != null)
         {
             result.learnRecipe(key);
         }
+        event.end();
+        // If the combination is recorded: fill in the elements
+        if (event.shouldCommit())
+        {
+            event.element1 = element1.getId();
+            event.element2 = element2.getId();
+            event.result = result == null ? GameEvents.NO_ELEMENT : result.getId();
+            event.waited = waited;
+            event.commit();
+        }
+        metrics.stop(Metrics.Operation.COMBINE, start);
         return result;
     }
 }
@@ -0,0 +1,345 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts more lines than fit in memory.<br>
+ * The lines are collected in runs of a fixed size, every full run is sorted and written to a temporary file.
+ * The sorted lines are read back by merging the runs, so only one line per run is in memory at a time.
+ * At most a fixed amount of runs is opened at once, when there are more the oldest runs are merged into a new run first,
+ * so the memory and the open files don't grow with the amount of lines.
+ * When all the lines fit in one run nothing is written and the run is sorted in memory.
+ * Lines are sorted in their natural order, so keys should be written in a form that sorts as text.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class ExternalSorter implements Closeable
+{
+    public static final int DEFAULT_RUN_SIZE = 1 << 17;
+    
+    private static final String RUN_PREFIX = "elementally-run";
+    private static final String RUN_SUFFIX = ".txt";
+    private static final int MAX_FAN_IN = 64;
+    
+    private final int runSize;
+    private final ArrayList<String> run;
+    private final ArrayList<File> runs;
+    private final ArrayList<BufferedReader> readers;
+    private boolean sorting;
+    
+    /**
+     * Constructor for the class with the default run size
+     */
+    public ExternalSorter()
+    {
+        this(DEFAULT_RUN_SIZE);
+    }
+    
+    /**
+     * Constructor for the class
+     *
+     * @param runSize The amount of lines that are kept in memory before they are written to a run
+     */
+    public ExternalSorter(int runSize)
+    {
+        assert runSize > 0 : "run size must be positive";
+        this.runSize = runSize;
+        run = new ArrayList<>();
+        runs = new ArrayList<>();
+        readers = new ArrayList<>();
+        sorting = false;
+    }
+    
+    /**
+     * Adds a line to sort
+     *
+     * @param line The line, can not contain a line break
+     *
+     * @throws IOException When the run could not be written
+     */
+    public void add(String line) throws IOException
+    {
+        assert line != null : "null line";
+        assert !sorting : "lines can not be added after sorted is called";
+        run.add(line);
+        // If the run is full: write it to a file
+        if (run.size() == runSize)
+        {
+            writeRun();
+        }
+    }
+    
+    /**
+     * Sorts the run in memory and writes it to a temporary file
+     *
+     * @throws IOException When the run could not be written
+     */
+    private void writeRun() throws IOException
+    {
+        Collections.sort(run);
+        File file = File.createTempFile(RUN_PREFIX, RUN_SUFFIX);
+        file.deleteOnExit();
+        runs.add(file);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Compression.create(file, false),
+                                                                       StandardCharsets.UTF_8)))
+        {
+            // Write every line of the run
+            for (String line : run)
+            {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        run.clear();
+    }
+    
+    /**
+     * Gives the lines in sorted order, no lines can be added afterwards
+     *
+     * @return The sorted lines, read while iterating
+     * @throws IOException When a run could not be written or opened
+     */
+    public Iterator<String> sorted() throws IOException
+    {
+        assert !sorting : "sorted can only be called once";
+        sorting = true;
+        // If every line fits in memory: sort them without files
+        if (runs.isEmpty())
+        {
+            Collections.sort(run);
+            return run.iterator();
+        }
+        // If there are lines left: write them as the last run
+        if (!run.isEmpty())
+        {
+            writeRun();
+        }
+        // If there are too many runs to open at once: merge the oldest runs into one until there are few enough
+        while (runs.size() > MAX_FAN_IN)
+        {
+            mergeRuns(new ArrayList<>(runs.subList(0, MAX_FAN_IN)));
+        }
+        return merge(runs);
+    }
+    
+    /**
+     * Merges runs into a new run at the end of the runs and removes them
+     *
+     * @param toMerge The runs to merge, at most the maximum amount of runs that are opened at once
+     *
+     * @throws IOException When a run could not be read or the new run could not be written
+     */
+    private void mergeRuns(ArrayList<File> toMerge) throws IOException
+    {
+        File file = File.createTempFile(RUN_PREFIX, RUN_SUFFIX);
+        file.deleteOnExit();
+        runs.add(file);
+        // Write the merged lines to the new run and close the merged runs
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Compression.create(file, false),
+                                                                       StandardCharsets.UTF_8)))
+        {
+            Iterator<String> lines = merge(toMerge);
+            // Write every line in sorted order
+            while (lines.hasNext())
+            {
+                writer.write(lines.next());
+                writer.write('\n');
+            }
+        }
+        // If a run could not be read: pass on the cause
+        catch (UncheckedIOException uioEx)
+        {
+            throw uioEx.getCause();
+        }
+        finally
+        {
+            closeReaders();
+        }
+        // Remove the runs that are merged
+        for (File merged : toMerge)
+        {
+            merged.delete();
+        }
+        runs.removeAll(toMerge);
+    }
+    
+    /**
+     * Opens runs and merges their lines
+     *
+     * @param toMerge The runs to merge
+     *
+     * @return The lines of the runs in sorted order, read while iterating
+     * @throws IOException When a run could not be opened
+     */
+    private Iterator<String> merge(ArrayList<File> toMerge) throws IOException
+    {
+        PriorityQueue<Head> heads = new PriorityQueue<>(toMerge.size());
+        // Open every run and take its first line
+        for (File file : toMerge)
+        {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(Compression.open(file),
+                                                                             StandardCharsets.UTF_8));
+            readers.add(reader);
+            Head head = new Head(reader);
+            // If the run has a line: it takes part in the merge
+            if (head.advance())
+            {
+                heads.add(head);
+            }
+        }
+        return new Iterator<String>()
+        {
+            /**
+             * @return True if not every line is given yet
+             */
+            @Override
+            public boolean hasNext()
+            {
+                return !heads.isEmpty();
+            }
+            
+            /**
+             * Gives the smallest line of all the runs and moves that run to its next line
+             *
+             * @return The next line in sorted order
+             * @throws NoSuchElementException When every line is given already
+             */
+            @Override
+            public String next()
+            {
+                Head head = heads.poll();
+                // If every run is done: there is no next line
+                if (head == null)
+                {
+                    throw new NoSuchElementException();
+                }
+                String line = head.line;
+                // If the run has more lines: put it back with its next line
+                if (head.advance())
+                {
+                    heads.add(head);
+                }
+                return line;
+            }
+        };
+    }
+    
+    /**
+     * Closes the runs and removes their files
+     *
+     * @throws IOException When a run could not be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        // Close the readers and remove the runs, even when a reader could not be closed
+        try
+        {
+            closeReaders();
+        }
+        finally
+        {
+            // Remove every run
+            for (File file : runs)
+            {
+                file.delete();
+            }
+            runs.clear();
+            run.clear();
+        }
+    }
+    
+    /**
+     * Closes every open run
+     *
+     * @throws IOException When a run could not be closed, the other runs are still closed
+     */
+    private void closeReaders() throws IOException
+    {
+        IOException failure = null;
+        // Close every reader, even when one of them fails
+        for (BufferedReader reader : readers)
+        {
+            try
+            {
+                reader.close();
+            }
+            catch (IOException ioEx)
+            {
+                failure = ioEx;
+            }
+        }
+        readers.clear();
+        // If a reader could not be closed: pass it on after every reader is closed
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+    
+    /**
+     * The current line of a run during the merge
+     */
+    private static class Head implements Comparable<Head>
+    {
+        private final BufferedReader reader;
+        private String line;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param reader The reader of the run
+         */
+        Head(BufferedReader reader)
+        {
+            this.reader = reader;
+            line = null;
+        }
+        
+        /**
+         * Reads the next line of the run
+         *
+         * @return True if there was a next line
+         * @throws UncheckedIOException When the run could not be read
+         */
+        boolean advance()
+        {
+            try
+            {
+                line = reader.readLine();
+            }
+            catch (IOException ioEx)
+            {
+                throw new UncheckedIOException(ioEx);
+            }
+            return line != null;
+        }
+        
+        /**
+         * Compares the current lines of two runs
+         *
+         * @param other The other run
+         *
+         * @return The order of the lines
+         */
+        @Override
+        public int compareTo(Head other)
+        {
+            return line.compareTo(other.line);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Flight Recorder events of the game, so a recording shows which content or action made the game slow.<br>
+ * An event is made, begun and ended around an operation, its fields are only filled in and written
+ * when shouldCommit says the event is recorded. When no recording is running the events cost nothing,
+ * the JIT removes the unused events completely.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class GameEvents
+{
+    public static final String CATEGORY = "Elementally";
+    public static final int NO_ELEMENT = -1;
+    
+    /**
+     * Constructor for the class, only the events are used
+     */
+    private GameEvents()
+    {
+    }
+    
+    /**
+     * Loading a safe file
+     */
+    @Name("elementally.Load")
+    @Label("Load")
+    @Description("Loading a safe file into the game")
+    @jdk.jfr.Category(CATEGORY)
+    public static class LoadEvent extends Event
+    {
+        @Label("Characters")
+        @DataAmount(DataAmount.BYTES)
+        public int characters;
+        
+        @Label("Lines Parsed")
+        public int lines;
+        
+        @Label("Categories")
+        public int categories;
+        
+        @Label("Recipes")
+        public int recipes;
+        
+        @Label("Progressive")
+        @Description("True if only the known categories were loaded straight away")
+        public boolean progressive;
+    }
+    
+    /**
+     * Making the save string of the game
+     */
+    @Name("elementally.Save")
+    @Label("Save")
+    @Description("Writing the game to a save string")
+    @jdk.jfr.Category(CATEGORY)
+    public static class SaveEvent extends Event
+    {
+        @Label("Characters Written")
+        @DataAmount(DataAmount.BYTES)
+        public int characters;
+        
+        @Label("Categories")
+        @Description("The amount of categories that were written")
+        public int categories;
+        
+        @Label("Elements")
+        @Description("The amount of elements in the categories that were written")
+        public int elements;
+        
+        @Label("Incremental")
+        @Description("True if only the changed categories were written to the safe file")
+        public boolean incremental;
+    }
+    
+    /**
+     * Combining two elements
+     */
+    @Name("elementally.Combine")
+    @Label("Combine")
+    @Description("Combining two elements")
+    @jdk.jfr.Category(CATEGORY)
+    @StackTrace(false)
+    public static class CombineEvent extends Event
+    {
+        @Label("First Element")
+        public int element1;
+        
+        @Label("Second Element")
+        public int element2;
+        
+        @Label("Result")
+        @Description("The id of the created element or -1 when the combination creates nothing")
+        public int result;
+        
+        @Label("Waited For Loading")
+        public boolean waited;
+    }
+    
+    /**
+     * Adding or changing a recipe
+     */
+    @Name("elementally.AddRecipe")
+    @Label("Add Recipe")
+    @Description("Adding a recipe or giving it a new result")
+    @jdk.jfr.Category(CATEGORY)
+    public static class RecipeEvent extends Event
+    {
+        @Label("First Element")
+        public int element1;
+        
+        @Label("Second Element")
+        public int element2;
+        
+        @Label("Result")
+        public int result;
+        
+        @Label("Previous Result")
+        @Description("The id of the element the recipe created before or -1 when the recipe is new")
+        public int previous;
+        
+        @Label("Previous Removed")
+        @Description("True if the previous result was removed because nothing creates it anymore")
+        public boolean removed;
+    }
+    
+    /**
+     * Removing an element
+     */
+    @Name("elementally.Remove")
+    @Label("Remove Element")
+    @Description("Removing an element from its category")
+    @jdk.jfr.Category(CATEGORY)
+    public static class RemoveEvent extends Event
+    {
+        @Label("Element")
+        public int element;
+        
+        @Label("Category")
+        public String category;
+        
+        @Label("Recipes Removed")
+        public int recipes;
+        
+        @Label("Category Removed")
+        public boolean emptied;
+    }
+    
+    /**
+     * Merging two elements or two categories
+     */
+    @Name("elementally.Merge")
+    @Label("Merge")
+    @Description("Merging two elements or two categories")
+    @jdk.jfr.Category(CATEGORY)
+    public static class MergeEvent extends Event
+    {
+        @Label("Kind")
+        @Description("element or category")
+        public String kind;
+        
+        @Label("Base")
+        public String base;
+        
+        @Label("Deleted")
+        public String deleted;
+        
+        @Label("Moved")
+        @Description("The amount of recipes or elements that were moved to the base")
+        public int moved;
+    }
+    
+    /**
+     * Searching through the combinations or recipes of the game
+     */
+    @Name("elementally.Search")
+    @Label("Search")
+    @Description("Searching for an empty combination or a creatable element")
+    @jdk.jfr.Category(CATEGORY)
+    public static class SearchEvent extends Event
+    {
+        @Label("Kind")
+        @Description("emptyCombination or nextElement")
+        public String kind;
+        
+        @Label("Scanned")
+        @Description("The amount of combinations or recipes that were checked")
+        public long scanned;
+        
+        @Label("Found")
+        @Description("The recipe [id],[id] or the id of the element that was found, empty when nothing was found")
+        public String found;
+    }
+}
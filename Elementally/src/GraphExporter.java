@@ -0,0 +1,363 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Writes the recipe graph to DOT or GraphML so it can be looked at and processed by other programs.<br>
+ * Every element is a node and every recipe is a small node with an edge from both ingredients and an edge to its
+ * result, so a recipe with two ingredients stays one connection. The elements are grouped by their category.
+ * <p>
+ * The graph is written while going through the categories, first all the elements and then all the recipes,
+ * so apart from the filters nothing is collected and the size of the graph does not matter.
+ * Only the known elements, a single category or the elements a few recipes away from an element can be written.
+ * Ingredients of written recipes that do not pass the filters are written without a category.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class GraphExporter
+{
+    private static final String GRAPHML_HEADER =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n" +
+            "<key id=\"label\" for=\"node\" attr.name=\"label\" attr.type=\"string\"/>\n" +
+            "<key id=\"category\" for=\"node\" attr.name=\"category\" attr.type=\"string\"/>\n" +
+            "<key id=\"kind\" for=\"node\" attr.name=\"kind\" attr.type=\"string\"/>\n" +
+            "<key id=\"known\" for=\"node\" attr.name=\"known\" attr.type=\"boolean\"/>\n" +
+            "<graph id=\"recipes\" edgedefault=\"directed\">\n";
+    private static final String GRAPHML_FOOTER = "</graph>\n</graphml>\n";
+    
+    /**
+     * The formats the graph can be written in
+     */
+    public enum Format
+    {
+        DOT, GRAPHML
+    }
+    
+    private final ElementCooker game;
+    private boolean knownOnly;
+    private Category category;
+    private Element center;
+    private int hops;
+    private int elements, recipes;
+    
+    /**
+     * Constructor for the class, without filters the whole graph is written
+     *
+     * @param game The game of which the recipes should be written
+     */
+    public GraphExporter(ElementCooker game)
+    {
+        assert game != null : "null game";
+        this.game = game;
+        knownOnly = false;
+        category = null;
+        center = null;
+        hops = 0;
+    }
+    
+    /**
+     * Sets if only the known elements and recipes should be written
+     *
+     * @param knownOnly True if only the known elements and recipes should be written
+     */
+    public void setKnownOnly(boolean knownOnly)
+    {
+        this.knownOnly = knownOnly;
+    }
+    
+    /**
+     * Sets the category of which the elements should be written
+     *
+     * @param category The only category that should be written or null for every category
+     */
+    public void setCategory(Category category)
+    {
+        this.category = category;
+    }
+    
+    /**
+     * Sets the element around which the graph should be written
+     *
+     * @param center The element in the middle or null for every element
+     * @param hops   The amount of recipes an element can be away from the center
+     */
+    public void setNeighbourhood(Element center, int hops)
+    {
+        assert hops >= 0 : "negative hops";
+        this.center = center;
+        this.hops = hops;
+    }
+    
+    /**
+     * @return The amount of elements written by the last export
+     */
+    public int getElements()
+    {
+        return elements;
+    }
+    
+    /**
+     * @return The amount of recipes written by the last export
+     */
+    public int getRecipes()
+    {
+        return recipes;
+    }
+    
+    /**
+     * Writes the graph to a file
+     *
+     * @param file     The file to write, an existing file is replaced
+     * @param format   The format to write the graph in
+     * @param compress True if the file should be compressed
+     *
+     * @throws IOException When the file could not be written
+     */
+    public void export(File file, Format format, boolean compress) throws IOException
+    {
+        assert file != null : "null file";
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Compression.create(file, compress),
+                                                                       StandardCharsets.UTF_8)))
+        {
+            export(writer, format);
+        }
+    }
+    
+    /**
+     * Writes the graph
+     *
+     * @param writer The writer to write the graph to, it is not closed
+     * @param format The format to write the graph in
+     *
+     * @throws IOException When the graph could not be written
+     */
+    public void export(Writer writer, Format format) throws IOException
+    {
+        assert writer != null : "null writer";
+        assert format != null : "null format";
+        elements = 0;
+        recipes = 0;
+        HashSet<Integer> neighbourhood = center == null ? null : findNeighbourhood();
+        ArrayList<Category> categories = game.getAllCategories();
+        writer.write(format == Format.DOT ? "digraph recipes {\n" : GRAPHML_HEADER);
+        Element nothing = game.getNothing();
+        // If the nothing element passes the filters: write it without a category
+        if (includes(nothing, neighbourhood))
+        {
+            writeElement(writer, format, nothing, null);
+        }
+        // Write the elements grouped by category
+        for (int i = 0; i < categories.size(); i++)
+        {
+            boolean opened = false;
+            // Write every element of the category that passes the filters
+            for (Element element : categories.get(i).getContaining())
+            {
+                if (!includes(element, neighbourhood)) continue;
+                // If it's the first element of the category: start the group
+                if (!opened && format == Format.DOT)
+                {
+                    writer.write("subgraph cluster_" + i + " {\nlabel=" + quote(categories.get(i).getName()) + ";\n");
+                }
+                opened = true;
+                writeElement(writer, format, element, categories.get(i));
+            }
+            // If the group was started: end it
+            if (opened && format == Format.DOT)
+            {
+                writer.write("}\n");
+            }
+        }
+        HashSet<Integer> outside = new HashSet<>();
+        // If the nothing element passes the filters: write the recipes that create nothing
+        if (includes(nothing, neighbourhood))
+        {
+            writeRecipes(writer, format, nothing, neighbourhood, outside);
+        }
+        // Write the recipes of every element that passes the filters
+        for (Category group : categories)
+        {
+            // Write the recipes of every element of the category that passes the filters
+            for (Element element : group.getContaining())
+            {
+                if (!includes(element, neighbourhood)) continue;
+                writeRecipes(writer, format, element, neighbourhood, outside);
+            }
+        }
+        writer.write(format == Format.DOT ? "}\n" : GRAPHML_FOOTER);
+    }
+    
+    /**
+     * Checks if an element passes the filters
+     *
+     * @param element       The element to check
+     * @param neighbourhood The ids of the elements around the center or null when there is no center
+     *
+     * @return True if the element should be written
+     */
+    private boolean includes(Element element, HashSet<Integer> neighbourhood)
+    {
+        // If the element is unknown while only known elements are written: leave it out
+        if (knownOnly && !element.isKnown()) return false;
+        // If the element is in a different category than the one that is written: leave it out
+        if (category != null && element.getCategory() != category) return false;
+        return neighbourhood == null || neighbourhood.contains(element.getId());
+    }
+    
+    /**
+     * Finds the elements that are at most the set amount of recipes away from the center.<br>
+     * Every step only looks at the recipes that create or use the elements found in the step before.
+     *
+     * @return The ids of the elements around the center, including the center
+     */
+    private HashSet<Integer> findNeighbourhood()
+    {
+        IngredientIndex index = game.getIngredientIndex(false);
+        HashSet<Integer> found = new HashSet<>();
+        ArrayList<Integer> frontier = new ArrayList<>();
+        found.add(center.getId());
+        frontier.add(center.getId());
+        // Take a step away from the center until the amount of steps is reached or nothing new is found
+        for (int hop = 0; hop < hops && !frontier.isEmpty(); hop++)
+        {
+            ArrayList<Integer> next = new ArrayList<>();
+            // Add the elements that share a recipe with an element of the frontier
+            for (int id : frontier)
+            {
+                // Add the other ingredient and the result of every recipe the element is used in
+                for (String recipe : index.getRecipes(id))
+                {
+                    int partner = IngredientIndex.getPartner(recipe, id);
+                    Element result = game.getRecipes().get(recipe);
+                    if (found.add(partner)) next.add(partner);
+                    if (result != null && found.add(result.getId())) next.add(result.getId());
+                }
+                Element element = index.getElement(id);
+                if (element == null) continue;
+                // Add the ingredients of every recipe that creates the element
+                for (String recipe : element.getAllRecipes())
+                {
+                    // Add both ingredients when they were not found yet
+                    for (int ingredient : ElementCooker.splitKey(recipe))
+                    {
+                        if (found.add(ingredient)) next.add(ingredient);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return found;
+    }
+    
+    /**
+     * Writes the node of an element
+     *
+     * @param writer   The writer to write the node to
+     * @param format   The format to write the node in
+     * @param element  The element to write
+     * @param category The category of the element or null when it is written outside the categories
+     *
+     * @throws IOException When the node could not be written
+     */
+    private void writeElement(Writer writer, Format format, Element element, Category category) throws IOException
+    {
+        elements++;
+        String id = "e" + element.getId();
+        // If the graph is a DOT graph: write the node with its name, unknown elements are dashed
+        if (format == Format.DOT)
+        {
+            writer.write(id + " [label=" + quote(element.getName()) +
+                         (element.isBasic() ? ",shape=box" : "") + (element.isKnown() ? "" : ",style=dashed") + "];\n");
+        }
+        else
+        {
+            writer.write("<node id=\"" + id + "\"><data key=\"kind\">element</data><data key=\"label\">" +
+                         escape(element.getName()) + "</data>" +
+                         (category == null ? "" : "<data key=\"category\">" + escape(category.getName()) + "</data>") +
+                         "<data key=\"known\">" + element.isKnown() + "</data></node>\n");
+        }
+    }
+    
+    /**
+     * Writes the recipes that create an element that passes the filters
+     *
+     * @param writer        The writer to write the recipes to
+     * @param format        The format to write the recipes in
+     * @param result        The element the recipes create
+     * @param neighbourhood The ids of the elements around the center or null when there is no center
+     * @param outside       The ids of the ingredients that were written without passing the filters
+     *
+     * @throws IOException When the recipes could not be written
+     */
+    private void writeRecipes(Writer writer, Format format, Element result, HashSet<Integer> neighbourhood,
+                              HashSet<Integer> outside) throws IOException
+    {
+        ArrayList<String> written = new ArrayList<>(result.getQuizedRecipes());
+        written.addAll(result.getKnownRecipes());
+        // If unknown recipes should be written as well: add them
+        if (!knownOnly)
+        {
+            written.addAll(result.getUnknownRecipes());
+        }
+        // Write every recipe with its ingredients
+        for (String recipe : written)
+        {
+            int[] ids = ElementCooker.splitKey(recipe);
+            // If an ingredient was not written yet: write it without a category
+            for (int id : ids)
+            {
+                Element ingredient = game.getElementById(id, false);
+                if (ingredient == null || includes(ingredient, neighbourhood) || !outside.add(id)) continue;
+                writeElement(writer, format, ingredient, null);
+            }
+            recipes++;
+            String node = "r" + ids[0] + "_" + ids[1] + "_" + result.getId();
+            // If the graph is a DOT graph: write the recipe as a point with its edges
+            if (format == Format.DOT)
+            {
+                writer.write(node + " [shape=point];\ne" + ids[0] + " -> " + node + ";\ne" + ids[1] + " -> " + node +
+                             ";\n" + node + " -> e" + result.getId() + ";\n");
+            }
+            else
+            {
+                writer.write("<node id=\"" + node + "\"><data key=\"kind\">recipe</data><data key=\"label\">" +
+                             recipe + "</data></node>\n" +
+                             "<edge source=\"e" + ids[0] + "\" target=\"" + node + "\"/>\n" +
+                             "<edge source=\"e" + ids[1] + "\" target=\"" + node + "\"/>\n" +
+                             "<edge source=\"" + node + "\" target=\"e" + result.getId() + "\"/>\n");
+            }
+        }
+    }
+    
+    /**
+     * Makes a text usable as a DOT string
+     *
+     * @param text The text to quote
+     *
+     * @return The text between quotes with its quotes and backslashes escaped
+     */
+    private static String quote(String text)
+    {
+        return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+    
+    /**
+     * Makes a text usable as XML content
+     *
+     * @param text The text to escape
+     *
+     * @return The text with the special characters of XML escaped
+     */
+    private static String escape(String text)
+    {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
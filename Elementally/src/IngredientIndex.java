@@ -0,0 +1,223 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps for every element the recipes it is an ingredient of, so the recipes that use an element
+ * can be found without going through every recipe. The elements are kept by id as well,
+ * so the other ingredient of a recipe can be found without going through every category.<br>
+ * The index is built from the recipes the first time it is asked for and is kept up to date
+ * while recipes and elements are added and removed, the categories that are loaded in the background are added as well.
+ * A new set of recipes makes it start over when it is asked for again.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class IngredientIndex
+{
+    private static final List<String> NO_RECIPES = Collections.emptyList();
+    
+    private final ElementCooker game;
+    private ArrayList<String>[] uses;
+    private Element[] elements;
+    
+    /**
+     * Constructor for the class
+     *
+     * @param game The game to take the recipes from
+     */
+    public IngredientIndex(ElementCooker game)
+    {
+        assert game != null : "null game";
+        this.game = game;
+        clear();
+    }
+    
+    /**
+     * Forgets the index, should be called when the recipes are replaced all at once
+     */
+    void clear()
+    {
+        uses = null;
+        elements = null;
+    }
+    
+    /**
+     * Adds a recipe to both its ingredients when the index is built
+     *
+     * @param key The recipe that creates an element now
+     */
+    void added(String key)
+    {
+        assert key != null : "null key";
+        // If the index is not built: the recipe is added when it is built
+        if (uses == null) return;
+        int[] ingredients = ElementCooker.splitKey(key);
+        add(ingredients[0], key);
+        // If the ingredients are different: add the recipe for both
+        if (ingredients[0] != ingredients[1])
+        {
+            add(ingredients[1], key);
+        }
+    }
+    
+    /**
+     * Removes a recipe from both its ingredients when the index is built
+     *
+     * @param key The recipe that does not create anything anymore
+     */
+    void removed(String key)
+    {
+        assert key != null : "null key";
+        // If the index is not built: there is nothing to remove
+        if (uses == null) return;
+        // Take the recipe away from both ingredients
+        for (int ingredient : ElementCooker.splitKey(key))
+        {
+            // If the ingredient has recipes: remove this one
+            if (ingredient < uses.length && uses[ingredient] != null)
+            {
+                uses[ingredient].remove(key);
+            }
+        }
+    }
+    
+    /**
+     * Adds an element to the id lookup when the index is built
+     *
+     * @param element The element that is part of the game now
+     */
+    void elementAdded(Element element)
+    {
+        assert element != null : "null element";
+        // If the index is not built: the element is added when it is built
+        if (elements == null) return;
+        // If the id is higher than the lookup: make the lookup larger
+        if (element.getId() >= elements.length)
+        {
+            elements = Arrays.copyOf(elements, Math.max(element.getId() + 1, elements.length * 2));
+        }
+        elements[element.getId()] = element;
+    }
+    
+    /**
+     * Removes an element from the id lookup when the index is built, its recipes stay
+     *
+     * @param element The element that is not part of the game anymore
+     */
+    void elementRemoved(Element element)
+    {
+        assert element != null : "null element";
+        // If the element is in the lookup: remove it
+        if (elements != null && element.getId() < elements.length && elements[element.getId()] == element)
+        {
+            elements[element.getId()] = null;
+        }
+    }
+    
+    /**
+     * Finds an element by its id
+     *
+     * @param id The id of the element
+     *
+     * @return The element with the id or null when no element has the id
+     */
+    public Element getElement(int id)
+    {
+        // If the index is not built: build it from all the recipes
+        if (uses == null)
+        {
+            build();
+        }
+        return id < 0 || id >= elements.length ? null : elements[id];
+    }
+    
+    /**
+     * Gives the recipes an element is an ingredient of
+     *
+     * @param ingredient The id of the element
+     *
+     * @return The keys of the recipes, the list can not be changed and changes with the recipes
+     */
+    public List<String> getRecipes(int ingredient)
+    {
+        // If the index is not built: build it from all the recipes
+        if (uses == null)
+        {
+            build();
+        }
+        // If the element has no recipes: give an empty list
+        if (ingredient < 0 || ingredient >= uses.length || uses[ingredient] == null)
+        {
+            return NO_RECIPES;
+        }
+        return Collections.unmodifiableList(uses[ingredient]);
+    }
+    
+    /**
+     * Gives the other ingredient of a recipe
+     *
+     * @param key        The recipe
+     * @param ingredient The id of one of the ingredients
+     *
+     * @return The id of the other ingredient, the same id when the element is combined with itself
+     */
+    public static int getPartner(String key, int ingredient)
+    {
+        int[] ingredients = ElementCooker.splitKey(key);
+        return ingredients[0] == ingredient ? ingredients[1] : ingredients[0];
+    }
+    
+    /**
+     * Puts every element on the position of its id and adds every recipe that creates an element to both its ingredients
+     */
+    @SuppressWarnings("unchecked")
+    private void build()
+    {
+        uses = (ArrayList<String>[]) new ArrayList<?>[Element.getHighestId() + 1];
+        elements = new Element[uses.length];
+        elementAdded(game.getNothing());
+        // Put the elements of every loaded category in the lookup, the others are added when they are loaded
+        for (Category category : game.getLoadedCategories())
+        {
+            // Put the elements from this category in the lookup
+            for (Element element : category.getContaining())
+            {
+                elementAdded(element);
+            }
+        }
+        // Add every recipe to both its ingredients
+        for (Map.Entry<String, Element> recipe : game.getLoadedRecipes().entrySet())
+        {
+            // If the recipe creates an element: add it
+            if (recipe.getValue() != null)
+            {
+                added(recipe.getKey());
+            }
+        }
+    }
+    
+    /**
+     * Adds a recipe to an ingredient, making room for new ids when needed
+     *
+     * @param ingredient The id of the ingredient
+     * @param key        The recipe
+     */
+    private void add(int ingredient, String key)
+    {
+        // If the id is higher than the index: make the index larger
+        if (ingredient >= uses.length)
+        {
+            uses = Arrays.copyOf(uses, Math.max(ingredient + 1, uses.length * 2));
+        }
+        // If the ingredient has no recipes yet: give it a list
+        if (uses[ingredient] == null)
+        {
+            uses[ingredient] = new ArrayList<>(2);
+        }
+        uses[ingredient].add(key);
+    }
+}
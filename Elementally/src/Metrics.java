@@ -0,0 +1,470 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Measures how long the operations of the game take and how large the game is.<br>
+ * Every operation has a histogram with buckets that grow with the time, every power of two is split in
+ * eight buckets, so a time is known up to an eighth of its size without storing every time.
+ * Measuring a call only reads the clock twice and adds to three counters, when measuring is off it only reads a flag.
+ * The sizes of the game are given by the game every time they change, so a JMX thread only reads the last sizes
+ * instead of looking at the lists and maps of the game while they are changed.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class Metrics implements MetricsMXBean
+{
+    public static final String OBJECT_NAME = "Elementally:type=Metrics";
+    
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final double NANOS_PER_MICRO = 1000.0;
+    
+    /**
+     * The operations that are measured
+     */
+    public enum Operation
+    {
+        LOAD("load"), SAVE("save"), COMBINE("combine"), NEXT_ELEMENT("nextElement"),
+        EMPTY_COMBINATION("emptyCombination"), QUIZ_ANSWER("quizAnswer");
+        
+        private final String name;
+        
+        /**
+         * Constructor for the enum
+         *
+         * @param name The name that is shown for the operation
+         */
+        Operation(String name)
+        {
+            this.name = name;
+        }
+        
+        /**
+         * @return The name that is shown for the operation
+         */
+        public String getName()
+        {
+            return name;
+        }
+    }
+    
+    private final Histogram[] histograms;
+    private volatile boolean enabled;
+    private volatile int elementCount, knownElementCount, categoryCount, recipeMapSize, recipeCount;
+    private boolean registered;
+    
+    /**
+     * Constructor for the class, measuring starts on
+     */
+    public Metrics()
+    {
+        histograms = new Histogram[Operation.values().length];
+        // Every operation gets its own histogram
+        for (int i = 0; i < histograms.length; i++)
+        {
+            histograms[i] = new Histogram();
+        }
+        enabled = true;
+        registered = false;
+    }
+    
+    /**
+     * Makes the metrics readable with a JMX console, does nothing when they already are
+     *
+     * @return True if the metrics are registered
+     */
+    public synchronized boolean register()
+    {
+        // If the metrics are not registered yet: register them on the platform server
+        if (!registered)
+        {
+            try
+            {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+                registered = true;
+            }
+            // If the server does not accept the metrics: they can still be read with the stats command
+            catch (JMException | SecurityException ex)
+            {
+                registered = false;
+            }
+        }
+        return registered;
+    }
+    
+    /**
+     * Starts measuring a call
+     *
+     * @return The moment the call started or 0 when measuring is off, give it to stop
+     */
+    public long start()
+    {
+        return enabled ? System.nanoTime() : 0;
+    }
+    
+    /**
+     * Stops measuring a call and adds the time to the histogram of the operation
+     *
+     * @param operation The operation that was called
+     * @param start     The moment given by start
+     */
+    public void stop(Operation operation, long start)
+    {
+        // If measuring was on when the call started: add the time
+        if (start != 0)
+        {
+            histograms[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Remembers the sizes of the game, should be called by the game after its elements or categories changed
+     *
+     * @param elements      The amount of elements in the game
+     * @param knownElements The amount of elements the player knows
+     * @param categories    The amount of categories in the game
+     */
+    void publishSizes(int elements, int knownElements, int categories)
+    {
+        elementCount = elements;
+        knownElementCount = knownElements;
+        categoryCount = categories;
+    }
+    
+    /**
+     * Remembers the amount of elements the player knows, should be called by the game after an element was learned
+     *
+     * @param knownElements The amount of elements the player knows
+     */
+    void publishKnownElementCount(int knownElements)
+    {
+        knownElementCount = knownElements;
+    }
+    
+    /**
+     * Remembers the size of the recipe map, should be called by the game after its recipes changed
+     *
+     * @param mapSize The amount of recipes in the recipe map
+     * @param recipes The amount of recipes that create an element
+     */
+    void publishRecipes(int mapSize, int recipes)
+    {
+        recipeMapSize = mapSize;
+        recipeCount = recipes;
+    }
+    
+    /**
+     * @return True if the operations are measured
+     */
+    @Override
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+    
+    /**
+     * Turns measuring on or off
+     *
+     * @param enabled True if the operations should be measured
+     */
+    @Override
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+    
+    /**
+     * @return The amount of elements in the game
+     */
+    @Override
+    public int getElementCount()
+    {
+        return elementCount;
+    }
+    
+    /**
+     * @return The amount of categories in the game
+     */
+    @Override
+    public int getCategoryCount()
+    {
+        return categoryCount;
+    }
+    
+    /**
+     * @return The amount of elements the player knows
+     */
+    @Override
+    public int getKnownElementCount()
+    {
+        return knownElementCount;
+    }
+    
+    /**
+     * @return The amount of recipes in the recipe map
+     */
+    @Override
+    public int getRecipeMapSize()
+    {
+        return recipeMapSize;
+    }
+    
+    /**
+     * @return The amount of recipes that create an element, the recipes of nothing are not counted
+     */
+    @Override
+    public int getRecipeCount()
+    {
+        return recipeCount;
+    }
+    
+    /**
+     * @return The amount of times every operation was measured
+     */
+    @Override
+    public Map<String, Long> getCalls()
+    {
+        Map<String, Long> calls = new LinkedHashMap<>();
+        // Add the amount of calls of every operation
+        for (Operation operation : Operation.values())
+        {
+            calls.put(operation.getName(), histograms[operation.ordinal()].getCount());
+        }
+        return calls;
+    }
+    
+    /**
+     * @return The average time of every operation in microseconds
+     */
+    @Override
+    public Map<String, Double> getMeanMicros()
+    {
+        Map<String, Double> means = new LinkedHashMap<>();
+        // Add the average time of every operation
+        for (Operation operation : Operation.values())
+        {
+            means.put(operation.getName(), histograms[operation.ordinal()].getMean() / NANOS_PER_MICRO);
+        }
+        return means;
+    }
+    
+    /**
+     * @return The time 99 percent of the calls of every operation stayed under in microseconds
+     */
+    @Override
+    public Map<String, Double> getP99Micros()
+    {
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        // Add the 99th percentile of every operation
+        for (Operation operation : Operation.values())
+        {
+            percentiles.put(operation.getName(), histograms[operation.ordinal()].getPercentile(0.99) / NANOS_PER_MICRO);
+        }
+        return percentiles;
+    }
+    
+    /**
+     * @return The longest time of every operation in microseconds
+     */
+    @Override
+    public Map<String, Double> getMaxMicros()
+    {
+        Map<String, Double> maxima = new LinkedHashMap<>();
+        // Add the longest time of every operation
+        for (Operation operation : Operation.values())
+        {
+            maxima.put(operation.getName(), histograms[operation.ordinal()].getMax() / NANOS_PER_MICRO);
+        }
+        return maxima;
+    }
+    
+    /**
+     * @return A readable overview of all metrics, one line per operation that was called
+     */
+    @Override
+    public String getReport()
+    {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("elements: %d (%d known), categories: %d, recipes: %d (recipe map: %d)%n",
+                                    getElementCount(), getKnownElementCount(), getCategoryCount(), getRecipeCount(),
+                                    getRecipeMapSize()));
+        report.append(String.format("names: %d (%d bytes)%n",
+                                    NameArena.getInstance().size(), NameArena.getInstance().getUsedBytes()));
+        // Add a line for every operation that was called
+        for (Operation operation : Operation.values())
+        {
+            Histogram histogram = histograms[operation.ordinal()];
+            if (histogram.getCount() == 0) continue;
+            report.append(String.format("%s: %d calls, mean %.1f us, p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us%n",
+                                        operation.getName(), histogram.getCount(),
+                                        histogram.getMean() / NANOS_PER_MICRO,
+                                        histogram.getPercentile(0.5) / NANOS_PER_MICRO,
+                                        histogram.getPercentile(0.9) / NANOS_PER_MICRO,
+                                        histogram.getPercentile(0.99) / NANOS_PER_MICRO,
+                                        histogram.getMax() / NANOS_PER_MICRO));
+        }
+        // If measuring is off: say so, so an empty report is not mistaken for no calls
+        if (!enabled)
+        {
+            report.append("measuring is off").append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+    
+    /**
+     * Forgets every measured time
+     */
+    @Override
+    public void reset()
+    {
+        // Empty every histogram
+        for (Histogram histogram : histograms)
+        {
+            histogram.reset();
+        }
+    }
+    
+    /**
+     * Finds the bucket of a time
+     *
+     * @param nanos The time in nanoseconds
+     *
+     * @return The index of the bucket
+     */
+    static int bucketOf(long nanos)
+    {
+        // If the time is smaller than the amount of sub buckets: every time has its own bucket
+        if (nanos < SUB_BUCKETS) return (int) Math.max(nanos, 0);
+        int power = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (power - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (power - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+    
+    /**
+     * Finds the largest time that goes in a bucket
+     *
+     * @param bucket The index of the bucket
+     *
+     * @return The largest time in nanoseconds
+     */
+    static long highestOf(int bucket)
+    {
+        // If the bucket has only one time: that time is the largest
+        if (bucket < SUB_BUCKETS) return bucket;
+        int power = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (power - SUB_BUCKET_BITS);
+        return ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (power - SUB_BUCKET_BITS)) + width - 1;
+    }
+    
+    /**
+     * The times of one operation, counted per bucket
+     */
+    private static class Histogram
+    {
+        private final AtomicLongArray buckets;
+        private final AtomicLong count, total, max;
+        
+        /**
+         * Constructor for the class
+         */
+        Histogram()
+        {
+            buckets = new AtomicLongArray(BUCKETS);
+            count = new AtomicLong();
+            total = new AtomicLong();
+            max = new AtomicLong();
+        }
+        
+        /**
+         * Adds a time
+         *
+         * @param nanos The time in nanoseconds
+         */
+        void record(long nanos)
+        {
+            buckets.incrementAndGet(bucketOf(nanos));
+            count.incrementAndGet();
+            total.addAndGet(nanos);
+            // If the time is the longest yet: remember it
+            if (nanos > max.get())
+            {
+                max.accumulateAndGet(nanos, Math::max);
+            }
+        }
+        
+        /**
+         * @return The amount of times that are added
+         */
+        long getCount()
+        {
+            return count.get();
+        }
+        
+        /**
+         * @return The average time in nanoseconds or 0 when there are no times
+         */
+        double getMean()
+        {
+            long amount = count.get();
+            return amount == 0 ? 0 : (double) total.get() / amount;
+        }
+        
+        /**
+         * @return The longest time in nanoseconds
+         */
+        long getMax()
+        {
+            return max.get();
+        }
+        
+        /**
+         * Finds the time a part of the calls stayed under
+         *
+         * @param fraction The part of the calls, between 0 and 1
+         *
+         * @return The time in nanoseconds, at most an eighth too large, or 0 when there are no times
+         */
+        long getPercentile(double fraction)
+        {
+            assert fraction >= 0 && fraction <= 1 : "fraction must be between 0 and 1";
+            long amount = count.get();
+            if (amount == 0) return 0;
+            long needed = Math.max(1, (long) Math.ceil(fraction * amount));
+            long seen = 0;
+            // Add up the buckets until enough calls are seen
+            for (int i = 0; i < BUCKETS; i++)
+            {
+                seen += buckets.get(i);
+                // If enough calls are seen: the time is in this bucket
+                if (seen >= needed)
+                {
+                    return Math.min(highestOf(i), max.get());
+                }
+            }
+            return max.get();
+        }
+        
+        /**
+         * Forgets every time
+         */
+        void reset()
+        {
+            // Empty every bucket
+            for (int i = 0; i < BUCKETS; i++)
+            {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            total.set(0);
+            max.set(0);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import java.util.Map;
+
+/**
+ * The management interface of the metrics of the game, so they can be read with a JMX console.<br>
+ * The times are in microseconds and the maps have an entry for every measured operation.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public interface MetricsMXBean
+{
+    /**
+     * @return True if the operations are measured
+     */
+    boolean isEnabled();
+    
+    /**
+     * Turns measuring on or off
+     *
+     * @param enabled True if the operations should be measured
+     */
+    void setEnabled(boolean enabled);
+    
+    /**
+     * @return The amount of elements in the game
+     */
+    int getElementCount();
+    
+    /**
+     * @return The amount of categories in the game
+     */
+    int getCategoryCount();
+    
+    /**
+     * @return The amount of elements the player knows
+     */
+    int getKnownElementCount();
+    
+    /**
+     * @return The amount of recipes in the recipe map
+     */
+    int getRecipeMapSize();
+    
+    /**
+     * @return The amount of recipes that create an element, the recipes of nothing are not counted
+     */
+    int getRecipeCount();
+    
+    /**
+     * @return The amount of times every operation was measured
+     */
+    Map<String, Long> getCalls();
+    
+    /**
+     * @return The average time of every operation
+     */
+    Map<String, Double> getMeanMicros();
+    
+    /**
+     * @return The time 99 percent of the calls of every operation stayed under
+     */
+    Map<String, Double> getP99Micros();
+    
+    /**
+     * @return The longest time of every operation
+     */
+    Map<String, Double> getMaxMicros();
+    
+    /**
+     * @return A readable overview of all metrics
+     */
+    String getReport();
+    
+    /**
+     * Forgets every measured time
+     */
+    void reset();
+}
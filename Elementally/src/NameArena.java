@@ -0,0 +1,395 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stores the names of all elements and categories as UTF-8 in one shared byte array.<br>
+ * Every different name is only stored once and gets a number, so two names are the same when their numbers are.
+ * Names are stored whole, parts that several names share are stored again for every name.
+ * The hash of every name is kept next to it, so finding a name only compares the bytes of names with the same hash
+ * and length. A String is only made when a name is shown.
+ * Names are never removed, a reset loads the same names again so they are found instead of stored twice.
+ * <p>
+ * Finding and getting names does not lock, the arrays are replaced together when one of them grows.
+ * A new name takes its place in the arrays and its place in the table with compare-and-set,
+ * so names are stored on several threads at the same time while a safe file is read in parallel.
+ * Only making the arrays larger waits for the threads that are storing a name.
+ * Room that a thread reserved but did not use is given back when no other thread reserved room after it.
+ * Otherwise the bytes stay unused and the number is marked unused, so getting it is rejected.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class NameArena
+{
+    private static final NameArena instance = new NameArena();
+    private static final int EMPTY = -1;
+    private static final String UNUSED_NUMBER = "The number does not belong to a stored name";
+    
+    private final ReentrantReadWriteLock growing;
+    private final AtomicInteger used, count, size;
+    private volatile Storage storage;
+    
+    /**
+     * Constructor for the class
+     */
+    private NameArena()
+    {
+        growing = new ReentrantReadWriteLock();
+        used = new AtomicInteger();
+        count = new AtomicInteger();
+        size = new AtomicInteger();
+        storage = new Storage(new byte[1 << 12], new int[256], new int[256], new int[256], new AtomicIntegerArray(512));
+        // Every place in the table starts empty
+        for (int slot = 0; slot < storage.table.length(); slot++)
+        {
+            storage.table.set(slot, EMPTY);
+        }
+    }
+    
+    /**
+     * Simple getter for the instance of the class
+     *
+     * @return The instance of this class
+     */
+    public static NameArena getInstance()
+    {
+        return instance;
+    }
+    
+    /**
+     * Stores a name if it isn't stored yet, can be called on several threads at the same time
+     *
+     * @param name The name to store
+     *
+     * @return The number of the name
+     */
+    public int intern(String name)
+    {
+        assert name != null : "null name";
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(encoded);
+        int found = lookup(storage, encoded, hash);
+        // If the name is already stored: use the stored name without locking
+        if (found != EMPTY) return found;
+        // Store the name, making the arrays larger when they are full
+        while (true)
+        {
+            growing.readLock().lock();
+            // Try to store the name in the arrays as they are now
+            try
+            {
+                found = tryStore(storage, encoded, hash);
+            }
+            finally
+            {
+                growing.readLock().unlock();
+            }
+            if (found != EMPTY) return found;
+            grow(encoded.length);
+        }
+    }
+    
+    /**
+     * Finds the number of a name without storing it
+     *
+     * @param name The name to look for
+     *
+     * @return The number of the name or -1 if the name is not stored
+     */
+    public int find(String name)
+    {
+        assert name != null : "null name";
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        return lookup(storage, encoded, hash(encoded));
+    }
+    
+    /**
+     * Makes a String of a stored name
+     *
+     * @param number The number of the name
+     *
+     * @return The name
+     * @throws IllegalArgumentException When the number was never used for a name
+     */
+    public String get(int number)
+    {
+        Storage current = storage;
+        // If the number was not given out or it stayed unused: there is no name to make
+        if (number < 0 || number >= count.get() || current.starts[number] == EMPTY)
+        {
+            throw new IllegalArgumentException(UNUSED_NUMBER);
+        }
+        return new String(current.bytes, current.starts[number], current.lengths[number], StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * @return The amount of different names that are stored
+     */
+    public int size()
+    {
+        return size.get();
+    }
+    
+    /**
+     * @return The amount of bytes used by the stored names
+     */
+    public int getUsedBytes()
+    {
+        return used.get();
+    }
+    
+    /**
+     * Stores a name when the arrays have room for it, should be called while holding the read lock
+     * so the arrays are not replaced
+     *
+     * @param current The arrays to store the name in
+     * @param encoded The UTF-8 bytes of the name
+     * @param hash    The hash of the name
+     *
+     * @return The number of the name or -1 when the arrays are full
+     */
+    private int tryStore(Storage current, byte[] encoded, int hash)
+    {
+        int found = lookup(current, encoded, hash);
+        // If an other thread stored the name in the meantime: use that name
+        if (found != EMPTY) return found;
+        // If the table is half full: it should be made larger first
+        if ((size.get() + 1) * 2 > current.table.length()) return EMPTY;
+        int start = reserve(used, encoded.length, current.bytes.length);
+        // If there is no place for the bytes: the arena should be made larger first
+        if (start == EMPTY) return EMPTY;
+        int number = reserve(count, 1, current.hashes.length);
+        // If there is no place for the name: give the bytes back, the lists should be made larger first
+        if (number == EMPTY)
+        {
+            release(used, start, encoded.length);
+            return EMPTY;
+        }
+        System.arraycopy(encoded, 0, current.bytes, start, encoded.length);
+        current.starts[number] = start;
+        current.lengths[number] = encoded.length;
+        current.hashes[number] = hash;
+        int mask = current.table.length() - 1;
+        int slot = hash & mask;
+        // Claim the first empty place, an other thread can store a name in the same place first
+        while (true)
+        {
+            found = current.table.get(slot);
+            // If the place is empty: try to claim it, when an other thread was first the place is looked at again
+            if (found == EMPTY)
+            {
+                if (!current.table.compareAndSet(slot, EMPTY, number)) continue;
+                size.incrementAndGet();
+                return number;
+            }
+            // If an other thread stored the same name: use that name and give the number and the bytes back
+            if (matches(current, found, encoded, hash))
+            {
+                current.starts[number] = EMPTY;
+                release(count, number, 1);
+                release(used, start, encoded.length);
+                return found;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    /**
+     * Reserves room in an array that is shared by several threads
+     *
+     * @param counter  The amount of the array that is used
+     * @param amount   The amount to reserve
+     * @param capacity The length of the array
+     *
+     * @return The start of the reserved room or -1 when the array is too small
+     */
+    private static int reserve(AtomicInteger counter, int amount, int capacity)
+    {
+        // Try to move the counter until no other thread moved it in between
+        while (true)
+        {
+            int start = counter.get();
+            if (start + amount > capacity) return EMPTY;
+            if (counter.compareAndSet(start, start + amount)) return start;
+        }
+    }
+    
+    /**
+     * Gives reserved room back when no other thread reserved room after it, otherwise the room stays unused
+     *
+     * @param counter The amount of the array that is used
+     * @param start   The start of the reserved room
+     * @param amount  The amount that was reserved
+     */
+    private static void release(AtomicInteger counter, int start, int amount)
+    {
+        counter.compareAndSet(start + amount, start);
+    }
+    
+    /**
+     * Makes every array that is full larger and copies the table, waits until no thread is storing a name
+     *
+     * @param needed The amount of bytes of the name that did not fit
+     */
+    private void grow(int needed)
+    {
+        growing.writeLock().lock();
+        // Copy the names to larger arrays
+        try
+        {
+            Storage current = storage;
+            byte[] bytes = current.bytes;
+            // If there is no place for the bytes: make the arena larger
+            if (used.get() + needed > bytes.length)
+            {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, used.get() + needed));
+            }
+            int[] starts = current.starts, lengths = current.lengths, hashes = current.hashes;
+            // If there is no place for the name: make the lists larger
+            if (count.get() + 1 > hashes.length)
+            {
+                starts = Arrays.copyOf(starts, hashes.length * 2);
+                lengths = Arrays.copyOf(lengths, hashes.length * 2);
+                hashes = Arrays.copyOf(hashes, hashes.length * 2);
+            }
+            int length = current.table.length();
+            // If the table is half full: make it larger so the names stay easy to find
+            if ((size.get() + 1) * 2 > length)
+            {
+                length *= 2;
+            }
+            // The table is always copied, so a thread that still looks in the old arrays never finds a new name
+            storage = new Storage(bytes, starts, lengths, hashes, rehash(current.table, hashes, length));
+        }
+        finally
+        {
+            growing.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Puts every name of a table in a new table
+     *
+     * @param old    The table with the names
+     * @param hashes The hashes of the names
+     * @param length The length of the new table, a power of two
+     *
+     * @return The new table
+     */
+    private static AtomicIntegerArray rehash(AtomicIntegerArray old, int[] hashes, int length)
+    {
+        int[] table = new int[length];
+        Arrays.fill(table, EMPTY);
+        int mask = length - 1;
+        // Put every name in the new table
+        for (int i = 0; i < old.length(); i++)
+        {
+            int number = old.get(i);
+            if (number == EMPTY) continue;
+            int slot = hashes[number] & mask;
+            // Find the first empty place
+            while (table[slot] != EMPTY)
+            {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = number;
+        }
+        return new AtomicIntegerArray(table);
+    }
+    
+    /**
+     * Calculates the hash of an encoded name
+     *
+     * @param encoded The UTF-8 bytes of the name
+     *
+     * @return The hash
+     */
+    private static int hash(byte[] encoded)
+    {
+        int hash = 0x811c9dc5;
+        // Mix in every byte
+        for (byte b : encoded)
+        {
+            hash = (hash ^ (b & 0xff)) * 0x01000193;
+        }
+        return hash;
+    }
+    
+    /**
+     * Finds the number of a name in the table, every place is read once so a name stored in between is not mixed up
+     *
+     * @param current The arrays to look in
+     * @param encoded The UTF-8 bytes of the name
+     * @param hash    The hash of the name
+     *
+     * @return The number of the name or -1 if the name is not stored
+     */
+    private static int lookup(Storage current, byte[] encoded, int hash)
+    {
+        int mask = current.table.length() - 1;
+        int slot = hash & mask;
+        // Look at the next place until the name or an empty place is found
+        while (true)
+        {
+            int number = current.table.get(slot);
+            if (number == EMPTY || matches(current, number, encoded, hash)) return number;
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    /**
+     * Checks if a stored name is the same as an encoded name, the bytes are only compared when the hash and length match
+     *
+     * @param current The arrays the name is stored in
+     * @param number  The number of the stored name
+     * @param encoded The UTF-8 bytes of the other name
+     * @param hash    The hash of the other name
+     *
+     * @return True if the names are the same
+     */
+    private static boolean matches(Storage current, int number, byte[] encoded, int hash)
+    {
+        int start = current.starts[number];
+        if (current.hashes[number] != hash || current.lengths[number] != encoded.length) return false;
+        // Compare every byte
+        for (int i = 0; i < encoded.length; i++)
+        {
+            if (current.bytes[start + i] != encoded[i]) return false;
+        }
+        return true;
+    }
+    
+    /**
+     * The arrays of the arena, they are replaced together when one of them grows.<br>
+     * A name is written in the arrays before its number is put in the table,
+     * so a thread that finds the number in the table sees the whole name
+     */
+    private static class Storage
+    {
+        private final byte[] bytes;
+        private final int[] starts, lengths, hashes;
+        private final AtomicIntegerArray table;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param bytes   The UTF-8 bytes of all the names
+         * @param starts  The position of the first byte of every name
+         * @param lengths The amount of bytes of every name
+         * @param hashes  The hash of every name
+         * @param table   The numbers of the names at the place of their hash
+         */
+        private Storage(byte[] bytes, int[] starts, int[] lengths, int[] hashes, AtomicIntegerArray table)
+        {
+            this.bytes = bytes;
+            this.starts = starts;
+            this.lengths = lengths;
+            this.hashes = hashes;
+            this.table = table;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Finds elements by their name while the player types it.<br>
+ * The names are kept in lower case in a sorted map for completing the start of a name,
+ * and split in trigrams, every three characters in a row, for names that are spelled a bit differently.
+ * A name matches better the more trigrams it shares with what was typed.
+ * <p>
+ * Only the trigrams used by the fewest names are looked at until there are enough candidates,
+ * so a search takes about as long on a world with millions of names as on a small one.
+ * The index is built the first time it is asked for and is kept up to date
+ * while elements are added, renamed, removed and loaded in the background.
+ * <p>
+ * The known elements have an index of their own, so the player only finds elements they know
+ * and the unknown names never take the place of known candidates.
+ * It is kept up to date while elements are learned and starts over when the progress is forgotten.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class NameIndex
+{
+    private static final int MAX_CANDIDATES = 1024;
+    private static final double MIN_SIMILARITY = 0.3;
+    private static final String FRONT_PADDING = "  ";
+    private static final String BACK_PADDING = " ";
+    
+    private final ElementCooker game;
+    private Names all, known;
+    
+    /**
+     * Constructor for the class
+     *
+     * @param game The game to take the elements from
+     */
+    public NameIndex(ElementCooker game)
+    {
+        assert game != null : "null game";
+        this.game = game;
+        clear();
+    }
+    
+    /**
+     * Forgets the index, should be called when the elements are replaced all at once
+     */
+    void clear()
+    {
+        all = null;
+        known = null;
+    }
+    
+    /**
+     * Forgets the index of the known elements, should be called when the progress is forgotten
+     */
+    void forgotten()
+    {
+        known = null;
+    }
+    
+    /**
+     * Adds an element when the index is built
+     *
+     * @param element The element that is part of the game now, with its current name
+     */
+    void added(Element element)
+    {
+        assert element != null : "null element";
+        // If the index is built: add the element
+        if (all != null)
+        {
+            all.add(element);
+        }
+        // If the index of the known elements is built and the element is known: add it there as well
+        if (known != null && element.isKnown())
+        {
+            known.add(element);
+        }
+    }
+    
+    /**
+     * Adds an element to the index of the known elements when it is built, the element can be known already
+     *
+     * @param element The element that was learned
+     */
+    void learned(Element element)
+    {
+        assert element != null : "null element";
+        // If the index of the known elements is built and doesn't have the element yet: add it
+        if (known != null && element.isKnown() && !known.contains(element))
+        {
+            known.add(element);
+        }
+    }
+    
+    /**
+     * Removes an element when the index is built, should be called before the element gets a new name
+     *
+     * @param element The element that is not part of the game anymore, with the name it was added with
+     */
+    void removed(Element element)
+    {
+        assert element != null : "null element";
+        // If the index is built: remove the element
+        if (all != null)
+        {
+            all.remove(element);
+        }
+        // If the index of the known elements is built: remove the element when it is in it
+        if (known != null)
+        {
+            known.remove(element);
+        }
+    }
+    
+    /**
+     * Finds the element with exactly a name
+     *
+     * @param name The name of the element
+     *
+     * @return The element with the name or null when no element has the name
+     */
+    public Element getExact(String name)
+    {
+        assert name != null : "null name";
+        ArrayList<Element> found = getNames(false).byName.get(normalize(name));
+        // If elements have the name in lower case: find the one with the same capitals
+        if (found != null)
+        {
+            // Compare the name of every element with the name in lower case
+            for (Element element : found)
+            {
+                if (element.getName().equals(name)) return element;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Finds the elements whose name starts with a text, in alphabetical order
+     *
+     * @param prefix    The start of the name, capitals don't matter
+     * @param limit     The highest amount of elements to find
+     * @param knownOnly True if only known elements should be found
+     *
+     * @return The elements found, at most the limit
+     */
+    public ArrayList<Element> complete(String prefix, int limit, boolean knownOnly)
+    {
+        assert prefix != null : "null prefix";
+        ArrayList<Element> found = new ArrayList<>();
+        addCompletions(getNames(knownOnly), normalize(prefix), limit, found);
+        return found;
+    }
+    
+    /**
+     * Finds the elements whose names look most like a text.<br>
+     * Names that start with the text come first, then the names that share the most trigrams with it.
+     *
+     * @param text      The text that was typed, capitals don't matter
+     * @param limit     The highest amount of elements to find
+     * @param knownOnly True if only known elements should be found
+     *
+     * @return The elements found, the best match first, at most the limit
+     */
+    public ArrayList<Element> search(String text, int limit, boolean knownOnly)
+    {
+        assert text != null : "null text";
+        String query = normalize(text);
+        Names names = getNames(knownOnly);
+        ArrayList<Element> found = new ArrayList<>();
+        addCompletions(names, query, limit, found);
+        // If there are enough names starting with the text: don't look for other names
+        if (found.size() >= limit || query.isEmpty()) return found;
+        HashSet<Long> queryTrigrams = trigrams(query);
+        ArrayList<ArrayList<Element>> postings = new ArrayList<>(queryTrigrams.size());
+        // Collect the elements of every trigram of the text
+        for (long trigram : queryTrigrams)
+        {
+            ArrayList<Element> posting = names.byTrigram.get(trigram);
+            if (posting != null) postings.add(posting);
+        }
+        postings.sort((first, second) -> Integer.compare(first.size(), second.size()));
+        HashSet<Element> candidates = new HashSet<>();
+        // Collect the candidates, starting with the trigrams the fewest names have
+        for (ArrayList<Element> posting : postings)
+        {
+            // If there are enough candidates: leave out the trigrams many names have
+            if (!candidates.isEmpty() && candidates.size() + posting.size() > MAX_CANDIDATES) break;
+            // Add the elements with the trigram, at most the amount of candidates
+            for (int i = 0; i < posting.size() && i < MAX_CANDIDATES; i++)
+            {
+                candidates.add(posting.get(i));
+            }
+        }
+        ArrayList<Map.Entry<Element, Double>> scored = new ArrayList<>();
+        // Score every candidate by the part of the trigrams both names have
+        for (Element element : candidates)
+        {
+            if (found.contains(element)) continue;
+            String name = FRONT_PADDING + normalize(element.getName()) + BACK_PADDING;
+            int shared = 0;
+            // Count the trigrams of the name the text has as well
+            for (int i = 0; i + 3 <= name.length(); i++)
+            {
+                if (queryTrigrams.contains(trigram(name, i))) shared++;
+            }
+            double similarity = 2.0 * shared / (name.length() - 2 + queryTrigrams.size());
+            // If the names are alike enough: keep the candidate
+            if (similarity >= MIN_SIMILARITY)
+            {
+                scored.add(new AbstractMap.SimpleEntry<>(element, similarity));
+            }
+        }
+        scored.sort((first, second) ->
+                    {
+                        int compared = Double.compare(second.getValue(), first.getValue());
+                        return compared != 0 ? compared : Integer.compare(first.getKey().getId(), second.getKey().getId());
+                    });
+        // Add the best candidates until the limit is reached
+        for (int i = 0; i < scored.size() && found.size() < limit; i++)
+        {
+            found.add(scored.get(i).getKey());
+        }
+        return found;
+    }
+    
+    /**
+     * Adds the elements whose name starts with a text in alphabetical order,
+     * at most the amount of candidates is looked at
+     *
+     * @param names  The index to take the names from
+     * @param prefix The start of the name in lower case
+     * @param limit  The highest amount of elements in the list
+     * @param found  The list to add the elements to
+     */
+    private static void addCompletions(Names names, String prefix, int limit, ArrayList<Element> found)
+    {
+        int looked = 0;
+        // Go through the names starting with the text until the limit is reached
+        for (Map.Entry<String, ArrayList<Element>> name : names.byName.tailMap(prefix).entrySet())
+        {
+            // If the names don't start with the text anymore or enough were looked at: stop
+            if (found.size() >= limit || looked++ >= MAX_CANDIDATES || !name.getKey().startsWith(prefix)) return;
+            // Add the elements with the name
+            for (Element element : name.getValue())
+            {
+                if (found.size() < limit) found.add(element);
+            }
+        }
+    }
+    
+    /**
+     * Gives the index and builds it when needed
+     *
+     * @param knownOnly True if the index of the known elements should be given
+     *
+     * @return The index of all elements or of the known elements
+     */
+    private Names getNames(boolean knownOnly)
+    {
+        // If the index is not built: build it
+        if (knownOnly ? known == null : all == null)
+        {
+            Names names = new Names();
+            // Add the elements of every loaded category, the others are added when they are loaded
+            for (Category category : knownOnly ? game.getKnownCategories() : game.getLoadedCategories())
+            {
+                // Add the elements from this category, only the known ones for the index of the known elements
+                for (Element element : knownOnly ? category.getKnown() : category.getContaining())
+                {
+                    names.add(element);
+                }
+            }
+            // If the index is of the known elements: keep it as that index
+            if (knownOnly)
+            {
+                known = names;
+            }
+            else
+            {
+                all = names;
+            }
+        }
+        return knownOnly ? known : all;
+    }
+    
+    /**
+     * Removes an element from the list it is in
+     *
+     * @param map     The map with the list
+     * @param key     The key of the list
+     * @param element The element to remove
+     * @param <K>     The type of the keys
+     *
+     * @return True if the list had the element
+     */
+    private static <K> boolean remove(Map<K, ArrayList<Element>> map, K key, Element element)
+    {
+        ArrayList<Element> elements = map.get(key);
+        // If the list doesn't have the element: there is nothing to remove
+        if (elements == null || !elements.remove(element)) return false;
+        // If the list is empty: remove it
+        if (elements.isEmpty())
+        {
+            map.remove(key);
+        }
+        return true;
+    }
+    
+    /**
+     * Makes the capitals of a name not matter
+     *
+     * @param name The name
+     *
+     * @return The name in lower case
+     */
+    private static String normalize(String name)
+    {
+        return name.toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Splits a name in trigrams, with spaces before and after it so short names and their start and end count
+     *
+     * @param name The name in lower case
+     *
+     * @return Every different trigram with its three characters in one number
+     */
+    private static HashSet<Long> trigrams(String name)
+    {
+        String text = FRONT_PADDING + name + BACK_PADDING;
+        HashSet<Long> trigrams = new HashSet<>();
+        // Take every three characters in a row
+        for (int i = 0; i + 3 <= text.length(); i++)
+        {
+            trigrams.add(trigram(text, i));
+        }
+        return trigrams;
+    }
+    
+    /**
+     * Puts three characters in a row in one number
+     *
+     * @param text  The text with the characters
+     * @param start The position of the first character
+     *
+     * @return The three characters as one number
+     */
+    private static long trigram(String text, int start)
+    {
+        return (long) text.charAt(start) << 32 | (long) text.charAt(start + 1) << 16 | text.charAt(start + 2);
+    }
+    
+    /**
+     * The elements by their name in lower case and by the trigrams of their name
+     */
+    private static class Names
+    {
+        private final TreeMap<String, ArrayList<Element>> byName = new TreeMap<>();
+        private final HashMap<Long, ArrayList<Element>> byTrigram = new HashMap<>();
+        
+        /**
+         * Adds an element
+         *
+         * @param element The element to add, with its current name
+         */
+        private void add(Element element)
+        {
+            String name = normalize(element.getName());
+            byName.computeIfAbsent(name, key -> new ArrayList<>(1)).add(element);
+            // Add the element to every trigram of its name once
+            for (long trigram : trigrams(name))
+            {
+                byTrigram.computeIfAbsent(trigram, key -> new ArrayList<>(2)).add(element);
+            }
+        }
+        
+        /**
+         * Removes an element when it was added
+         *
+         * @param element The element to remove, with the name it was added with
+         */
+        private void remove(Element element)
+        {
+            String name = normalize(element.getName());
+            // If the element was not added: there is nothing to remove
+            if (!NameIndex.remove(byName, name, element)) return;
+            // Remove the element from every trigram of its name
+            for (long trigram : trigrams(name))
+            {
+                NameIndex.remove(byTrigram, trigram, element);
+            }
+        }
+        
+        /**
+         * Checks if an element was added
+         *
+         * @param element The element to look for
+         *
+         * @return True if the element was added
+         */
+        private boolean contains(Element element)
+        {
+            ArrayList<Element> elements = byName.get(normalize(element.getName()));
+            return elements != null && elements.contains(element);
+        }
+    }
+}
@@ -0,0 +1,671 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Merges two or three safe files of a content pack without loading them into the game.<br>
+ * Ours and theirs are two forks of the pack, base is the version they were forked from.
+ * Without a base every difference between ours and theirs is a conflict, with a base a change on only one side wins.
+ * When both sides changed the same thing differently ours wins and the conflict is reported.
+ * <p>
+ * Elements are matched by id and recipes by their key. Every file is streamed once into ExternalSorters,
+ * the recipes are merged by key, the elements by id and joined with their recipes, and the result is sorted
+ * by category to be written. So only the runs of the sorters are in memory, not the packs.
+ * The categories of the merged pack are in alphabetical order and the elements in a category in the order of their id.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class PackMerger
+{
+    private static final String USAGE = "Usage: PackMerger [base (optional)] [ours] [theirs] [output]";
+    private static final int BASE = 0, OURS = 1, THEIRS = 2, SIDES = 3;
+    private static final char SEPARATOR = '\t';
+    private static final String NO_CATEGORY = "";
+    private static final String ID_FORMAT = "%010d";
+    
+    /**
+     * The kinds of differences the merge reports
+     */
+    public enum Kind
+    {
+        RECIPE(true), NAME(true), CATEGORY(true), DELETED(true), RENAMED(false), MOVED(false);
+        
+        private final boolean conflict;
+        
+        /**
+         * Constructor for the enum
+         *
+         * @param conflict True if both sides changed the same thing differently
+         */
+        Kind(boolean conflict)
+        {
+            this.conflict = conflict;
+        }
+        
+        /**
+         * @return True if both sides changed the same thing differently, false if only one side changed it
+         */
+        public boolean isConflict()
+        {
+            return conflict;
+        }
+    }
+    
+    private final File[] inputs;
+    private final int runSize;
+    
+    /**
+     * Constructor for the class
+     *
+     * @param base   The version both forks started from or null for a two way merge
+     * @param ours   Our fork, it wins conflicts
+     * @param theirs Their fork
+     */
+    public PackMerger(File base, File ours, File theirs)
+    {
+        this(base, ours, theirs, ExternalSorter.DEFAULT_RUN_SIZE);
+    }
+    
+    /**
+     * Constructor for the class
+     *
+     * @param base    The version both forks started from or null for a two way merge
+     * @param ours    Our fork, it wins conflicts
+     * @param theirs  Their fork
+     * @param runSize The amount of lines every sorter keeps in memory
+     */
+    public PackMerger(File base, File ours, File theirs, int runSize)
+    {
+        assert ours != null : "null file";
+        assert theirs != null : "null file";
+        inputs = new File[]{base, ours, theirs};
+        this.runSize = runSize;
+    }
+    
+    /**
+     * Main method for merging packs
+     *
+     * @param args Optionally the base, then ours, theirs and the location of the merged file
+     */
+    public static void main(String[] args)
+    {
+        // If the files are not given: inform the user
+        if (args.length < 3 || args.length > 4)
+        {
+            System.out.println(USAGE);
+            return;
+        }
+        int offset = args.length - 3;
+        File base = offset == 1 ? new File(args[0]) : null;
+        PackMerger merger = new PackMerger(base, new File(args[offset]), new File(args[offset + 1]));
+        // Merge the packs and print every difference that was found
+        try
+        {
+            Summary summary = merger.merge(new File(args[offset + 2]), System.out::println);
+            System.out.println(summary);
+        }
+        // If a pack could not be read or the merged file could not be written: inform the user
+        catch (IOException | ElementallyException | UncheckedIOException ex)
+        {
+            System.out.println(ex.getMessage());
+        }
+    }
+    
+    /**
+     * Merges the packs and writes the merged pack
+     *
+     * @param output      The location of the merged pack
+     * @param differences The consumer that receives the conflicts, renames and moves as soon as they are found
+     *
+     * @return The amounts of merged elements, recipes and differences
+     * @throws IOException          When a pack could not be read or the merged pack could not be written
+     * @throws ElementallyException When a pack has segments that can not be read
+     */
+    public Summary merge(File output, Consumer<Difference> differences) throws IOException, ElementallyException
+    {
+        assert output != null : "null file";
+        assert differences != null : "null consumer";
+        Summary summary = new Summary();
+        ExternalSorter[] elements = new ExternalSorter[SIDES];
+        ExternalSorter recipes = new ExternalSorter(runSize);
+        ExternalSorter byResult = new ExternalSorter(runSize);
+        ExternalSorter byCategory = new ExternalSorter(runSize);
+        try
+        {
+            // Split every pack in elements sorted by id and recipes sorted by key
+            for (int side = 0; side < SIDES; side++)
+            {
+                elements[side] = new ExternalSorter(runSize);
+                // If there is no base: it's a pack without elements
+                if (inputs[side] != null)
+                {
+                    split(inputs[side], side, elements[side], recipes, summary);
+                }
+            }
+            mergeRecipes(recipes.sorted(), byResult, summary, differences);
+            mergeElements(elements, byResult.sorted(), byCategory, summary, differences);
+            write(byCategory.sorted(), output);
+        }
+        finally
+        {
+            // Remove the runs of every sorter
+            for (ExternalSorter sorter : elements)
+            {
+                if (sorter != null) sorter.close();
+            }
+            recipes.close();
+            byResult.close();
+            byCategory.close();
+        }
+        return summary;
+    }
+    
+    /**
+     * Reads a pack line by line and adds its elements and recipes to the sorters
+     *
+     * @param file     The pack
+     * @param side     The side of the pack
+     * @param elements The sorter for the elements of this side, as [id] [category] [state] [name]
+     * @param recipes  The sorter for the recipes of every side, as [key] [side] [result] [state]
+     * @param summary  The summary to count the invalid lines in
+     *
+     * @throws IOException          When the pack could not be read
+     * @throws ElementallyException When the pack has segments that can not be read
+     */
+    private static void split(File file, int side, ExternalSorter elements, ExternalSorter recipes, Summary summary)
+            throws IOException, ElementallyException
+    {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new SegmentedSafeFile(file).openStream(),
+                                                                              StandardCharsets.UTF_8)))
+        {
+            String category = NO_CATEGORY;
+            String line;
+            // Read every line of the pack
+            while ((line = reader.readLine()) != null)
+            {
+                // If the line is empty: skip it
+                if (line.isEmpty()) continue;
+                String[] components = line.split(";");
+                // If the line is a category: the elements after it are in that category
+                if (components[0].equals("c") && components.length == 2)
+                {
+                    category = components[1];
+                    continue;
+                }
+                // If the line can't be an element: count it and skip it
+                if (components.length < 6 || !isNumber(components[1]) ||
+                    category.equals(NO_CATEGORY) && !components[2].equals(ElementCooker.NOTHING_NAME))
+                {
+                    summary.invalidLines++;
+                    continue;
+                }
+                String id = String.format(ID_FORMAT, Long.parseLong(components[1]));
+                elements.add(id + SEPARATOR + category + SEPARATOR + components[0] + SEPARATOR + components[2]);
+                String state = "q";
+                // Add every recipe with the state of the list it is in: q, k or u
+                for (int i = 4; i < components.length; i++)
+                {
+                    // If the component starts the next list: the recipes after it have that state
+                    if (components[i].equals("k") || components[i].equals("u"))
+                    {
+                        state = components[i];
+                    }
+                    else
+                    {
+                        recipes.add(components[i] + SEPARATOR + side + SEPARATOR + id + SEPARATOR + state);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Checks if a text is an id
+     *
+     * @param text The text to check
+     *
+     * @return True if the text only has digits and fits in an int
+     */
+    private static boolean isNumber(String text)
+    {
+        // If the text is empty or too long: it can't be an id
+        if (text.isEmpty() || text.length() > 10) return false;
+        // Check every character
+        for (int i = 0; i < text.length(); i++)
+        {
+            if (!Character.isDigit(text.charAt(i))) return false;
+        }
+        return Long.parseLong(text) <= Integer.MAX_VALUE;
+    }
+    
+    /**
+     * Decides which element every recipe creates
+     *
+     * @param recipes     The recipes of every side sorted by key
+     * @param byResult    The sorter for the merged recipes, as [result] [state] [key]
+     * @param summary     The summary to count the recipes and conflicts in
+     * @param differences The consumer that receives the conflicts
+     *
+     * @throws IOException When a run could not be written
+     */
+    private static void mergeRecipes(Iterator<String> recipes, ExternalSorter byResult, Summary summary,
+                                     Consumer<Difference> differences) throws IOException
+    {
+        String[][] group = new String[SIDES][];
+        String key = null;
+        // Go through the recipes, the recipes with the same key are next to each other
+        while (recipes.hasNext() || key != null)
+        {
+            String[] record = recipes.hasNext() ? recipes.next().split(String.valueOf(SEPARATOR)) : null;
+            // If the key is different from the key before: the group of the key before is complete
+            if (key != null && (record == null || !record[0].equals(key)))
+            {
+                String[] chosen = chooseRecipe(key, group, summary, differences);
+                // If a side keeps the recipe: add it to its result
+                if (chosen != null)
+                {
+                    byResult.add(chosen[2] + SEPARATOR + chosen[3] + SEPARATOR + key);
+                    summary.recipes++;
+                }
+                group = new String[SIDES][];
+                key = null;
+            }
+            // If there is a next recipe: add it to the group of its key, a side only counts its first one
+            if (record != null)
+            {
+                key = record[0];
+                int side = record[1].charAt(0) - '0';
+                if (group[side] == null) group[side] = record;
+            }
+        }
+    }
+    
+    /**
+     * Chooses the side whose result of a recipe is kept
+     *
+     * @param key         The key of the recipe
+     * @param group       The record of every side with the recipe, null for sides without it
+     * @param summary     The summary to count the conflicts in
+     * @param differences The consumer that receives the conflicts
+     *
+     * @return The record of the chosen side or null when the recipe was removed
+     */
+    private static String[] chooseRecipe(String key, String[][] group, Summary summary,
+                                         Consumer<Difference> differences)
+    {
+        String base = group[BASE] == null ? null : group[BASE][2];
+        String ours = group[OURS] == null ? null : group[OURS][2];
+        String theirs = group[THEIRS] == null ? null : group[THEIRS][2];
+        int side = choose(base, ours, theirs);
+        // If both sides changed the recipe differently: keep ours, or theirs when ours removed it
+        if (side == -1)
+        {
+            side = ours != null ? OURS : THEIRS;
+            report(new Difference(Kind.RECIPE, key, toId(ours), toId(theirs)), summary, differences);
+        }
+        return group[side];
+    }
+    
+    /**
+     * Chooses the side that wins a three way merge of one value
+     *
+     * @param base   The value in the base or null
+     * @param ours   Our value or null
+     * @param theirs Their value or null
+     *
+     * @return OURS or THEIRS, or -1 when both sides changed the value differently
+     */
+    private static int choose(String base, String ours, String theirs)
+    {
+        // If both sides are the same or only theirs is the same as the base: ours is the change
+        if (Objects.equals(ours, theirs) || Objects.equals(base, theirs)) return OURS;
+        // If only ours is the same as the base: theirs is the change
+        if (Objects.equals(base, ours)) return THEIRS;
+        return -1;
+    }
+    
+    /**
+     * Merges the elements of every side by id and joins them with their merged recipes
+     *
+     * @param elements    The sorters with the elements of every side
+     * @param recipes     The merged recipes sorted by result
+     * @param byCategory  The sorter for the merged lines, as [category] [id] [line]
+     * @param summary     The summary to count the elements and differences in
+     * @param differences The consumer that receives the differences
+     *
+     * @throws IOException When a run could not be written
+     */
+    private static void mergeElements(ExternalSorter[] elements, Iterator<String> recipes, ExternalSorter byCategory,
+                                      Summary summary, Consumer<Difference> differences) throws IOException
+    {
+        ArrayList<Iterator<String>> sides = new ArrayList<>(SIDES);
+        String[][] heads = new String[SIDES][];
+        // Start reading every side
+        for (int side = 0; side < SIDES; side++)
+        {
+            sides.add(elements[side].sorted());
+            heads[side] = next(sides.get(side), null);
+        }
+        String[] recipe = recipes.hasNext() ? recipes.next().split(String.valueOf(SEPARATOR)) : null;
+        // Take the smallest id of all sides until every side is done
+        while (heads[BASE] != null || heads[OURS] != null || heads[THEIRS] != null)
+        {
+            String id = null;
+            // Find the smallest id
+            for (String[] head : heads)
+            {
+                if (head != null && (id == null || head[0].compareTo(id) < 0)) id = head[0];
+            }
+            String[][] versions = new String[SIDES][];
+            // Take the element with the id from every side that has it
+            for (int side = 0; side < SIDES; side++)
+            {
+                // If the side has the element: use it and skip other lines with the same id
+                if (heads[side] != null && heads[side][0].equals(id))
+                {
+                    versions[side] = heads[side];
+                    heads[side] = next(sides.get(side), id);
+                }
+            }
+            String[] merged = chooseElement(versions, summary, differences);
+            StringBuilder[] lists = {new StringBuilder("q;"), new StringBuilder("k;"), new StringBuilder("u;")};
+            // Skip the recipes of elements that were removed and collect the recipes of this element
+            while (recipe != null && recipe[0].compareTo(id) <= 0)
+            {
+                // If the recipe creates this element and the element is kept: add it to the list of its state
+                if (recipe[0].equals(id) && merged != null)
+                {
+                    lists["qku".indexOf(recipe[1])].append(recipe[2]).append(';');
+                }
+                else
+                {
+                    summary.droppedRecipes++;
+                }
+                recipe = recipes.hasNext() ? recipes.next().split(String.valueOf(SEPARATOR)) : null;
+            }
+            // If the element is kept: add its line
+            if (merged != null)
+            {
+                String line = merged[2] + ";" + Integer.parseInt(id) + ";" + merged[3] + ";" +
+                              lists[0] + lists[1] + lists[2];
+                byCategory.add(merged[1] + SEPARATOR + id + SEPARATOR + line);
+                summary.elements++;
+            }
+        }
+        // Count the recipes of elements that do not exist on any side
+        while (recipe != null)
+        {
+            summary.droppedRecipes++;
+            recipe = recipes.hasNext() ? recipes.next().split(String.valueOf(SEPARATOR)) : null;
+        }
+    }
+    
+    /**
+     * Reads the next element of a side, skipping the elements with the same id as the one before
+     *
+     * @param side     The sorted elements of the side
+     * @param previous The id of the element before or null
+     *
+     * @return The fields of the element or null when the side is done
+     */
+    private static String[] next(Iterator<String> side, String previous)
+    {
+        // Read until an element with a different id
+        while (side.hasNext())
+        {
+            String[] fields = side.next().split(String.valueOf(SEPARATOR), 4);
+            if (!fields[0].equals(previous)) return fields;
+        }
+        return null;
+    }
+    
+    /**
+     * Merges the versions of one element
+     *
+     * @param versions    The fields of the element on every side, null for sides without it
+     * @param summary     The summary to count the differences in
+     * @param differences The consumer that receives the differences
+     *
+     * @return The merged fields or null when the element was removed
+     */
+    private static String[] chooseElement(String[][] versions, Summary summary, Consumer<Difference> differences)
+    {
+        String[] base = versions[BASE], ours = versions[OURS], theirs = versions[THEIRS];
+        String id = String.valueOf(Integer.parseInt((ours != null ? ours : theirs != null ? theirs : base)[0]));
+        // If only one side has the element: it was added there or removed on the other side
+        if (ours == null || theirs == null)
+        {
+            String[] kept = ours != null ? ours : theirs;
+            // If the element is in neither side or the kept side did not change it: it's removed
+            if (kept == null || base != null && String.join(";", base).equals(String.join(";", kept)))
+            {
+                return null;
+            }
+            // If the element was in the base: one side changed it and the other removed it, it's kept
+            if (base != null)
+            {
+                report(new Difference(Kind.DELETED, id, ours == null ? null : ours[3], theirs == null ? null : theirs[3]),
+                       summary, differences);
+            }
+            return kept;
+        }
+        String[] merged = ours.clone();
+        // Merge the category, the state and the name one by one
+        for (int field = 1; field < merged.length; field++)
+        {
+            int side = choose(base == null ? null : base[field], ours[field], theirs[field]);
+            merged[field] = side == THEIRS ? theirs[field] : ours[field];
+            // If both sides changed the category or name differently: ours is kept
+            if (side == -1 && field != 2)
+            {
+                report(new Difference(field == 1 ? Kind.CATEGORY : Kind.NAME, id, ours[field], theirs[field]),
+                       summary, differences);
+            }
+        }
+        // If the element has a new name or category compared to the base: report it
+        if (base != null && !base[3].equals(merged[3]))
+        {
+            report(new Difference(Kind.RENAMED, id, base[3], merged[3]), summary, differences);
+        }
+        if (base != null && !base[1].equals(merged[1]))
+        {
+            report(new Difference(Kind.MOVED, id, base[1], merged[1]), summary, differences);
+        }
+        return merged;
+    }
+    
+    /**
+     * Counts a difference and passes it on
+     *
+     * @param difference  The difference that was found
+     * @param summary     The summary to count it in
+     * @param differences The consumer that receives it
+     */
+    private static void report(Difference difference, Summary summary, Consumer<Difference> differences)
+    {
+        // If both sides changed it: it's a conflict, else only one side changed it
+        if (difference.getKind().isConflict())
+        {
+            summary.conflicts++;
+        }
+        else
+        {
+            summary.changes++;
+        }
+        differences.accept(difference);
+    }
+    
+    /**
+     * Turns a padded id back into the id
+     *
+     * @param padded The id with leading zeros or null
+     *
+     * @return The id or null
+     */
+    private static String toId(String padded)
+    {
+        return padded == null ? null : String.valueOf(Integer.parseInt(padded));
+    }
+    
+    /**
+     * Writes the merged lines with a category line before the elements of every category
+     *
+     * @param lines  The merged lines sorted by category and id
+     * @param output The location of the merged pack
+     *
+     * @throws IOException When the merged pack could not be written
+     */
+    private static void write(Iterator<String> lines, File output) throws IOException
+    {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Compression.create(output, false),
+                                                                       StandardCharsets.UTF_8)))
+        {
+            String category = NO_CATEGORY;
+            // Write every line, the nothing element has no category so it comes first
+            while (lines.hasNext())
+            {
+                String[] fields = lines.next().split(String.valueOf(SEPARATOR), 3);
+                // If the line is in a new category: write the category first
+                if (!fields[0].equals(category))
+                {
+                    category = fields[0];
+                    writer.write("c;" + category + "\n");
+                }
+                writer.write(fields[2]);
+                writer.write('\n');
+            }
+        }
+    }
+    
+    /**
+     * Something that differs between the sides of the merge
+     */
+    public static class Difference
+    {
+        private final Kind kind;
+        private final String subject, ours, theirs;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param kind    The kind of difference
+         * @param subject The key of the recipe or the id of the element
+         * @param ours    Our value or the value in the base for a rename or move, null when it was removed
+         * @param theirs  Their value or the merged value for a rename or move, null when it was removed
+         */
+        public Difference(Kind kind, String subject, String ours, String theirs)
+        {
+            this.kind = kind;
+            this.subject = subject;
+            this.ours = ours;
+            this.theirs = theirs;
+        }
+        
+        /**
+         * @return The kind of difference
+         */
+        public Kind getKind()
+        {
+            return kind;
+        }
+        
+        /**
+         * @return The key of the recipe or the id of the element
+         */
+        public String getSubject()
+        {
+            return subject;
+        }
+        
+        /**
+         * @return A readable line with the kind, the subject and both values
+         */
+        @Override
+        public String toString()
+        {
+            String separator = kind.isConflict() ? ", theirs: " : " -> ";
+            String first = kind.isConflict() ? "ours: " : "";
+            return kind + " " + subject + ": " + first + (ours == null ? "removed" : ours) + separator +
+                   (theirs == null ? "removed" : theirs);
+        }
+    }
+    
+    /**
+     * The amounts of merged elements, recipes and differences
+     */
+    public static class Summary
+    {
+        private int elements, recipes, conflicts, changes, droppedRecipes, invalidLines;
+        
+        /**
+         * @return The amount of elements in the merged pack, including nothing
+         */
+        public int getElements()
+        {
+            return elements;
+        }
+        
+        /**
+         * @return The amount of recipes in the merged pack
+         */
+        public int getRecipes()
+        {
+            return recipes;
+        }
+        
+        /**
+         * @return The amount of things both sides changed differently
+         */
+        public int getConflicts()
+        {
+            return conflicts;
+        }
+        
+        /**
+         * @return The amount of elements that were renamed or moved on one side
+         */
+        public int getChanges()
+        {
+            return changes;
+        }
+        
+        /**
+         * @return The amount of recipes that were left out because the element they create was removed
+         */
+        public int getDroppedRecipes()
+        {
+            return droppedRecipes;
+        }
+        
+        /**
+         * @return The amount of lines in the packs that could not be read
+         */
+        public int getInvalidLines()
+        {
+            return invalidLines;
+        }
+        
+        /**
+         * @return A readable line with all the amounts
+         */
+        @Override
+        public String toString()
+        {
+            return String.format("Merged %d elements and %d recipes: %d conflicts, %d renamed or moved, " +
+                                 "%d recipes dropped, %d invalid lines",
+                                 elements, recipes, conflicts, changes, droppedRecipes, invalidLines);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Reads and writes the progress of a profile without the content of the game.<br>
+ * The elements, categories and recipes are stored once in the safe file, a profile only stores
+ * the ids of the elements it knows and the recipes it knows or quized.
+ * The ids are sorted and written as the difference with the previous id in as few bytes as needed,
+ * so a profile is a few bytes per known element.
+ * Because only the ids are stored, the elements are not renumbered while there are profiles next to the safe file.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class ProgressFile
+{
+    public static final String EXTENSION = ".progress";
+    
+    private static final int FILE_VERSION = 1;
+    private static final int VARINT_BITS = 7;
+    private static final int VARINT_MASK = (1 << VARINT_BITS) - 1;
+    private static final int VARINT_MORE = 1 << VARINT_BITS;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final String UNKNOWN_VERSION = "Unknown progress file version";
+    private static final String INVALID_AMOUNT = "Invalid amount in progress file";
+    
+    /**
+     * Constructor for the class, only the static methods are used
+     */
+    private ProgressFile()
+    {
+    }
+    
+    /**
+     * Writes the progress of the game, only the known elements are visited
+     *
+     * @param game   The game of which the progress is written
+     * @param output The stream to write to
+     *
+     * @throws IOException When the stream could not be written to
+     */
+    public static void save(ElementCooker game, DataOutputStream output) throws IOException
+    {
+        assert game != null : "null game";
+        assert output != null : "null stream";
+        ArrayList<Element> known = new ArrayList<>();
+        known.add(game.getNothing());
+        // Only elements in the known categories can be known
+        for (Category category : game.getKnownCategories())
+        {
+            known.addAll(category.getKnown());
+        }
+        long[] elements = new long[known.size()];
+        int amount = 0;
+        int knownRecipes = 0;
+        int quizedRecipes = 0;
+        // Write down the known elements and count their recipes
+        for (Element element : known)
+        {
+            // If the element is not basic: it is only known because of the progress
+            if (!element.isBasic())
+            {
+                elements[amount++] = element.getId();
+            }
+            knownRecipes += element.getKnownRecipes().size();
+            quizedRecipes += element.getQuizedRecipes().size();
+        }
+        long[] learned = new long[knownRecipes];
+        long[] quized = new long[quizedRecipes];
+        knownRecipes = 0;
+        quizedRecipes = 0;
+        // Write down the known and quized recipes of every known element
+        for (Element element : known)
+        {
+            // Add every known recipe
+            for (String recipe : element.getKnownRecipes())
+            {
+                learned[knownRecipes++] = pack(recipe);
+            }
+            // Add every quized recipe
+            for (String recipe : element.getQuizedRecipes())
+            {
+                quized[quizedRecipes++] = pack(recipe);
+            }
+        }
+        output.writeInt(FILE_VERSION);
+        writeSorted(output, Arrays.copyOf(elements, amount));
+        writeSorted(output, learned);
+        writeSorted(output, quized);
+    }
+    
+    /**
+     * Reads the progress of a profile into the game, the progress the game had before is forgotten.<br>
+     * Elements and recipes that are not in the game anymore are skipped
+     *
+     * @param game  The game to read the progress into
+     * @param input The stream to read from
+     *
+     * @throws IOException          When the stream could not be read
+     * @throws ElementallyException When the stream contains an unknown version
+     */
+    public static void load(ElementCooker game, DataInputStream input) throws IOException, ElementallyException
+    {
+        assert game != null : "null game";
+        assert input != null : "null stream";
+        // If the version is not known: the data can't be read
+        if (input.readInt() != FILE_VERSION)
+        {
+            throw new ElementallyException(UNKNOWN_VERSION);
+        }
+        long[] elements = readSorted(input);
+        long[] learned = readSorted(input);
+        long[] quized = readSorted(input);
+        game.forgetProgress(false);
+        // Learn every element that still exists
+        for (long id : elements)
+        {
+            Element element = game.getElementById((int) id, false);
+            // If the element still exists: learn it
+            if (element != null && element.getCategory() != null)
+            {
+                game.learn(element);
+            }
+        }
+        // Learn every known recipe that still exists
+        for (long recipe : learned)
+        {
+            String key = unpack(recipe);
+            Element result = game.findResult(key);
+            // If the recipe still exists: learn it
+            if (result != null)
+            {
+                result.learnRecipe(key);
+            }
+        }
+        // Learn and quiz every quized recipe that still exists
+        for (long recipe : quized)
+        {
+            String key = unpack(recipe);
+            Element result = game.findResult(key);
+            // If the recipe still exists: learn it and mark it as quized
+            if (result != null)
+            {
+                result.learnRecipe(key);
+                result.gotQuized(key);
+            }
+        }
+    }
+    
+    /**
+     * Turns a recipe into a number that sorts like the ids
+     *
+     * @param recipe The recipe following the format: [int id],[int id]
+     *
+     * @return The first id in the upper 32 bits and the second id in the lower 32 bits
+     */
+    private static long pack(String recipe)
+    {
+        int[] ids = ElementCooker.splitKey(recipe);
+        return (long) ids[0] << 32 | ids[1] & 0xffffffffL;
+    }
+    
+    /**
+     * Turns a number made by pack back into a recipe
+     *
+     * @param packed The packed recipe
+     *
+     * @return The recipe following the format: [int id],[int id]
+     */
+    private static String unpack(long packed)
+    {
+        return (int) (packed >>> 32) + "," + (int) packed;
+    }
+    
+    /**
+     * Sorts numbers and writes the amount followed by the difference of every number with the one before
+     *
+     * @param output  The stream to write to
+     * @param numbers The numbers to write, can not be negative
+     *
+     * @throws IOException When the stream could not be written to
+     */
+    private static void writeSorted(DataOutputStream output, long[] numbers) throws IOException
+    {
+        Arrays.sort(numbers);
+        writeVarLong(output, numbers.length);
+        long previous = 0;
+        // Write every difference
+        for (long number : numbers)
+        {
+            writeVarLong(output, number - previous);
+            previous = number;
+        }
+    }
+    
+    /**
+     * Reads numbers written by writeSorted.<br>
+     * The list grows while the numbers are read instead of being made as large as the amount says,
+     * so a damaged amount runs into the end of the stream before it uses more memory than the stream has numbers
+     *
+     * @param input The stream to read from
+     *
+     * @return The sorted numbers
+     * @throws IOException          When the stream could not be read or ends before the amount of numbers is read
+     * @throws ElementallyException When the amount is not possible
+     */
+    private static long[] readSorted(DataInputStream input) throws IOException, ElementallyException
+    {
+        long amount = readVarLong(input);
+        // If the amount can't be right: the file is damaged
+        if (amount < 0 || amount > Integer.MAX_VALUE)
+        {
+            throw new ElementallyException(INVALID_AMOUNT);
+        }
+        long[] numbers = new long[(int) Math.min(amount, INITIAL_CAPACITY)];
+        long previous = 0;
+        // Read every difference and add it to the number before
+        for (int i = 0; i < amount; i++)
+        {
+            // If the list is full: make it larger, but not larger than the amount
+            if (i == numbers.length)
+            {
+                numbers = Arrays.copyOf(numbers, (int) Math.min(amount, (long) numbers.length * 2));
+            }
+            previous += readVarLong(input);
+            numbers[i] = previous;
+        }
+        return numbers;
+    }
+    
+    /**
+     * Writes a number in 7 bit groups, every byte but the last has the highest bit set
+     *
+     * @param output The stream to write to
+     * @param number The number to write, can not be negative
+     *
+     * @throws IOException When the stream could not be written to
+     */
+    private static void writeVarLong(DataOutputStream output, long number) throws IOException
+    {
+        assert number >= 0 : "negative number";
+        // Write a group while there are more groups after it
+        while (number > VARINT_MASK)
+        {
+            output.writeByte((int) (number & VARINT_MASK) | VARINT_MORE);
+            number >>>= VARINT_BITS;
+        }
+        output.writeByte((int) number);
+    }
+    
+    /**
+     * Reads a number written by writeVarLong
+     *
+     * @param input The stream to read from
+     *
+     * @return The number
+     * @throws IOException When the stream could not be read
+     */
+    private static long readVarLong(DataInputStream input) throws IOException
+    {
+        long number = 0;
+        int shift = 0;
+        int group;
+        // Read groups until a group without the highest bit
+        do
+        {
+            group = input.readUnsignedByte();
+            number |= (long) (group & VARINT_MASK) << shift;
+            shift += VARINT_BITS;
+        }
+        while ((group & VARINT_MORE) != 0 && shift < Long.SIZE);
+        return number;
+    }
+}
@@ -0,0 +1,508 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Loads a safe file in two parts so the game can start before the whole file is read.<br>
+ * The nothing element and the categories with known elements are loaded straight away,
+ * the other categories are read on a background thread and added to the game when they are needed or ready.
+ * Only the main thread adds chunks to the game, the background thread only reads them.
+ * When the main thread needs a category that is not read yet it reads that category itself
+ * instead of waiting for the background thread to get there.
+ * Before reading the chunks the background thread scans the ids and recipes of every chunk,
+ * so an element or recipe only waits for the chunk it is in and a combination without a recipe does not wait at all.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class ProgressiveLoader
+{
+    private static final int UNCLAIMED = 0;
+    private static final int CLAIMED = 1;
+    
+    private final ElementCooker game;
+    private final SafeFileLoader.Chunk[] pending;
+    private final CompletableFuture<?>[] parsed;
+    private final AtomicIntegerArray claims;
+    private final boolean[] installed;
+    private final CompletableFuture<long[]> idIndex;
+    private final CompletableFuture<RecipeIndex> recipeIndex;
+    private int remaining, pendingLines;
+    
+    /**
+     * Constructor for the class, loads the known part of the data and starts reading the rest in the background
+     *
+     * @param game The game to load the data in
+     * @param data The data of a safe file
+     */
+    public ProgressiveLoader(ElementCooker game, String data)
+    {
+        assert game != null : "null game";
+        assert data != null : "null data";
+        this.game = game;
+        ArrayList<SafeFileLoader.Chunk> first = new ArrayList<>();
+        ArrayList<SafeFileLoader.Chunk> later = new ArrayList<>();
+        // Load the lines before the first category and the categories with known elements first
+        for (SafeFileLoader.Chunk chunk : SafeFileLoader.split(data))
+        {
+            // If the chunk is needed for the first menu: load it now, else later
+            if (chunk.getCategoryName() == null || chunk.containsKnown())
+            {
+                first.add(chunk);
+            }
+            else
+            {
+                later.add(chunk);
+                pendingLines += chunk.getLines();
+            }
+        }
+        SafeFileLoader.parse(first);
+        // Add the known chunks in the order they are in the file
+        for (SafeFileLoader.Chunk chunk : first)
+        {
+            game.install(chunk);
+        }
+        pending = later.toArray(new SafeFileLoader.Chunk[0]);
+        parsed = new CompletableFuture<?>[pending.length];
+        // Every chunk gets its own moment it is read
+        for (int i = 0; i < parsed.length; i++)
+        {
+            parsed[i] = new CompletableFuture<>();
+        }
+        claims = new AtomicIntegerArray(pending.length);
+        installed = new boolean[pending.length];
+        idIndex = new CompletableFuture<>();
+        recipeIndex = new CompletableFuture<>();
+        remaining = pending.length;
+        Thread background = new Thread(this::readInBackground, "safe file loader");
+        background.setDaemon(true);
+        background.start();
+    }
+    
+    /**
+     * Reads the ids and recipes of the pending chunks and then the chunks themselves, runs on the background thread
+     */
+    private void readInBackground()
+    {
+        // Read the ids first, so elements can be found without reading every chunk
+        try
+        {
+            idIndex.complete(buildIdIndex());
+        }
+        catch (RuntimeException rEx)
+        {
+            idIndex.completeExceptionally(rEx);
+        }
+        // Read the recipes next, so combinations can be answered without reading every chunk
+        try
+        {
+            recipeIndex.complete(buildRecipeIndex());
+        }
+        catch (RuntimeException rEx)
+        {
+            recipeIndex.completeExceptionally(rEx);
+        }
+        // Read every chunk that the main thread did not claim
+        for (int i = 0; i < pending.length; i++)
+        {
+            read(i);
+        }
+    }
+    
+    /**
+     * Makes an index of every id in the pending chunks
+     *
+     * @return The ids shifted 32 bits to the left with the index of their chunk in the lower bits, sorted
+     */
+    private long[] buildIdIndex()
+    {
+        long[] index = new long[16];
+        int amount = 0;
+        // Add the ids of every pending chunk
+        for (int i = 0; i < pending.length; i++)
+        {
+            // Add every id of the chunk together with the chunk index
+            for (int id : SafeFileLoader.scanIds(pending[i]))
+            {
+                // If the index is full: make it larger
+                if (amount == index.length)
+                {
+                    index = Arrays.copyOf(index, amount * 2);
+                }
+                index[amount++] = (long) id << 32 | i;
+            }
+        }
+        index = Arrays.copyOf(index, amount);
+        Arrays.sort(index);
+        return index;
+    }
+    
+    /**
+     * Makes an index of every recipe in the pending chunks
+     *
+     * @return The chunks every recipe is in
+     */
+    private RecipeIndex buildRecipeIndex()
+    {
+        long[][] recipes = new long[pending.length][];
+        int amount = 0;
+        // Read the recipes of every pending chunk
+        for (int i = 0; i < pending.length; i++)
+        {
+            recipes[i] = SafeFileLoader.scanRecipes(pending[i]);
+            amount += recipes[i].length;
+        }
+        RecipeIndex index = new RecipeIndex(amount);
+        // Add every recipe of every chunk together with the chunk index
+        for (int i = 0; i < pending.length; i++)
+        {
+            // Add every recipe of this chunk
+            for (long recipe : recipes[i])
+            {
+                index.put(recipe, i);
+            }
+        }
+        return index;
+    }
+    
+    /**
+     * Reads a chunk if no other thread claimed it yet
+     *
+     * @param chunk The index of the chunk
+     */
+    private void read(int chunk)
+    {
+        // If an other thread claimed the chunk: that thread reads it
+        if (!claims.compareAndSet(chunk, UNCLAIMED, CLAIMED)) return;
+        // Read the chunk and tell the waiting threads it's done
+        try
+        {
+            SafeFileLoader.parse(pending[chunk]);
+            parsed[chunk].complete(null);
+        }
+        catch (RuntimeException rEx)
+        {
+            parsed[chunk].completeExceptionally(rEx);
+        }
+    }
+    
+    /**
+     * Makes sure a chunk is added to the game, reads it on this thread when the background thread did not yet.<br>
+     * Should only be called from the main thread
+     *
+     * @param chunk The index of the chunk
+     */
+    private void await(int chunk)
+    {
+        if (installed[chunk]) return;
+        read(chunk);
+        installed[chunk] = true;
+        remaining--;
+        pendingLines -= pending[chunk].getLines();
+        // Wait for the chunk and add it to the game
+        try
+        {
+            parsed[chunk].join();
+            game.install(pending[chunk]);
+        }
+        // If the chunk could not be read: the category is skipped
+        catch (CompletionException cEx)
+        {
+            System.err.println(pending[chunk].getCategoryName() + ": " + cEx.getCause());
+        }
+    }
+    
+    /**
+     * Adds every chunk that is read to the game without waiting for the rest
+     */
+    public void installReady()
+    {
+        // Add the chunks that are done in the order they are in the file
+        for (int i = 0; i < pending.length && remaining > 0; i++)
+        {
+            // If the chunk is read but not added: add it
+            if (!installed[i] && parsed[i].isDone())
+            {
+                await(i);
+            }
+        }
+    }
+    
+    /**
+     * Waits until the chunk with an element is added to the game
+     *
+     * @param id The id of the element
+     *
+     * @return True if a chunk was added, so it's worth looking for the element again
+     */
+    public boolean awaitElement(int id)
+    {
+        if (remaining == 0) return false;
+        long[] index;
+        // Wait until the ids are read
+        try
+        {
+            index = idIndex.join();
+        }
+        // If the ids could not be read: wait for everything
+        catch (CompletionException cEx)
+        {
+            awaitAll();
+            return true;
+        }
+        boolean added = false;
+        // Start at the first entry of the id and add every chunk that has the id
+        for (int i = firstEntry(index, id); i < index.length && (int) (index[i] >>> 32) == id; i++)
+        {
+            int chunk = (int) index[i];
+            // If the chunk is not added yet: add it
+            if (!installed[chunk])
+            {
+                await(chunk);
+                added = true;
+            }
+        }
+        return added;
+    }
+    
+    /**
+     * Waits until the chunks of a category are added to the game
+     *
+     * @param name The name of the category
+     *
+     * @return True if a chunk was added, so it's worth looking for the category again
+     */
+    public boolean awaitCategory(String name)
+    {
+        assert name != null : "null name";
+        boolean added = false;
+        // Add every pending chunk with that name
+        for (int i = 0; i < pending.length && remaining > 0; i++)
+        {
+            // If the chunk is the category and not added yet: add it
+            if (!installed[i] && name.equals(pending[i].getCategoryName()))
+            {
+                await(i);
+                added = true;
+            }
+        }
+        return added;
+    }
+    
+    /**
+     * Waits until the chunks with a recipe are added to the game.<br>
+     * A recipe is stored with the element it creates, the index of recipes tells which chunks that can be.
+     * A recipe that is in no pending chunk returns straight away
+     *
+     * @param recipe The recipe following the format: [int id],[int id]
+     *
+     * @return True if a chunk with the recipe was added
+     */
+    public boolean awaitRecipe(String recipe)
+    {
+        assert recipe != null : "null recipe";
+        if (remaining == 0) return false;
+        long key = SafeFileLoader.recipeKey(recipe, 0, recipe.length());
+        // If the recipe is not written like a recipe in a safe file: no chunk can have it
+        if (key == -1) return false;
+        RecipeIndex index;
+        // Wait until the recipes are read
+        try
+        {
+            index = recipeIndex.join();
+        }
+        // If the recipes could not be read: wait for everything
+        catch (CompletionException cEx)
+        {
+            awaitAll();
+            return true;
+        }
+        boolean added = false;
+        // Add every chunk that has the recipe
+        for (int slot = index.first(key); slot != -1; slot = index.next(key, slot))
+        {
+            int chunk = index.getChunk(slot);
+            // If the chunk is not added yet: add it
+            if (!installed[chunk])
+            {
+                await(chunk);
+                added = true;
+            }
+        }
+        return added;
+    }
+    
+    /**
+     * Waits until every chunk is added to the game
+     */
+    public void awaitAll()
+    {
+        // Add every chunk in the order they are in the file
+        for (int i = 0; i < pending.length && remaining > 0; i++)
+        {
+            await(i);
+        }
+    }
+    
+    /**
+     * @return True if every chunk is added to the game
+     */
+    public boolean isDone()
+    {
+        return remaining == 0;
+    }
+    
+    /**
+     * @return The amount of element lines that are not added to the game yet
+     */
+    public int getPendingLines()
+    {
+        return pendingLines;
+    }
+    
+    /**
+     * Finds the first entry of an id in the index
+     *
+     * @param index The sorted index
+     * @param id    The id to look for
+     *
+     * @return The position of the first entry with the id or the length of the index
+     */
+    private static int firstEntry(long[] index, int id)
+    {
+        long key = (long) id << 32;
+        int smallest = 0;
+        int largest = index.length;
+        // Search the first entry that is not smaller than the id
+        while (smallest < largest)
+        {
+            int middle = (smallest + largest) >>> 1;
+            // If the entry is smaller than the id: move the smallest limit
+            if (index[middle] < key)
+            {
+                smallest = middle + 1;
+            }
+            else
+            {
+                largest = middle;
+            }
+        }
+        return smallest;
+    }
+    
+    /**
+     * The chunks of every recipe in a table of numbers, a recipe that is in several chunks is in the table several times
+     */
+    private static class RecipeIndex
+    {
+        private static final long EMPTY = -1;
+        
+        private final long[] keys;
+        private final int[] chunks;
+        private final int mask;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param amount The amount of recipes that will be put in the index
+         */
+        RecipeIndex(int amount)
+        {
+            int capacity = Integer.highestOneBit(Math.max(2, amount * 2 - 1)) << 1;
+            keys = new long[capacity];
+            chunks = new int[capacity];
+            mask = capacity - 1;
+            Arrays.fill(keys, EMPTY);
+        }
+        
+        /**
+         * Adds a recipe with the chunk it is in
+         *
+         * @param key   The recipe as one number
+         * @param chunk The index of the chunk
+         */
+        void put(long key, int chunk)
+        {
+            int slot = slot(key);
+            // Look for an empty slot
+            while (keys[slot] != EMPTY)
+            {
+                slot = slot + 1 & mask;
+            }
+            keys[slot] = key;
+            chunks[slot] = chunk;
+        }
+        
+        /**
+         * Finds the first slot with a recipe
+         *
+         * @param key The recipe as one number
+         *
+         * @return The slot or -1 when no chunk has the recipe
+         */
+        int first(long key)
+        {
+            return find(key, slot(key));
+        }
+        
+        /**
+         * Finds the next slot with a recipe
+         *
+         * @param key  The recipe as one number
+         * @param slot The slot that was found before
+         *
+         * @return The slot or -1 when no other chunk has the recipe
+         */
+        int next(long key, int slot)
+        {
+            return find(key, slot + 1 & mask);
+        }
+        
+        /**
+         * Gives the chunk of a slot
+         *
+         * @param slot A slot that was found
+         *
+         * @return The index of the chunk
+         */
+        int getChunk(int slot)
+        {
+            return chunks[slot];
+        }
+        
+        /**
+         * Looks for a recipe from a slot on until an empty slot
+         *
+         * @param key  The recipe as one number
+         * @param slot The slot to start looking
+         *
+         * @return The slot or -1 when the recipe is not found before an empty slot
+         */
+        private int find(long key, int slot)
+        {
+            // Look for the key until an empty slot
+            while (keys[slot] != EMPTY)
+            {
+                if (keys[slot] == key) return slot;
+                slot = slot + 1 & mask;
+            }
+            return -1;
+        }
+        
+        /**
+         * Finds the slot to start looking for a recipe
+         *
+         * @param key The recipe as one number
+         *
+         * @return The first slot of the recipe
+         */
+        private int slot(long key)
+        {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ mixed >>> 32) & mask;
+        }
+    }
+}
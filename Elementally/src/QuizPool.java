@@ -0,0 +1,171 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+
+/**
+ * Keeps every recipe that can be asked in a quiz.<br>
+ * A recipe can be asked when it is known but not quized yet.
+ * The recipes are kept in a list so a random one can be picked directly,
+ * removed recipes get replaced by the last recipe so removing does not shift the list.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class QuizPool
+{
+    private final ArrayList<Element> elements;
+    private final ArrayList<String> recipes;
+    private final HashMap<String, Integer> positions;
+    
+    /**
+     * Constructor for the class
+     */
+    public QuizPool()
+    {
+        elements = new ArrayList<>();
+        recipes = new ArrayList<>();
+        positions = new HashMap<>();
+    }
+    
+    /**
+     * Adds a recipe that can be asked
+     *
+     * @param element The element the recipe creates
+     * @param recipe  The recipe following the format: [int id],[int id]
+     */
+    public void add(Element element, String recipe)
+    {
+        assert element != null : "null element";
+        assert recipe != null : "null recipe";
+        Integer position = positions.get(recipe);
+        // If the recipe is already in the pool: only update the element
+        if (position != null)
+        {
+            elements.set(position, element);
+            return;
+        }
+        positions.put(recipe, recipes.size());
+        elements.add(element);
+        recipes.add(recipe);
+    }
+    
+    /**
+     * Adds all the known recipes of an element
+     *
+     * @param element The element of which the known recipes should be added
+     */
+    public void addAll(Element element)
+    {
+        assert element != null : "null element";
+        // Add every known recipe
+        for (String recipe : element.getKnownRecipes())
+        {
+            add(element, recipe);
+        }
+    }
+    
+    /**
+     * Removes a recipe so it can't be asked anymore
+     *
+     * @param recipe The recipe that should be removed
+     */
+    public void remove(String recipe)
+    {
+        assert recipe != null : "null recipe";
+        Integer position = positions.remove(recipe);
+        // If the recipe is not in the pool: there is nothing to remove
+        if (position == null) return;
+        int last = recipes.size() - 1;
+        // If the recipe is not the last one: move the last one into its place
+        if (position != last)
+        {
+            String moved = recipes.get(last);
+            recipes.set(position, moved);
+            elements.set(position, elements.get(last));
+            positions.put(moved, position);
+        }
+        recipes.remove(last);
+        elements.remove(last);
+    }
+    
+    /**
+     * Removes all the known recipes of an element
+     *
+     * @param element The element of which the known recipes should be removed
+     */
+    public void removeAll(Element element)
+    {
+        assert element != null : "null element";
+        // Remove every known recipe
+        for (String recipe : element.getKnownRecipes())
+        {
+            remove(recipe);
+        }
+    }
+    
+    /**
+     * Removes all recipes
+     */
+    public void clear()
+    {
+        elements.clear();
+        recipes.clear();
+        positions.clear();
+    }
+    
+    /**
+     * Picks a random position in the pool, every recipe has the same chance to be picked
+     *
+     * @param exclude The element of which no recipe should be picked, can be null
+     * @param random  The random generator to pick with
+     *
+     * @return The position of the picked recipe or -1 if there is no recipe that can be picked
+     */
+    public int sample(Element exclude, SplittableRandom random)
+    {
+        int excluded = exclude == null ? 0 : exclude.getKnownRecipes().size();
+        // If all recipes are from the excluded element: nothing can be picked
+        if (recipes.size() - excluded <= 0) return -1;
+        int position;
+        // Keep picking until the recipe is not from the excluded element
+        do
+        {
+            position = random.nextInt(recipes.size());
+        }
+        while (exclude != null && elements.get(position).equals(exclude));
+        return position;
+    }
+    
+    /**
+     * Simple getter for the element at a position
+     *
+     * @param position The position in the pool
+     *
+     * @return The element the recipe at that position creates
+     */
+    public Element getElement(int position)
+    {
+        return elements.get(position);
+    }
+    
+    /**
+     * Simple getter for the recipe at a position
+     *
+     * @param position The position in the pool
+     *
+     * @return The recipe at that position
+     */
+    public String getRecipe(int position)
+    {
+        return recipes.get(position);
+    }
+    
+    /**
+     * @return The amount of recipes that can be asked
+     */
+    public int size()
+    {
+        return recipes.size();
+    }
+}
@@ -0,0 +1,360 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+/**
+ * Plans when quized recipes should be asked again.<br>
+ * Every recipe has an ease and an interval, a correct answer makes the interval grow by the ease
+ * and a wrong answer starts the recipe over with a lower ease.
+ * The interval stops growing at a maximum, so a recipe that is always answered correctly is still asked now and then.
+ * Time is counted in answered questions, so the planning does not depend on how long the game is left alone.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class QuizScheduler
+{
+    private static final int FILE_VERSION = 2;
+    private static final int SHORT_COUNTERS_VERSION = 1;
+    private static final float START_EASE = 2.5f;
+    private static final float MINIMUM_EASE = 1.3f;
+    private static final int SECOND_INTERVAL = 6;
+    private static final int MAXIMUM_INTERVAL = 10000;
+    
+    private HashMap<String, Review> reviews;
+    private PriorityQueue<Due> dueList;
+    private long clock;
+    
+    /**
+     * Constructor for the class
+     */
+    public QuizScheduler()
+    {
+        reviews = new HashMap<>();
+        dueList = new PriorityQueue<>();
+        clock = 0;
+    }
+    
+    /**
+     * Starts planning a recipe, a new recipe is due straight away
+     *
+     * @param recipe The recipe that got quized
+     */
+    public void add(String recipe)
+    {
+        assert recipe != null : "null recipe";
+        // If the recipe is already planned: keep the existing planning
+        if (reviews.containsKey(recipe)) return;
+        Review review = new Review(recipe);
+        reviews.put(recipe, review);
+        plan(review, clock);
+    }
+    
+    /**
+     * Stops planning a recipe
+     *
+     * @param recipe The recipe that should not be asked anymore
+     */
+    public void forget(String recipe)
+    {
+        assert recipe != null : "null recipe";
+        Review review = reviews.remove(recipe);
+        // If the recipe was planned: make its place in the due list invalid
+        if (review != null)
+        {
+            review.planned++;
+        }
+    }
+    
+    /**
+     * Removes all the planning
+     */
+    public void clear()
+    {
+        reviews.clear();
+        dueList.clear();
+    }
+    
+    /**
+     * Checks if a recipe is planned but was never answered
+     *
+     * @param recipe The recipe to check
+     *
+     * @return True if the recipe was never answered
+     */
+    public boolean isNew(String recipe)
+    {
+        Review review = reviews.get(recipe);
+        return review != null && review.answers == 0;
+    }
+    
+    /**
+     * Finds the recipe that should be asked first
+     *
+     * @return The recipe that is due the longest or null if no recipe is due
+     */
+    public String nextDue()
+    {
+        // Remove the invalid places from the top of the due list
+        while (!dueList.isEmpty() && !dueList.peek().isValid())
+        {
+            dueList.poll();
+        }
+        // If there is no recipe or the first recipe is not due yet: there is nothing to ask
+        if (dueList.isEmpty() || dueList.peek().at > clock) return null;
+        return dueList.peek().review.recipe;
+    }
+    
+    /**
+     * Processes the answer to a question and plans when it should be asked again
+     *
+     * @param recipe  The recipe that was asked
+     * @param correct True if the question was answered correctly
+     */
+    public void answered(String recipe, boolean correct)
+    {
+        assert recipe != null : "null recipe";
+        clock++;
+        Review review = reviews.get(recipe);
+        // If the recipe is not planned: there is nothing to change
+        if (review == null) return;
+        // If the answer is correct: make the interval grow
+        if (correct)
+        {
+            review.streak++;
+            review.ease += 0.1f;
+            // The first intervals are fixed, after that the interval grows by the ease
+            if (review.streak == 1)
+            {
+                review.interval = 1;
+            }
+            else if (review.streak == 2)
+            {
+                review.interval = SECOND_INTERVAL;
+            }
+            else
+            {
+                review.interval = Math.min(MAXIMUM_INTERVAL, Math.round(review.interval * review.ease));
+            }
+        }
+        // Else: start over with a lower ease
+        else
+        {
+            review.streak = 0;
+            review.ease = Math.max(MINIMUM_EASE, review.ease - 0.2f);
+            review.interval = 1;
+        }
+        review.answers++;
+        plan(review, clock + review.interval);
+    }
+    
+    /**
+     * Gives every recipe the new ids of its ingredients
+     *
+     * @param newIds The new id for every old id, -1 for ids that don't exist anymore
+     */
+    public void renumber(int[] newIds)
+    {
+        assert newIds != null : "null ids";
+        Review[] old = reviews.values().toArray(new Review[0]);
+        clear();
+        // Rewrite every recipe and plan it again at the same moment
+        for (Review review : old)
+        {
+            int[] ids = ElementCooker.splitKey(review.recipe);
+            // If both ingredients still exist: keep the recipe
+            if (ids[0] < newIds.length && ids[1] < newIds.length && newIds[ids[0]] != -1 && newIds[ids[1]] != -1)
+            {
+                Review renumbered = new Review(newIds[ids[0]] + "," + newIds[ids[1]], review);
+                reviews.put(renumbered.recipe, renumbered);
+                plan(renumbered, review.due);
+            }
+        }
+    }
+    
+    /**
+     * Writes the planning to a stream.<br>
+     * Every recipe takes 32 bytes: the ingredient ids, the ease, the interval, the streak, the answers and the due moment
+     *
+     * @param output The stream to write to
+     *
+     * @throws IOException When the stream could not be written to
+     */
+    public void save(DataOutputStream output) throws IOException
+    {
+        assert output != null : "null stream";
+        output.writeInt(FILE_VERSION);
+        output.writeLong(clock);
+        output.writeInt(reviews.size());
+        // Write every planned recipe
+        for (Review review : reviews.values())
+        {
+            int[] ids = ElementCooker.splitKey(review.recipe);
+            output.writeInt(ids[0]);
+            output.writeInt(ids[1]);
+            output.writeFloat(review.ease);
+            output.writeInt(review.interval);
+            output.writeInt(review.streak);
+            output.writeInt(review.answers);
+            output.writeLong(review.due);
+        }
+    }
+    
+    /**
+     * Reads the planning from a stream.<br>
+     * Only recipes that are already planned get their planning replaced, other recipes are no longer quized.
+     * Planning of the first version, which wrote the streak and the answers as shorts, can still be read
+     *
+     * @param input The stream to read from
+     *
+     * @throws IOException          When the stream could not be read
+     * @throws ElementallyException When the stream contains an unknown version
+     */
+    public void load(DataInputStream input) throws IOException, ElementallyException
+    {
+        assert input != null : "null stream";
+        int version = input.readInt();
+        // If the version is not known: the data can't be read
+        if (version != FILE_VERSION && version != SHORT_COUNTERS_VERSION)
+        {
+            throw new ElementallyException("Unknown quiz planning version");
+        }
+        clock = input.readLong();
+        int amount = input.readInt();
+        // Read every planned recipe
+        for (int i = 0; i < amount; i++)
+        {
+            String recipe = input.readInt() + "," + input.readInt();
+            float ease = input.readFloat();
+            int interval = Math.min(MAXIMUM_INTERVAL, input.readInt());
+            int streak = version == SHORT_COUNTERS_VERSION ? input.readUnsignedShort() : input.readInt();
+            int answers = version == SHORT_COUNTERS_VERSION ? input.readUnsignedShort() : input.readInt();
+            long due = input.readLong();
+            Review review = reviews.get(recipe);
+            // If the recipe is still quized: use the saved planning
+            if (review != null)
+            {
+                review.ease = ease;
+                review.interval = interval;
+                review.streak = streak;
+                review.answers = answers;
+                plan(review, due);
+            }
+        }
+    }
+    
+    /**
+     * @return The amount of planned recipes
+     */
+    public int size()
+    {
+        return reviews.size();
+    }
+    
+    /**
+     * Sets the moment a recipe should be asked and adds it to the due list
+     *
+     * @param review The recipe to plan
+     * @param due    The moment the recipe should be asked
+     */
+    private void plan(Review review, long due)
+    {
+        review.due = due;
+        review.planned++;
+        dueList.add(new Due(review, due));
+        // If most places in the due list are invalid: rebuild it so it doesn't keep growing
+        if (dueList.size() > 2 * reviews.size() + 16)
+        {
+            dueList.clear();
+            // Add the latest planning of every recipe
+            for (Review planned : reviews.values())
+            {
+                dueList.add(new Due(planned, planned.due));
+            }
+        }
+    }
+    
+    /**
+     * The planning of a single recipe
+     */
+    private static class Review
+    {
+        private final String recipe;
+        private float ease;
+        private int interval;
+        private int streak, answers;
+        private long due;
+        private int planned;
+        
+        /**
+         * Constructor for a recipe that was never asked
+         *
+         * @param recipe The recipe
+         */
+        private Review(String recipe)
+        {
+            this.recipe = recipe;
+            ease = START_EASE;
+            interval = 0;
+            streak = 0;
+            answers = 0;
+            planned = 0;
+        }
+        
+        /**
+         * Constructor that copies the planning to a new recipe
+         *
+         * @param recipe The recipe
+         * @param copy   The planning to copy
+         */
+        private Review(String recipe, Review copy)
+        {
+            this.recipe = recipe;
+            ease = copy.ease;
+            interval = copy.interval;
+            streak = copy.streak;
+            answers = copy.answers;
+            planned = 0;
+        }
+    }
+    
+    /**
+     * A place in the due list, the place is invalid when the recipe got planned again or forgotten
+     */
+    private static class Due implements Comparable<Due>
+    {
+        private final Review review;
+        private final long at;
+        private final int planned;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param review The recipe that is due
+         * @param at     The moment the recipe is due
+         */
+        private Due(Review review, long at)
+        {
+            this.review = review;
+            this.at = at;
+            planned = review.planned;
+        }
+        
+        /**
+         * @return True if this is still the latest planning of the recipe
+         */
+        private boolean isValid()
+        {
+            return planned == review.planned;
+        }
+        
+        @Override
+        public int compareTo(Due other)
+        {
+            return Long.compare(at, other.at);
+        }
+    }
+}
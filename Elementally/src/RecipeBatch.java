@@ -0,0 +1,259 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Changes many recipes at once and removes the elements that lost all their recipes only when the batch is committed.<br>
+ * Every element keeps count of the recipes that create it, so at the commit only the elements
+ * that lost a recipe during the batch are checked instead of the whole game.
+ * An element that gets a recipe back later in the same batch stays in the game.
+ * All the changes of a batch are undone as one step.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class RecipeBatch
+{
+    public static final String ADD = "r";
+    public static final String DELETE = "d";
+    public static final String MERGE = "m";
+    
+    private static final String ALREADY_COMMITTED = "The batch is already committed";
+    private static final String INVALID_ARGUMENT_AMOUNT = "Invalid argument amount";
+    private static final String MERGE_WITH_ITSELF = "An element can't be merged with itself";
+    private static final String UNKNOWN_CHANGE = "Unknown change, use " + ADD + ", " + DELETE + " or " + MERGE;
+    private static final String UNKNOWN_ELEMENT = "Unknown element id: ";
+    
+    private final ElementCooker game;
+    private final Set<Element> touched;
+    private int changes;
+    private boolean committed;
+    
+    /**
+     * Constructor for the class, starts a step in the edit history that ends at the commit
+     *
+     * @param game The game the recipes are changed in
+     */
+    public RecipeBatch(ElementCooker game)
+    {
+        assert game != null : "null game";
+        this.game = game;
+        touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        changes = 0;
+        committed = false;
+        game.getHistory().begin();
+    }
+    
+    /**
+     * Adds a recipe or gives an existing recipe a new result
+     *
+     * @param elementId1 The first id of the element that will make up the recipe
+     * @param elementId2 The second id of the element that will make up the recipe
+     * @param result     The result of the recipe
+     *
+     * @throws ElementallyException When the batch is already committed
+     */
+    public void addRecipe(int elementId1, int elementId2, Element result) throws ElementallyException
+    {
+        assert result != null : "null element";
+        checkOpen();
+        Element previous = game.putRecipe(elementId1, elementId2, result);
+        // If the recipe belonged to an other element: check that element at the commit
+        if (previous != null && previous != result)
+        {
+            touched.add(previous);
+        }
+        changes++;
+    }
+    
+    /**
+     * Removes a recipe
+     *
+     * @param elementId1 The first id of the element that makes up the recipe
+     * @param elementId2 The second id of the element that makes up the recipe
+     *
+     * @throws ElementallyException When the batch is already committed
+     */
+    public void removeRecipe(int elementId1, int elementId2) throws ElementallyException
+    {
+        checkOpen();
+        Element previous = game.takeRecipe(elementId1, elementId2);
+        // If the recipe existed: check the element that had it at the commit
+        if (previous != null)
+        {
+            touched.add(previous);
+        }
+        changes++;
+    }
+    
+    /**
+     * Merges 2 elements into 1
+     *
+     * @param base     The element that needs to keep existing
+     * @param toDelete The element of which the recipes will get moved to base and which will be deleted
+     *
+     * @throws ElementallyException When the batch is already committed or base and toDelete are the same element
+     */
+    public void merge(Element base, Element toDelete) throws ElementallyException
+    {
+        assert base != null : "null element";
+        assert toDelete != null : "null element";
+        checkOpen();
+        // If the element would be merged with itself: it would be removed and lose its recipes
+        if (base == toDelete)
+        {
+            throw new ElementallyException(MERGE_WITH_ITSELF);
+        }
+        game.merge(base, toDelete);
+        touched.remove(toDelete);
+        changes++;
+    }
+    
+    /**
+     * Applies a line from a patch.<br>
+     * The line follows one of the formats: r;[id],[id];[resultId], d;[id],[id] or m;[baseId];[deleteId]
+     *
+     * @param line The line to apply
+     *
+     * @throws ElementallyException When the line has an incorrect format, an element of a recipe or merge doesn't exist
+     *                              or the batch is already committed
+     */
+    public void apply(String line) throws ElementallyException
+    {
+        assert line != null : "null line";
+        String[] components = line.trim().split(";");
+        // If the line is about a recipe: read the ingredients
+        if (components[0].equals(ADD) || components[0].equals(DELETE))
+        {
+            int expected = components[0].equals(ADD) ? 3 : 2;
+            if (components.length != expected) throw new ElementallyException(INVALID_ARGUMENT_AMOUNT);
+            int[] ids = parseKey(components[1]);
+            // If the recipe should be added: check the ingredients exist and find the result
+            if (components[0].equals(ADD))
+            {
+                findElement(Integer.toString(ids[0]));
+                findElement(Integer.toString(ids[1]));
+                addRecipe(ids[0], ids[1], findElement(components[2]));
+            }
+            else
+            {
+                removeRecipe(ids[0], ids[1]);
+            }
+        }
+        // Else if two elements should be merged: find them
+        else if (components[0].equals(MERGE))
+        {
+            if (components.length != 3) throw new ElementallyException(INVALID_ARGUMENT_AMOUNT);
+            merge(findElement(components[1]), findElement(components[2]));
+        }
+        else
+        {
+            throw new ElementallyException(UNKNOWN_CHANGE);
+        }
+    }
+    
+    /**
+     * Removes the elements that lost all their recipes during the batch and ends the step in the edit history
+     *
+     * @return The amount of elements that were removed
+     * @throws ElementallyException When the batch is already committed
+     */
+    public int commit() throws ElementallyException
+    {
+        checkOpen();
+        committed = true;
+        int removed = 0;
+        // Remove every element that has no recipes left
+        try
+        {
+            for (Element element : new ArrayList<>(touched))
+            {
+                // If the element is not basic and nothing creates it anymore: remove it
+                if (element.getRecipeCount() == 0 && !element.isBasic() && element.getCategory() != null &&
+                    element.getCategory().getElementById(element.getId(), false) == element)
+                {
+                    game.remove(element, true);
+                    removed++;
+                }
+            }
+        }
+        finally
+        {
+            touched.clear();
+            game.getHistory().end();
+        }
+        return removed;
+    }
+    
+    /**
+     * @return The amount of changes made in this batch
+     */
+    public int getChanges()
+    {
+        return changes;
+    }
+    
+    /**
+     * Checks if changes can still be made
+     *
+     * @throws ElementallyException When the batch is already committed
+     */
+    private void checkOpen() throws ElementallyException
+    {
+        // If the batch is committed: no changes can be made anymore
+        if (committed)
+        {
+            throw new ElementallyException(ALREADY_COMMITTED);
+        }
+    }
+    
+    /**
+     * Reads the ingredients of a recipe
+     *
+     * @param key The recipe following the format: [int id],[int id]
+     *
+     * @return The two ids
+     * @throws ElementallyException When the recipe has an incorrect format
+     */
+    private int[] parseKey(String key) throws ElementallyException
+    {
+        // Split the recipe in its ids
+        try
+        {
+            return ElementCooker.splitKey(key);
+        }
+        catch (NumberFormatException | IndexOutOfBoundsException ex)
+        {
+            throw new ElementallyException(INVALID_ARGUMENT_AMOUNT);
+        }
+    }
+    
+    /**
+     * Finds an element by its id
+     *
+     * @param id The id as text
+     *
+     * @return The element with the id
+     * @throws ElementallyException When the id is not a number or there is no element with that id
+     */
+    private Element findElement(String id) throws ElementallyException
+    {
+        Element found = null;
+        // Find the element with the id
+        try
+        {
+            found = game.getElementById(Integer.parseInt(id.trim()), false);
+        }
+        catch (NumberFormatException ignored)
+        {
+        }
+        // If there is no element with the id: the line can't be applied
+        if (found == null)
+        {
+            throw new ElementallyException(UNKNOWN_ELEMENT + id);
+        }
+        return found;
+    }
+}
@@ -0,0 +1,601 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reads a safe file on all cores.<br>
+ * A safe file is split at the category lines, every category with its elements is a chunk.
+ * The chunks are read on a fork-join pool: every chunk gets its elements sorted by id once
+ * and its own part of the recipe index, so adding them to the game does not need to search anything.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class SafeFileLoader
+{
+    private static final int CHUNK_THRESHOLD = 1 << 16;
+    private static final String NO_ARGUMENTS_ERROR = "Line must contain arguments";
+    private static final String INVALID_ARGUMENT_AMOUNT_CATEGORY = "Category must have two arguments";
+    private static final String NO_CATEGORY_SPECIFIED = "no category specified for element";
+    
+    /**
+     * Splits the data in chunks and reads all of them
+     *
+     * @param data The data of a safe file
+     *
+     * @return The read chunks in the order they are in the data
+     */
+    public static ArrayList<Chunk> parseAll(String data)
+    {
+        ArrayList<Chunk> chunks = split(data);
+        parse(chunks);
+        return chunks;
+    }
+    
+    /**
+     * Reads chunks on the fork-join pool
+     *
+     * @param chunks The chunks to read
+     */
+    public static void parse(ArrayList<Chunk> chunks)
+    {
+        assert chunks != null : "null chunks";
+        ForkJoinPool.commonPool().invoke(new ParseTask(chunks, 0, chunks.size()));
+    }
+    
+    /**
+     * Splits the data in chunks that start at a category line, without reading the elements
+     *
+     * @param data The data of a safe file
+     *
+     * @return The chunks in the order they are in the data, the first chunk has no category
+     */
+    public static ArrayList<Chunk> split(String data)
+    {
+        assert data != null : "null data";
+        ArrayList<Chunk> chunks = new ArrayList<>();
+        Chunk current = new Chunk(data, null, 0, 0, 0);
+        int lineNumber = 0;
+        int start = 0;
+        // Go through the lines and start a new chunk at every category
+        while (start < data.length())
+        {
+            int end = lineEnd(data, start);
+            String category = categoryName(data, start, end);
+            // If the line is a category: end the current chunk and start a new one after the line
+            if (category != null)
+            {
+                current.end = start;
+                chunks.add(current);
+                current = new Chunk(data, category, end + 1, lineNumber + 1, chunks.size());
+            }
+            // Else if the line is an element: count it and check if it's known
+            else if (end > start)
+            {
+                current.lines++;
+                current.containsKnown |= data.startsWith("k;", start) || data.startsWith("b;", start);
+            }
+            start = end + 1;
+            lineNumber++;
+        }
+        current.end = Math.max(current.start, Math.min(start, data.length()));
+        chunks.add(current);
+        return chunks;
+    }
+    
+    /**
+     * Reads all the elements in a chunk
+     *
+     * @param chunk The chunk to read
+     */
+    public static void parse(Chunk chunk)
+    {
+        assert chunk != null : "null chunk";
+        String data = chunk.data;
+        ArrayList<Element> loaded = new ArrayList<>();
+        ArrayList<Element> learned = new ArrayList<>();
+        ArrayList<Element> inFileOrder = new ArrayList<>();
+        int lineNumber = chunk.firstLine;
+        int start = chunk.start;
+        // Read every line in the chunk
+        while (start < chunk.end)
+        {
+            int end = Math.min(lineEnd(data, start), chunk.end);
+            String line = data.substring(start, end);
+            // If the line is empty: skip it
+            if (line.isEmpty())
+            {
+                start = end + 1;
+                lineNumber++;
+                continue;
+            }
+            // Read the element on the line
+            try
+            {
+                String[] components = line.split(";");
+                // If there are no arguments to read: throw an error
+                if (components.length == 0)
+                {
+                    throw new ElementallyException(NO_ARGUMENTS_ERROR);
+                }
+                // If the line is a category with the wrong amount of arguments: it can't be read
+                if (components[0].equals("c"))
+                {
+                    throw new ElementallyException(INVALID_ARGUMENT_AMOUNT_CATEGORY);
+                }
+                Element element = Element.parseLine(line); // Throws ElementallyException
+                // The progress in the file belongs to the epoch the file was split in, not the epoch it is read in
+                element.setEpoch(chunk.epoch);
+                // If a category is specified: add the element to that category
+                if (chunk.category != null)
+                {
+                    loaded.add(element);
+                    // If the element is known: learn it
+                    if (components[0].equals("k") || element.isBasic())
+                    {
+                        learned.add(element);
+                    }
+                }
+                // If the element is nothing: replace the element
+                else if (element.getName().equals(ElementCooker.NOTHING_NAME))
+                {
+                    chunk.nothing = element;
+                }
+                // No category specified: throw an exception
+                else
+                {
+                    throw new ElementallyException(NO_CATEGORY_SPECIFIED);
+                }
+                inFileOrder.add(element);
+            }
+            // If a line has a incorrect format: remember it so the player can be told
+            catch (ElementallyException eEx)
+            {
+                chunk.errors.add("line" + (lineNumber + 1) + ": " + eEx.getMessage());
+            }
+            start = end + 1;
+            lineNumber++;
+        }
+        chunk.elements = sortUnique(loaded);
+        chunk.known = new ArrayList<>();
+        // Only keep the known elements that were not dropped as duplicate
+        for (Element element : sortUnique(learned))
+        {
+            // If the element with this id is the one that was kept: it is known
+            if (contains(chunk.elements, element))
+            {
+                chunk.known.add(element);
+            }
+        }
+        // Add the recipes of every line to the recipe index of this chunk in the order of the file,
+        // so a recipe that is in several lines belongs to the last line like when the lines are read one by one
+        for (Element element : inFileOrder)
+        {
+            // Add all the recipes of the element
+            for (String recipe : element.getAllRecipes())
+            {
+                chunk.recipes.put(recipe, element);
+            }
+        }
+    }
+    
+    /**
+     * Reads only the ids of the elements in a chunk, which is a lot faster than reading the elements
+     *
+     * @param chunk The chunk to read the ids from
+     *
+     * @return The ids in the order they are in the chunk, lines without a valid id are skipped
+     */
+    public static int[] scanIds(Chunk chunk)
+    {
+        assert chunk != null : "null chunk";
+        String data = chunk.data;
+        int[] ids = new int[chunk.lines];
+        int amount = 0;
+        int start = chunk.start;
+        // Read the id of every line, it is the number after the first separator
+        while (start < chunk.end && amount < ids.length)
+        {
+            int end = Math.min(lineEnd(data, start), chunk.end);
+            int position = data.indexOf(';', start) + 1;
+            int id = 0;
+            int digits = 0;
+            // Read the digits of the id
+            while (position > 0 && position < end && Character.isDigit(data.charAt(position)) && digits < 10)
+            {
+                id = id * 10 + (data.charAt(position++) - '0');
+                digits++;
+            }
+            // If the line has an id: remember it
+            if (digits > 0 && position < end && data.charAt(position) == ';')
+            {
+                ids[amount++] = id;
+            }
+            start = end + 1;
+        }
+        return amount == ids.length ? ids : Arrays.copyOf(ids, amount);
+    }
+    
+    /**
+     * Reads only the recipes of the elements in a chunk, which is a lot faster than reading the elements
+     *
+     * @param chunk The chunk to read the recipes from
+     *
+     * @return The recipes with the first id shifted 32 bits to the left and the second id in the lower bits,
+     * recipes that are not two ids without leading zeros are skipped because no combination can have them as key
+     */
+    public static long[] scanRecipes(Chunk chunk)
+    {
+        assert chunk != null : "null chunk";
+        String data = chunk.data;
+        long[] recipes = new long[Math.max(4, chunk.lines * 2)];
+        int amount = 0;
+        int start = chunk.start;
+        // Read the recipes of every line, they are the parts after the fourth separator
+        while (start < chunk.end)
+        {
+            int end = Math.min(lineEnd(data, start), chunk.end);
+            int position = start;
+            // Skip the type, id, name and quiz identifier
+            for (int separators = 0; separators < 4 && position != -1 && position < end; separators++)
+            {
+                int separator = data.indexOf(';', position);
+                position = separator == -1 ? -1 : separator + 1;
+            }
+            // Read every part until the end of the line
+            while (position != -1 && position < end)
+            {
+                int partEnd = data.indexOf(';', position);
+                partEnd = partEnd == -1 || partEnd > end ? end : partEnd;
+                long recipe = recipeKey(data, position, partEnd);
+                // If the part is a recipe: remember it
+                if (recipe != -1)
+                {
+                    // If there is no room for the recipe: make the list larger
+                    if (amount == recipes.length)
+                    {
+                        recipes = Arrays.copyOf(recipes, amount * 2);
+                    }
+                    recipes[amount++] = recipe;
+                }
+                position = partEnd + 1;
+            }
+            start = end + 1;
+        }
+        return Arrays.copyOf(recipes, amount);
+    }
+    
+    /**
+     * Turns a recipe written as [int id],[int id] into one number
+     *
+     * @param text  The text the recipe is in
+     * @param start The position of the first character of the recipe
+     * @param end   The position after the last character of the recipe
+     *
+     * @return The first id shifted 32 bits to the left with the second id in the lower bits
+     * or -1 when the text is not two ids like ElementCooker writes them
+     */
+    public static long recipeKey(CharSequence text, int start, int end)
+    {
+        long first = -1;
+        long id = 0;
+        int digits = 0;
+        // Read the digits of both ids
+        for (int i = start; i < end; i++)
+        {
+            char character = text.charAt(i);
+            // If the character is the separator after the first id: start the second id
+            if (character == ',' && first == -1 && digits > 0)
+            {
+                first = id;
+                id = 0;
+                digits = 0;
+            }
+            // Else if the character is a digit that fits: add it to the id
+            else if (character >= '0' && character <= '9' && !(digits == 1 && id == 0))
+            {
+                id = id * 10 + (character - '0');
+                digits++;
+                if (id > Integer.MAX_VALUE) return -1;
+            }
+            else
+            {
+                return -1;
+            }
+        }
+        return first == -1 || digits == 0 ? -1 : first << 32 | id;
+    }
+    
+    /**
+     * Sorts elements by id and keeps the first element of every id
+     *
+     * @param elements The elements in the order they were read
+     *
+     * @return The sorted elements without duplicate ids
+     */
+    private static ArrayList<Element> sortUnique(ArrayList<Element> elements)
+    {
+        // The sort is stable, so the first element with an id stays first
+        elements.sort(Comparator.comparingInt(Element::getId));
+        ArrayList<Element> unique = new ArrayList<>(elements.size());
+        // Skip every element with the same id as the element before it
+        for (Element element : elements)
+        {
+            if (unique.isEmpty() || unique.get(unique.size() - 1).getId() != element.getId()) unique.add(element);
+        }
+        return unique;
+    }
+    
+    /**
+     * Checks if an element is in a list that is sorted by id
+     *
+     * @param sorted  The elements sorted by id
+     * @param element The element to look for
+     *
+     * @return True if that exact element is in the list
+     */
+    private static boolean contains(ArrayList<Element> sorted, Element element)
+    {
+        int smallest = 0;
+        int largest = sorted.size() - 1;
+        // Search the element using a binary method
+        while (smallest <= largest)
+        {
+            int middle = (smallest + largest) >>> 1;
+            int middleId = sorted.get(middle).getId();
+            // If the element is smaller than the middle: move the highest limit
+            if (element.getId() < middleId)
+            {
+                largest = middle - 1;
+            }
+            // Else if the element is larger than the middle: move the smallest limit
+            else if (element.getId() > middleId)
+            {
+                smallest = middle + 1;
+            }
+            else
+            {
+                return sorted.get(middle) == element;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Finds the end of a line
+     *
+     * @param data  The data to search in
+     * @param start The start of the line
+     *
+     * @return The position of the line break or the end of the data
+     */
+    private static int lineEnd(String data, int start)
+    {
+        int end = data.indexOf('\n', start);
+        return end == -1 ? data.length() : end;
+    }
+    
+    /**
+     * Reads the name of a category line
+     *
+     * @param data  The data the line is in
+     * @param start The start of the line
+     * @param end   The end of the line
+     *
+     * @return The name of the category or null if the line is not a valid category line
+     */
+    private static String categoryName(String data, int start, int end)
+    {
+        // If the line does not start with the category identifier: it's not a category
+        if (!data.startsWith("c;", start)) return null;
+        String[] components = data.substring(start, end).split(";");
+        return components.length == 2 ? components[1] : null;
+    }
+    
+    /**
+     * A category and its elements in a safe file
+     */
+    public static class Chunk
+    {
+        private final String data;
+        private final String category;
+        private final int start, firstLine, index, epoch;
+        private final ArrayList<String> errors;
+        private final HashMap<String, Element> recipes;
+        private int end, lines;
+        private boolean containsKnown;
+        private ArrayList<Element> elements, known;
+        private Element nothing;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param data      The data the chunk is in
+         * @param category  The name of the category or null for the lines before the first category
+         * @param start     The position of the first element line
+         * @param firstLine The number of the first element line, starting at 0
+         * @param index     The position of the chunk in the data or -1 when the chunk is not split from data
+         */
+        private Chunk(String data, String category, int start, int firstLine, int index)
+        {
+            this.data = data;
+            this.category = category;
+            this.start = start;
+            this.firstLine = firstLine;
+            this.index = index;
+            epoch = Element.getProgressEpoch();
+            end = start;
+            lines = 0;
+            containsKnown = false;
+            errors = new ArrayList<>();
+            recipes = new HashMap<>();
+            elements = new ArrayList<>();
+            known = new ArrayList<>();
+            nothing = null;
+        }
+        
+        /**
+         * Makes a chunk of elements that are already read, used to install a StartStateTemplate
+         *
+         * @param category The name of the category or null for the lines before the first category
+         * @param elements The elements sorted by id
+         * @param known    The known elements sorted by id
+         * @param nothing  The nothing element or null
+         *
+         * @return The chunk, its recipes still need to be added
+         */
+        static Chunk of(String category, ArrayList<Element> elements, ArrayList<Element> known, Element nothing)
+        {
+            Chunk chunk = new Chunk("", category, 0, 0, -1);
+            chunk.elements = elements;
+            chunk.known = known;
+            chunk.nothing = nothing;
+            chunk.lines = elements.size();
+            chunk.containsKnown = !known.isEmpty();
+            return chunk;
+        }
+        
+        /**
+         * @return The position of the chunk in the data, the first chunk is 0, or -1 when the chunk is not split from data
+         */
+        public int getIndex()
+        {
+            return index;
+        }
+        
+        /**
+         * @return The progress epoch when the chunk was split, the progress of its elements belongs to that epoch
+         */
+        public int getEpoch()
+        {
+            return epoch;
+        }
+        
+        /**
+         * @return The name of the category or null for the lines before the first category
+         */
+        public String getCategoryName()
+        {
+            return category;
+        }
+        
+        /**
+         * @return The elements sorted by id without duplicate ids
+         */
+        public ArrayList<Element> getElements()
+        {
+            return elements;
+        }
+        
+        /**
+         * @return The known elements sorted by id
+         */
+        public ArrayList<Element> getKnown()
+        {
+            return known;
+        }
+        
+        /**
+         * @return The recipes of the elements in this chunk and the elements they create
+         */
+        public HashMap<String, Element> getRecipes()
+        {
+            return recipes;
+        }
+        
+        /**
+         * @return The lines that could not be read, with their line number
+         */
+        public ArrayList<String> getErrors()
+        {
+            return errors;
+        }
+        
+        /**
+         * @return The nothing element if it's in this chunk, else null
+         */
+        public Element getNothing()
+        {
+            return nothing;
+        }
+        
+        /**
+         * @return True if a line in this chunk is a known or basic element
+         */
+        public boolean containsKnown()
+        {
+            return containsKnown;
+        }
+        
+        /**
+         * @return The amount of element lines in this chunk, including lines that can't be read
+         */
+        public int getLines()
+        {
+            return lines;
+        }
+        
+        /**
+         * @return The amount of characters in this chunk
+         */
+        public int length()
+        {
+            return end - start;
+        }
+    }
+    
+    /**
+     * Reads a range of chunks, splits the range when there are too many characters in it
+     */
+    private static class ParseTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        
+        private final ArrayList<Chunk> chunks;
+        private final int from, to;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param chunks All the chunks
+         * @param from   The first chunk to read
+         * @param to     The chunk after the last chunk to read
+         */
+        private ParseTask(ArrayList<Chunk> chunks, int from, int to)
+        {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+        
+        /**
+         * Reads the chunks in the range, or splits the range in two halves that are read at the same time
+         */
+        @Override
+        protected void compute()
+        {
+            long length = 0;
+            // Count the characters in the range
+            for (int i = from; i < to; i++)
+            {
+                length += chunks.get(i).length();
+            }
+            // If the range is small enough: read it on this thread
+            if (to - from <= 1 || length <= CHUNK_THRESHOLD)
+            {
+                // Read every chunk in the range
+                for (int i = from; i < to; i++)
+                {
+                    parse(chunks.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParseTask(chunks, from, middle), new ParseTask(chunks, middle, to));
+        }
+    }
+}
@@ -0,0 +1,706 @@
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Scanner;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A safe file that is split in segments, the nothing element and every category have their own segment.<br>
+ * The file starts with a header that points to a table with the position, length and room of every segment,
+ * in the order the segments are loaded. The segments hold the same lines as a safe file without segments,
+ * so the game reads them like any other safe file.
+ * <p>
+ * Saving only writes the segments of the categories that changed since they were loaded or saved:
+ * a segment that still fits in its room is written over, else it's added at the end of the file
+ * with some room to grow. The table is added after it and the header is changed last.
+ * When the unused part of the file gets larger than half of the used part the whole file is written again.
+ * Safe files without segments can still be read, they get segments the first time they are saved.
+ * <p>
+ * The segments can be compressed one by one, a compressed file starts with a different identifier.
+ * A segment is read and written in one piece, so saving and openStream need memory for the largest category
+ * instead of for the whole file. read gives the text of the whole file, because the game is loaded from one text.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class SegmentedSafeFile
+{
+    private static final int MAGIC = 0x454c5347;
+    private static final int COMPRESSED_MAGIC = 0x454c535a;
+    private static final int COMPRESSION_LEVEL = Deflater.BEST_SPEED;
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int TABLE_POSITION = 8;
+    private static final int ENTRY_SIZE = 16;
+    private static final int ROOM_DIVISOR = 8;
+    private static final int MINIMAL_ROOM = 64;
+    private static final long MINIMAL_WASTE = 1 << 16;
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private static final String UNKNOWN_VERSION = "Unknown safe file version";
+    private static final String DAMAGED_FILE = "The safe file is damaged";
+    
+    private final File file;
+    private Table table;
+    private long end;
+    private int generation, epoch;
+    private boolean compress;
+    private Deflater deflater;
+    
+    /**
+     * Constructor for the class, nothing is read until read is called
+     *
+     * @param file The location of the safe file
+     */
+    public SegmentedSafeFile(File file)
+    {
+        assert file != null : "null file";
+        this.file = file;
+        table = null;
+        end = 0;
+        generation = -1;
+        epoch = -1;
+        compress = false;
+        deflater = null;
+    }
+    
+    /**
+     * Chooses if the segments are compressed from the next save on, the file is written again when it changes
+     *
+     * @param compress True if the segments should be compressed
+     */
+    public void setCompressed(boolean compress)
+    {
+        this.compress = compress;
+    }
+    
+    /**
+     * Reads the lines of the safe file, with or without segments.<br>
+     * The text of every segment is added to one text, so the memory needed grows with the size of the file
+     *
+     * @return The data of the safe file
+     * @throws IOException          When the file does not exist or could not be read
+     * @throws ElementallyException When the file has segments but they can not be read
+     */
+    public String read() throws IOException, ElementallyException
+    {
+        table = null;
+        int identifier = readIdentifier();
+        // If the file has no segments: read it as lines
+        if (identifier != MAGIC && identifier != COMPRESSED_MAGIC)
+        {
+            return readLines();
+        }
+        try (RandomAccessFile input = new RandomAccessFile(file, "r"))
+        {
+            Table read = readTable(input, identifier);
+            StringBuilder lines = new StringBuilder();
+            Inflater inflater = new Inflater();
+            try
+            {
+                // Add the lines of every segment in the order of the table
+                for (int i = 0; i < read.size(); i++)
+                {
+                    byte[] segment = readSegment(input, read, i);
+                    // If the segments are compressed: inflate the segment, else it is the text itself
+                    if (read.compressed)
+                    {
+                        Compression.inflate(segment, inflater, lines);
+                    }
+                    else
+                    {
+                        lines.append(new String(segment, StandardCharsets.UTF_8));
+                    }
+                }
+            }
+            finally
+            {
+                inflater.end();
+            }
+            table = read;
+            end = input.length();
+            return lines.toString();
+        }
+    }
+    
+    /**
+     * Opens the safe file as a stream of its lines, with or without segments.<br>
+     * Only the table and one segment at a time are in memory, so it can be used for files that are too large to load.
+     * The table of this file is not changed, so it can be used while the game is saved to the same file
+     *
+     * @return A stream with the uncompressed UTF-8 lines of the file
+     * @throws IOException          When the file does not exist or could not be read
+     * @throws ElementallyException When the file has segments but they can not be read
+     */
+    public InputStream openStream() throws IOException, ElementallyException
+    {
+        int identifier = readIdentifier();
+        // If the file has no segments: it's a stream of lines, maybe compressed as a whole
+        if (identifier != MAGIC && identifier != COMPRESSED_MAGIC)
+        {
+            return Compression.open(file);
+        }
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        Table read;
+        // Read the table, the file stays open while the segments are read
+        try
+        {
+            read = readTable(input, identifier);
+        }
+        catch (IOException | ElementallyException ex)
+        {
+            input.close();
+            throw ex;
+        }
+        Enumeration<InputStream> segments = new Enumeration<InputStream>()
+        {
+            private int next = 0;
+            
+            /**
+             * @return True if not every segment is read yet
+             */
+            @Override
+            public boolean hasMoreElements()
+            {
+                return next < read.size();
+            }
+            
+            /**
+             * Reads the next segment
+             *
+             * @return A stream with the uncompressed bytes of the segment
+             * @throws UncheckedIOException When the segment could not be read
+             */
+            @Override
+            public InputStream nextElement()
+            {
+                // Read the next segment, inflated when the segments are compressed
+                try
+                {
+                    InputStream segment = new ByteArrayInputStream(readSegment(input, read, next++));
+                    return read.compressed ? new InflaterInputStream(segment) : segment;
+                }
+                catch (IOException ioEx)
+                {
+                    throw new UncheckedIOException(ioEx);
+                }
+            }
+        };
+        return new SequenceInputStream(segments)
+        {
+            /**
+             * Closes the stream and the file
+             *
+             * @throws IOException When the file could not be closed
+             */
+            @Override
+            public void close() throws IOException
+            {
+                // Close the file even when the last segment could not be closed
+                try
+                {
+                    super.close();
+                }
+                finally
+                {
+                    input.close();
+                }
+            }
+        };
+    }
+    
+    /**
+     * Reads the header and the table of the file
+     *
+     * @param input      The opened file
+     * @param identifier The identifier at the start of the file
+     *
+     * @return The table of the file
+     * @throws IOException          When the file could not be read
+     * @throws ElementallyException When the version is unknown or the table is not in the file
+     */
+    private static Table readTable(RandomAccessFile input, int identifier) throws IOException, ElementallyException
+    {
+        long length = input.length();
+        input.seek(Integer.BYTES);
+        // If the version is not known: the segments can't be read
+        if (input.readInt() != FILE_VERSION)
+        {
+            throw new ElementallyException(UNKNOWN_VERSION);
+        }
+        long tablePosition = input.readLong();
+        int amount = input.readInt();
+        // If the table is not in the file: the file is damaged
+        if (amount < 0 || tablePosition < HEADER_SIZE || tablePosition + (long) amount * ENTRY_SIZE > length)
+        {
+            throw new ElementallyException(DAMAGED_FILE);
+        }
+        byte[] entries = new byte[amount * ENTRY_SIZE];
+        input.seek(tablePosition);
+        input.readFully(entries);
+        Table read = Table.read(ByteBuffer.wrap(entries), amount, identifier == COMPRESSED_MAGIC);
+        // Check that every segment is between the header and the table
+        for (int i = 0; i < amount; i++)
+        {
+            // If the segment is not in the file: the file is damaged
+            if (read.offsets[i] < HEADER_SIZE || read.lengths[i] < 0 || read.lengths[i] > read.rooms[i] ||
+                read.offsets[i] + read.lengths[i] > tablePosition)
+            {
+                throw new ElementallyException(DAMAGED_FILE);
+            }
+        }
+        return read;
+    }
+    
+    /**
+     * Reads the stored bytes of a segment
+     *
+     * @param input The opened file
+     * @param read  The table of the file
+     * @param index The position of the segment in the table
+     *
+     * @return The bytes of the segment, still compressed when the segments are compressed
+     * @throws IOException When the segment could not be read
+     */
+    private static byte[] readSegment(RandomAccessFile input, Table read, int index) throws IOException
+    {
+        byte[] segment = new byte[read.lengths[index]];
+        input.seek(read.offsets[index]);
+        input.readFully(segment);
+        return segment;
+    }
+    
+    /**
+     * Reads the identifier at the start of the file
+     *
+     * @return The identifier or 0 when the file is too small to have segments
+     * @throws IOException When the file does not exist or could not be read
+     */
+    private int readIdentifier() throws IOException
+    {
+        // If the file is too small for a header: it's a safe file without segments
+        if (file.length() < HEADER_SIZE) return 0;
+        try (DataInputStream input = new DataInputStream(new FileInputStream(file)))
+        {
+            return input.readInt();
+        }
+    }
+    
+    /**
+     * Reads a safe file without segments line by line, the file may be compressed as a whole
+     *
+     * @return The lines of the file
+     * @throws IOException When the file does not exist
+     */
+    private String readLines() throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        try (Scanner loader = new Scanner(Compression.open(file)))
+        {
+            // Add all lines from the save file to the StringBuilder
+            while (loader.hasNextLine())
+            {
+                sb.append(loader.nextLine()).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Remembers that the game is loaded from the segments that were read,
+     * should be called after the data of read is loaded into the game
+     *
+     * @param game The game the data was loaded into
+     */
+    public void attach(ElementCooker game)
+    {
+        assert game != null : "null game";
+        generation = game.getGeneration();
+        epoch = Element.getProgressEpoch();
+    }
+    
+    /**
+     * Saves the game, only the categories that changed are written when the file holds the same generation of the game
+     *
+     * @param game The game to save
+     *
+     * @throws IOException When the file could not be written
+     */
+    public void save(ElementCooker game) throws IOException
+    {
+        assert game != null : "null game";
+        ArrayList<Category> categories = game.getAllCategories();
+        GameEvents.SaveEvent event = new GameEvents.SaveEvent();
+        event.begin();
+        boolean incremental = canWriteChanges(game);
+        deflater = compress ? new Deflater(COMPRESSION_LEVEL) : null;
+        // If the file knows the categories of the game: write the changes, else write everything
+        try
+        {
+            if (incremental)
+            {
+                writeChanges(game, categories, event);
+            }
+            else
+            {
+                writeAll(game, categories, event);
+            }
+        }
+        finally
+        {
+            // If the segments were compressed: free the memory of the Deflater
+            if (deflater != null)
+            {
+                deflater.end();
+                deflater = null;
+            }
+        }
+        generation = game.getGeneration();
+        epoch = Element.getProgressEpoch();
+        game.getNothing().markSaved();
+        // The segments are in the order of the categories, after the segment of nothing
+        for (int i = 0; i < categories.size(); i++)
+        {
+            categories.get(i).markSaved(i + 1);
+        }
+        event.end();
+        // If the save is recorded: say how it was saved
+        if (event.shouldCommit())
+        {
+            event.incremental = incremental;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Checks if only the changes can be written
+     *
+     * @param game The game to save
+     *
+     * @return True if the file holds the segments of this generation the way they should be compressed
+     *         and not too much of it is unused
+     */
+    private boolean canWriteChanges(ElementCooker game)
+    {
+        // If the file was not read or saved in this generation or epoch: the segments are not the ones of the game
+        if (table == null || generation != game.getGeneration() || epoch != Element.getProgressEpoch() ||
+            table.compressed != compress)
+        {
+            return false;
+        }
+        long used = table.getUsed();
+        long unused = end - used;
+        return file.length() == end && (unused <= MINIMAL_WASTE || unused <= used / 2);
+    }
+    
+    /**
+     * Writes every segment to a new file and replaces the safe file with it.<br>
+     * The segments are written one by one, the header is filled in when the place of the table is known
+     *
+     * @param game       The game to save
+     * @param categories The categories in the order they are saved
+     * @param event      The event to count the written characters and elements in
+     *
+     * @throws IOException When the file could not be written
+     */
+    private void writeAll(ElementCooker game, ArrayList<Category> categories, GameEvents.SaveEvent event)
+            throws IOException
+    {
+        Table written = new Table(categories.size() + 1, compress);
+        File temporary = new File(file.getPath() + TEMPORARY_EXTENSION);
+        long position = HEADER_SIZE;
+        try (RandomAccessFile output = new RandomAccessFile(temporary, "rw"))
+        {
+            output.setLength(0);
+            output.seek(position);
+            Element nothing = game.getNothing();
+            position = append(output, written, 0, encode(nothing.exportLine() + "\n"), position, event);
+            // Write every category after the one before
+            for (int i = 0; i < categories.size(); i++)
+            {
+                Category category = categories.get(i);
+                position = append(output, written, i + 1, encode(category.exportLines()), position, event);
+                event.elements += category.getContaining().size();
+            }
+            event.categories = categories.size();
+            output.seek(position);
+            output.write(written.toBytes());
+            output.seek(0);
+            output.writeInt(compress ? COMPRESSED_MAGIC : MAGIC);
+            output.writeInt(FILE_VERSION);
+            output.writeLong(position);
+            output.writeInt(written.size());
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        table = written;
+        end = position + (long) written.size() * ENTRY_SIZE;
+    }
+    
+    /**
+     * Writes the segments of the categories that changed and a new table
+     *
+     * @param game       The game to save
+     * @param categories The categories in the order they are saved
+     * @param event      The event to count the written characters and elements in
+     *
+     * @throws IOException When the file could not be written
+     */
+    private void writeChanges(ElementCooker game, ArrayList<Category> categories, GameEvents.SaveEvent event)
+            throws IOException
+    {
+        Table written = new Table(categories.size() + 1, compress);
+        boolean[] kept = new boolean[table.size()];
+        long position = end;
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw"))
+        {
+            Element nothing = game.getNothing();
+            position = writeSegment(output, written, 0, 0, nothing.isChanged(), () -> nothing.exportLine() + "\n",
+                                    position, kept, event);
+            // Write every category that changed and keep the others where they are
+            for (int i = 0; i < categories.size(); i++)
+            {
+                Category category = categories.get(i);
+                // If the category changed: count it
+                if (category.isDirty())
+                {
+                    event.categories++;
+                    event.elements += category.getContaining().size();
+                }
+                position = writeSegment(output, written, i + 1, category.getSegment(), category.isDirty(),
+                                        category::exportLines, position, kept, event);
+            }
+            // If no segment moved and the order is the same: the table in the file is still right
+            if (written.equals(table)) return;
+            output.seek(position);
+            output.write(written.toBytes());
+            output.setLength(output.getFilePointer());
+            // Point the header to the new table
+            output.seek(TABLE_POSITION);
+            output.writeLong(position);
+            output.writeInt(written.size());
+        }
+        table = written;
+        end = position + (long) written.size() * ENTRY_SIZE;
+    }
+    
+    /**
+     * Writes a segment when it changed, over its old place when it fits or else at the end
+     *
+     * @param output   The opened safe file
+     * @param written  The new table
+     * @param index    The position of the segment in the new table
+     * @param old      The position of the segment in the current table or -1 when it has none
+     * @param changed  True if the segment is different from the one in the file
+     * @param lines    Makes the lines of the segment
+     * @param position The end of the file, where new segments are added
+     * @param kept     The segments of the current table that are used in the new table
+     * @param event    The event to count the written characters in
+     *
+     * @return The end of the file after the segment is written
+     * @throws IOException When the segment could not be written
+     */
+    private long writeSegment(RandomAccessFile output, Table written, int index, int old, boolean changed,
+                              Supplier<String> lines, long position, boolean[] kept, GameEvents.SaveEvent event)
+            throws IOException
+    {
+        boolean known = old >= 0 && old < kept.length && !kept[old];
+        // If the segment is the same as in the file: leave it there
+        if (known && !changed)
+        {
+            kept[old] = true;
+            written.set(index, table.offsets[old], table.lengths[old], table.rooms[old]);
+            return position;
+        }
+        byte[] segment = encode(lines.get());
+        // If the segment still fits in its room: write it over the old segment
+        if (known && segment.length <= table.rooms[old])
+        {
+            kept[old] = true;
+            output.seek(table.offsets[old]);
+            output.write(segment);
+            written.set(index, table.offsets[old], segment.length, table.rooms[old]);
+            event.characters += segment.length;
+            return position;
+        }
+        output.seek(position);
+        return append(output, written, index, segment, position, event);
+    }
+    
+    /**
+     * Writes a segment at the end of the file with room to grow
+     *
+     * @param output   The opened file, at the end of the file
+     * @param written  The new table
+     * @param index    The position of the segment in the new table
+     * @param segment  The bytes of the segment
+     * @param position The end of the file
+     * @param event    The event to count the written characters in
+     *
+     * @return The end of the file after the room of the segment
+     * @throws IOException When the segment could not be written
+     */
+    private static long append(RandomAccessFile output, Table written, int index, byte[] segment, long position,
+                               GameEvents.SaveEvent event) throws IOException
+    {
+        int room = segment.length + segment.length / ROOM_DIVISOR + MINIMAL_ROOM;
+        output.write(segment);
+        output.write(new byte[room - segment.length]);
+        written.set(index, position, segment.length, room);
+        event.characters += segment.length;
+        return position + room;
+    }
+    
+    /**
+     * Turns the lines of a segment into the bytes that are written, compressed when the file is compressed
+     *
+     * @param lines The lines of the segment
+     *
+     * @return The bytes of the segment
+     */
+    private byte[] encode(String lines)
+    {
+        byte[] bytes = lines.getBytes(StandardCharsets.UTF_8);
+        return deflater == null ? bytes : Compression.deflate(bytes, deflater);
+    }
+    
+    /**
+     * The position, length and room of every segment
+     */
+    private static class Table
+    {
+        private final long[] offsets;
+        private final int[] lengths, rooms;
+        private final boolean compressed;
+        
+        /**
+         * Constructor for the class
+         *
+         * @param amount     The amount of segments
+         * @param compressed True if the segments are compressed
+         */
+        Table(int amount, boolean compressed)
+        {
+            offsets = new long[amount];
+            lengths = new int[amount];
+            rooms = new int[amount];
+            this.compressed = compressed;
+        }
+        
+        /**
+         * Reads a table
+         *
+         * @param buffer     The entries of the table
+         * @param amount     The amount of segments
+         * @param compressed True if the segments are compressed
+         *
+         * @return The read table
+         */
+        static Table read(ByteBuffer buffer, int amount, boolean compressed)
+        {
+            Table table = new Table(amount, compressed);
+            // Read the entry of every segment
+            for (int i = 0; i < amount; i++)
+            {
+                table.set(i, buffer.getLong(), buffer.getInt(), buffer.getInt());
+            }
+            return table;
+        }
+        
+        /**
+         * Puts the entry of every segment in a byte array, so the table is written at once
+         *
+         * @return The entries of the table
+         */
+        byte[] toBytes()
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(offsets.length * ENTRY_SIZE);
+            // Add the entry of every segment
+            for (int i = 0; i < offsets.length; i++)
+            {
+                buffer.putLong(offsets[i]).putInt(lengths[i]).putInt(rooms[i]);
+            }
+            return buffer.array();
+        }
+        
+        /**
+         * Changes the entry of a segment
+         *
+         * @param index  The position of the segment in the table
+         * @param offset The position of the segment in the file
+         * @param length The length of the segment in bytes
+         * @param room   The amount of bytes the segment can grow to without moving
+         */
+        void set(int index, long offset, int length, int room)
+        {
+            offsets[index] = offset;
+            lengths[index] = length;
+            rooms[index] = room;
+        }
+        
+        /**
+         * @return The amount of segments
+         */
+        int size()
+        {
+            return offsets.length;
+        }
+        
+        /**
+         * Counts the bytes of the file that are used by the header, the segments and this table
+         *
+         * @return The amount of used bytes
+         */
+        long getUsed()
+        {
+            long used = HEADER_SIZE + (long) offsets.length * ENTRY_SIZE;
+            // Add the length of every segment
+            for (int length : lengths)
+            {
+                used += length;
+            }
+            return used;
+        }
+        
+        /**
+         * Checks if two tables have the same segments in the same order
+         *
+         * @param other The table to compare with
+         *
+         * @return True if every entry is the same
+         */
+        @Override
+        public boolean equals(Object other)
+        {
+            // If the other object is not a table: they can't be the same
+            if (!(other instanceof Table)) return false;
+            Table table = (Table) other;
+            return compressed == table.compressed && Arrays.equals(offsets, table.offsets) &&
+                   Arrays.equals(lengths, table.lengths) && Arrays.equals(rooms, table.rooms);
+        }
+        
+        /**
+         * @return A hash of the entries, the same for tables that are equal
+         */
+        @Override
+        public int hashCode()
+        {
+            return 31 * (31 * Arrays.hashCode(offsets) + Arrays.hashCode(lengths)) + Arrays.hashCode(rooms);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes everything that is needed to play a session again to a file.<br>
+ * The file starts with the seed, the arguments and the safe file of the session,
+ * after that every line the player typed follows in the order it was typed.
+ * The safe file and the files that are used with it are copied next to the recording when it starts,
+ * so the session is played again with the files it started with and not with the files as they are later.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class SessionRecorder
+{
+    public static final String SEED = "seed;";
+    public static final String ARGUMENTS = "args;";
+    public static final String SAFE_FILE = "safeFile;";
+    public static final String FILES_EXTENSION = ".files";
+    public static final String SAFE_FILE_COPY = "safe";
+    public static final String START_STATE_COPY = "start";
+    
+    private final PrintWriter output;
+    private int inputs;
+    
+    /**
+     * Constructor for the class, copies the files the session starts with and writes the start of the recording
+     *
+     * @param location   The location of the recording
+     * @param seed       The seed of the random generator of the session
+     * @param arguments  The arguments the game was started with
+     * @param safeFile   The location of the safe file the session starts with
+     * @param companions The locations of the files next to the safe file that are used as well,
+     *                   like the profile and the quiz planning, they start with the location of the safe file
+     * @param startState The location of the start state, null when the standard start state is used
+     *
+     * @throws IOException When the recording can not be created or the files can not be copied
+     */
+    public SessionRecorder(String location, long seed, String arguments, String safeFile, String[] companions,
+                           String startState) throws IOException
+    {
+        assert location != null : "null location";
+        assert arguments != null : "null arguments";
+        assert safeFile != null : "null safe file";
+        assert companions != null : "null companions";
+        File files = new File(location + FILES_EXTENSION);
+        copyFiles(files, safeFile, companions, startState);
+        output = new PrintWriter(location);
+        output.println(SEED + seed);
+        output.println(ARGUMENTS + arguments);
+        output.println(SAFE_FILE + new File(files, SAFE_FILE_COPY).getPath());
+        output.flush();
+        inputs = 0;
+    }
+    
+    /**
+     * Copies the safe file, the files next to it and the start state to the directory of the recording
+     *
+     * @param files      The directory to copy the files to
+     * @param safeFile   The location of the safe file
+     * @param companions The locations of the files next to the safe file, they start with the location of the safe file
+     * @param startState The location of the start state, null when the standard start state is used
+     *
+     * @throws IOException When a file can not be copied
+     */
+    private static void copyFiles(File files, String safeFile, String[] companions, String startState)
+            throws IOException
+    {
+        File[] old = files.listFiles();
+        // If there are copies of an earlier recording: remove them, a file that is missing now must be missing later
+        if (old != null)
+        {
+            // Remove every old copy
+            for (File file : old)
+            {
+                Files.delete(file.toPath());
+            }
+        }
+        Files.createDirectories(files.toPath());
+        copy(new File(safeFile), new File(files, SAFE_FILE_COPY));
+        // Copy the files next to the safe file with the same name after the name of the safe file
+        for (String companion : companions)
+        {
+            assert companion.startsWith(safeFile) : "companion not next to the safe file";
+            copy(new File(companion), new File(files, SAFE_FILE_COPY + companion.substring(safeFile.length())));
+        }
+        // If there is a start state: copy it as well
+        if (startState != null)
+        {
+            copy(new File(startState), new File(files, START_STATE_COPY));
+        }
+    }
+    
+    /**
+     * Copies a file when it exists, a file that does not exist is not copied
+     *
+     * @param original The file to copy
+     * @param copy     The location of the copy
+     *
+     * @throws IOException When the file can not be copied
+     */
+    private static void copy(File original, File copy) throws IOException
+    {
+        // If the file exists: copy it
+        if (original.exists())
+        {
+            Files.copy(original.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    /**
+     * Adds a line the player typed to the recording
+     *
+     * @param input The line the player typed
+     */
+    public void record(String input)
+    {
+        assert input != null : "null input";
+        output.println(input);
+        // Write the recording to the file now and then so it survives a crash
+        if (++inputs % 16 == 0)
+        {
+            output.flush();
+        }
+    }
+    
+    /**
+     * Writes the rest of the recording and closes the file
+     */
+    public void close()
+    {
+        output.close();
+    }
+}
@@ -0,0 +1,247 @@
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+/**
+ * Plays a recorded session again without showing anything, as fast as possible.<br>
+ * The game uses the recorded seed and copies of the files that were copied when the session was recorded,
+ * so saving does not change them and the replay does not depend on what happened to the original files.
+ * When it is done the time it took is printed, which makes a recording usable as a benchmark as well.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class SessionReplayer
+{
+    private static final String USAGE = "Usage: SessionReplayer [recording] [safe file (optional)]";
+    private static final String INVALID_RECORDING = "The recording does not start with a seed, arguments and safe file";
+    
+    /**
+     * Main method for replaying a session
+     *
+     * @param args The location of the recording and optionally a safe file to use instead of the recorded one
+     */
+    public static void main(String[] args)
+    {
+        // If there is no recording given: inform the user
+        if (args.length < 1 || args.length > 2)
+        {
+            System.out.println(USAGE);
+            return;
+        }
+        // Replay the recording
+        try
+        {
+            byte[] recording = Files.readAllBytes(new File(args[0]).toPath());
+            String[] header = new String[3];
+            int start = 0;
+            // Read the three lines at the start of the recording
+            for (int i = 0; i < header.length; i++)
+            {
+                int end = start;
+                // Find the end of the line
+                while (end < recording.length && recording[end] != '\n')
+                {
+                    end++;
+                }
+                header[i] = new String(recording, start, end - start, StandardCharsets.UTF_8).trim();
+                start = end + 1;
+            }
+            // If the header is not complete: the recording can't be replayed
+            if (!header[0].startsWith(SessionRecorder.SEED) || !header[1].startsWith(SessionRecorder.ARGUMENTS) ||
+                !header[2].startsWith(SessionRecorder.SAFE_FILE))
+            {
+                System.out.println(INVALID_RECORDING);
+                return;
+            }
+            File recorded = new File(header[2].substring(SessionRecorder.SAFE_FILE.length()));
+            // If the safe file is not in the copied files of a recording: the recording can't be replayed
+            if (!recorded.getName().equals(SessionRecorder.SAFE_FILE_COPY))
+            {
+                System.out.println(INVALID_RECORDING);
+                return;
+            }
+            File copy = copyFiles(recorded.getParentFile(), args.length == 2 ? args[1] : null);
+            ArrayList<String> arguments = new ArrayList<>();
+            String recordedArguments = header[1].substring(SessionRecorder.ARGUMENTS.length()).trim();
+            // If the game was started with arguments: use them again, except the ones that point to other files
+            if (!recordedArguments.isEmpty())
+            {
+                // Keep every argument that does not change the seed or a location
+                for (String argument : recordedArguments.split(" "))
+                {
+                    if (!isReplaced(argument)) arguments.add(argument);
+                }
+            }
+            File startState = new File(copy, SessionRecorder.START_STATE_COPY);
+            // If the session started with its own start state: use the copy of it
+            if (startState.exists())
+            {
+                arguments.add("startState=" + startState.getPath());
+            }
+            arguments.add("seed=" + header[0].substring(SessionRecorder.SEED.length()));
+            arguments.add("safeFile=" + new File(copy, SessionRecorder.SAFE_FILE_COPY).getPath());
+            int inputs = countLines(recording, Math.min(start, recording.length));
+            InputStream input = new ByteArrayInputStream(recording, Math.min(start, recording.length),
+                                                         Math.max(0, recording.length - start));
+            // Play the recording, the copies are always removed afterwards
+            try
+            {
+                replay(arguments.toArray(new String[0]), input, inputs);
+            }
+            finally
+            {
+                delete(copy);
+            }
+        }
+        // If the recording or safe file could not be read: inform the user
+        catch (IOException ioEx)
+        {
+            System.out.println(ioEx.getMessage());
+        }
+    }
+    
+    /**
+     * Plays the game with the recorded input and prints how long it took
+     *
+     * @param arguments The arguments to start the game with
+     * @param input     The recorded input
+     * @param inputs    The amount of recorded lines
+     */
+    private static void replay(String[] arguments, InputStream input, int inputs)
+    {
+        InputStream originalIn = System.in;
+        PrintStream originalOut = System.out;
+        System.setIn(input);
+        System.setOut(new PrintStream(new OutputStream()
+        {
+            @Override
+            public void write(int b)
+            {
+            }
+            
+            @Override
+            public void write(byte[] b, int off, int len)
+            {
+            }
+        }));
+        long start = System.nanoTime();
+        // Play the game, the output should always be restored
+        try
+        {
+            App.main(arguments);
+        }
+        finally
+        {
+            System.setOut(originalOut);
+            System.setIn(originalIn);
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("Replayed %d inputs in %.1f ms (%.0f inputs per second)%n",
+                          inputs, nanos / 1e6, inputs / (nanos / 1e9));
+    }
+    
+    /**
+     * Checks whether an argument is replaced when the recording is played
+     *
+     * @param argument The recorded argument
+     *
+     * @return True when the argument sets the seed, the recording or the location of a file
+     */
+    private static boolean isReplaced(String argument)
+    {
+        return argument.startsWith("seed=") || argument.startsWith("record=") || argument.startsWith("safeFile=") ||
+               argument.startsWith("startState=");
+    }
+    
+    /**
+     * Copies the files of a recording to a temporary directory, so saving during the replay changes nothing
+     *
+     * @param files    The directory with the files of the recording
+     * @param safeFile The location of a safe file to use instead of the recorded one, null to use the recorded one
+     *
+     * @return The temporary directory with the copies
+     * @throws IOException When the copies could not be made
+     */
+    private static File copyFiles(File files, String safeFile) throws IOException
+    {
+        File copy = Files.createTempDirectory("replay").toFile();
+        File[] recorded = files.listFiles();
+        // If the recording has files: copy all of them
+        if (recorded != null)
+        {
+            // Copy every file with the same name
+            for (File file : recorded)
+            {
+                Files.copy(file.toPath(), new File(copy, file.getName()).toPath());
+            }
+        }
+        // If there is no other safe file: use the recorded files
+        if (safeFile == null) return copy;
+        File original = new File(safeFile);
+        File planning = new File(safeFile + App.QUIZ_PLANNING_EXTENSION);
+        File safeCopy = new File(copy, SessionRecorder.SAFE_FILE_COPY);
+        File planningCopy = new File(safeCopy.getPath() + App.QUIZ_PLANNING_EXTENSION);
+        Files.deleteIfExists(safeCopy.toPath());
+        Files.deleteIfExists(planningCopy.toPath());
+        // If there is a safe file: copy it, else the game starts at the starting state
+        if (original.exists())
+        {
+            Files.copy(original.toPath(), safeCopy.toPath());
+        }
+        // If there is a quiz planning: copy it as well
+        if (planning.exists())
+        {
+            Files.copy(planning.toPath(), planningCopy.toPath());
+        }
+        return copy;
+    }
+    
+    /**
+     * Removes the temporary directory with the copies and everything the game saved in it
+     *
+     * @param copy The temporary directory
+     *
+     * @throws IOException When a file could not be removed
+     */
+    private static void delete(File copy) throws IOException
+    {
+        File[] files = copy.listFiles();
+        // If there are files in the directory: remove them first
+        if (files != null)
+        {
+            // Remove every file
+            for (File file : files)
+            {
+                Files.delete(file.toPath());
+            }
+        }
+        Files.delete(copy.toPath());
+    }
+    
+    /**
+     * Counts the lines after a position
+     *
+     * @param data  The data to count in
+     * @param start The position to start counting
+     *
+     * @return The amount of lines
+     */
+    private static int countLines(byte[] data, int start)
+    {
+        int lines = 0;
+        // Count every line end
+        for (int i = start; i < data.length; i++)
+        {
+            if (data[i] == '\n') lines++;
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,286 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A start state that is read once and can be copied into the game as often as needed.<br>
+ * The elements are kept in arrays sorted per category, with their names as numbers of the NameArena,
+ * so a reset only makes new elements from the arrays instead of splitting and reading the text again.
+ * The template itself never changes, every copy gets its own elements and recipe lists.
+ * <p>
+ * Started on 19-10-2026
+ *
+ * @author Thomas
+ */
+public class StartStateTemplate
+{
+    private static final String NO_CATEGORIES = "A start state needs at least one category";
+    private static final String UNREADABLE_FILE = "The start state could not be read: ";
+    private static final String[] NO_RECIPES = new String[0];
+    
+    private static StartStateTemplate standard;
+    
+    private final int[] categoryNames, categoryStarts;
+    private final int[] ids, names;
+    private final boolean[] basic, known;
+    private final String[][] quizedRecipes, knownRecipes, unknownRecipes;
+    private final boolean hasNothing;
+    private final List<String> errors;
+    
+    /**
+     * Constructor for the class, reads the chunks into the arrays
+     *
+     * @param chunks The read chunks of a start state
+     * @param errors The lines that could not be read
+     */
+    private StartStateTemplate(ArrayList<SafeFileLoader.Chunk> chunks, ArrayList<String> errors)
+    {
+        ArrayList<SafeFileLoader.Chunk> categories = new ArrayList<>();
+        Element nothing = null;
+        int amount = 0;
+        // Count the elements and find the nothing element
+        for (SafeFileLoader.Chunk chunk : chunks)
+        {
+            // If the chunk is a category: its elements are copied
+            if (chunk.getCategoryName() != null)
+            {
+                categories.add(chunk);
+                amount += chunk.getElements().size();
+            }
+            // Else if the chunk has the nothing element: remember it
+            else if (chunk.getNothing() != null)
+            {
+                nothing = chunk.getNothing();
+            }
+        }
+        hasNothing = nothing != null;
+        int total = amount + (hasNothing ? 1 : 0);
+        categoryNames = new int[categories.size()];
+        categoryStarts = new int[categories.size() + 1];
+        ids = new int[total];
+        names = new int[total];
+        basic = new boolean[total];
+        known = new boolean[total];
+        quizedRecipes = new String[total][];
+        knownRecipes = new String[total][];
+        unknownRecipes = new String[total][];
+        int index = 0;
+        // Copy every category with its elements
+        for (int i = 0; i < categories.size(); i++)
+        {
+            SafeFileLoader.Chunk chunk = categories.get(i);
+            categoryNames[i] = NameArena.getInstance().intern(chunk.getCategoryName());
+            categoryStarts[i] = index;
+            Set<Element> learned = Collections.newSetFromMap(new IdentityHashMap<>());
+            learned.addAll(chunk.getKnown());
+            // Copy every element of the category
+            for (Element element : chunk.getElements())
+            {
+                copy(element, learned.contains(element), index++);
+            }
+        }
+        categoryStarts[categories.size()] = index;
+        // If there is a nothing element: it goes after the categories
+        if (hasNothing)
+        {
+            copy(nothing, true, index);
+        }
+        this.errors = Collections.unmodifiableList(errors);
+    }
+    
+    /**
+     * Copies an element into the arrays
+     *
+     * @param element The element to copy
+     * @param isKnown True if the element is known
+     * @param index   The position in the arrays
+     */
+    private void copy(Element element, boolean isKnown, int index)
+    {
+        ids[index] = element.getId();
+        names[index] = element.getNameNumber();
+        basic[index] = element.isBasic();
+        known[index] = isKnown;
+        quizedRecipes[index] = toArray(element.getQuizedRecipes());
+        knownRecipes[index] = toArray(element.getKnownRecipes());
+        unknownRecipes[index] = toArray(element.getUnknownRecipes());
+    }
+    
+    /**
+     * Helper method to store recipes without an empty array for every element
+     *
+     * @param recipes The recipes to store
+     *
+     * @return The recipes as an array
+     */
+    private static String[] toArray(ArrayList<String> recipes)
+    {
+        return recipes.isEmpty() ? NO_RECIPES : recipes.toArray(new String[0]);
+    }
+    
+    /**
+     * Reads a start state
+     *
+     * @param data The start state following the format of a safe file
+     *
+     * @return The template of the start state
+     * @throws ElementallyException When the start state has no categories
+     */
+    public static StartStateTemplate compile(String data) throws ElementallyException
+    {
+        assert data != null : "null data";
+        ArrayList<SafeFileLoader.Chunk> chunks = SafeFileLoader.parseAll(data);
+        ArrayList<String> errors = new ArrayList<>();
+        boolean hasCategory = false;
+        // Collect the errors of every chunk
+        for (SafeFileLoader.Chunk chunk : chunks)
+        {
+            errors.addAll(chunk.getErrors());
+            hasCategory |= chunk.getCategoryName() != null;
+        }
+        // If there are no categories: the game could not be played
+        if (!hasCategory)
+        {
+            throw new ElementallyException(NO_CATEGORIES);
+        }
+        return new StartStateTemplate(chunks, errors);
+    }
+    
+    /**
+     * Reads a start state from a file
+     *
+     * @param file The file with the start state following the format of a safe file
+     *
+     * @return The template of the start state
+     * @throws ElementallyException When the file could not be read or has no categories
+     */
+    public static StartStateTemplate compile(File file) throws ElementallyException
+    {
+        assert file != null : "null file";
+        // Read the whole file
+        try
+        {
+            return compile(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        }
+        catch (IOException ioEx)
+        {
+            throw new ElementallyException(UNREADABLE_FILE + file);
+        }
+    }
+    
+    /**
+     * Gives the template of the standard start state, it is only read the first time
+     *
+     * @return The template of StartState.startState
+     * @throws ElementallyException When the standard start state has no categories
+     */
+    public static synchronized StartStateTemplate getStandard() throws ElementallyException
+    {
+        // If the standard start state was not read yet: read it
+        if (standard == null)
+        {
+            standard = compile(StartState.startState);
+        }
+        return standard;
+    }
+    
+    /**
+     * Makes new elements and categories from the template
+     *
+     * @return Chunks with the new elements that can be installed in the game, in the order of the start state
+     */
+    public ArrayList<SafeFileLoader.Chunk> instantiate()
+    {
+        ArrayList<SafeFileLoader.Chunk> chunks = new ArrayList<>(categoryNames.length + 1);
+        Element nothing = hasNothing ? create(ids.length - 1) : null;
+        chunks.add(SafeFileLoader.Chunk.of(null, new ArrayList<>(), new ArrayList<>(), nothing));
+        // If there is a nothing element: add its recipes, like it is the first line of a safe file
+        if (nothing != null)
+        {
+            addRecipes(nothing, chunks.get(0).getRecipes());
+        }
+        // Make every category with its elements
+        for (int i = 0; i < categoryNames.length; i++)
+        {
+            int size = categoryStarts[i + 1] - categoryStarts[i];
+            ArrayList<Element> elements = new ArrayList<>(size);
+            ArrayList<Element> learned = new ArrayList<>();
+            // Make every element of the category
+            for (int index = categoryStarts[i]; index < categoryStarts[i + 1]; index++)
+            {
+                Element element = create(index);
+                elements.add(element);
+                // If the element is known: it is added to the known elements as well
+                if (known[index])
+                {
+                    learned.add(element);
+                }
+            }
+            SafeFileLoader.Chunk chunk = SafeFileLoader.Chunk.of(NameArena.getInstance().get(categoryNames[i]),
+                                                                 elements, learned, null);
+            // Add the recipes of every element to the recipe index of the chunk
+            for (Element element : elements)
+            {
+                addRecipes(element, chunk.getRecipes());
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+    
+    /**
+     * Makes a new element from the arrays
+     *
+     * @param index The position of the element in the arrays
+     *
+     * @return The new element
+     */
+    private Element create(int index)
+    {
+        return new Element(names[index], ids[index], basic[index],
+                           new ArrayList<>(Arrays.asList(quizedRecipes[index])),
+                           new ArrayList<>(Arrays.asList(knownRecipes[index])),
+                           new ArrayList<>(Arrays.asList(unknownRecipes[index])));
+    }
+    
+    /**
+     * Adds the recipes of an element to a recipe index
+     *
+     * @param element The element that is created by the recipes
+     * @param recipes The recipe index
+     */
+    private static void addRecipes(Element element, HashMap<String, Element> recipes)
+    {
+        // Add every recipe of the element
+        for (String recipe : element.getAllRecipes())
+        {
+            recipes.put(recipe, element);
+        }
+    }
+    
+    /**
+     * Simple getter for the lines that could not be read when the template was made
+     *
+     * @return The lines with their line number
+     */
+    public List<String> getErrors()
+    {
+        return errors;
+    }
+    
+    /**
+     * @return The amount of elements in the template, including the nothing element
+     */
+    public int size()
+    {
+        return ids.length;
+    }
+}